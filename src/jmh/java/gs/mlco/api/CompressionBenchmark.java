@@ -0,0 +1,102 @@
+package gs.mlco.api;
+
+import gs.mclo.api.CompressionPolicy;
+import gs.mclo.api.internal.ParallelGzip;
+import gs.mclo.api.internal.PooledGzipOutputStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+    @Param({"200", "10000", "1000000", "10000000"})
+    public int size;
+
+    protected byte[] body;
+
+    protected final CompressionPolicy policy = new CompressionPolicy();
+
+    @Setup
+    public void setup() {
+        var builder = new StringBuilder();
+        for (int i = 0; builder.length() < size; i++) {
+            builder.append("[12:34:56] [Server thread/INFO]: Player").append(i).append(" joined the game\n");
+        }
+        body = builder.substring(0, size).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compress every body with a new deflater at the default level like before
+     */
+    @Benchmark
+    public int gzipOutputStream() throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public int pooledDefaultLevel() throws IOException {
+        return compress(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    @Benchmark
+    public int pooledBestSpeed() throws IOException {
+        return compress(Deflater.BEST_SPEED);
+    }
+
+    @Benchmark
+    public int parallelDefaultLevel() throws IOException {
+        return compressParallel(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    @Benchmark
+    public int parallelBestSpeed() throws IOException {
+        return compressParallel(Deflater.BEST_SPEED);
+    }
+
+    @Benchmark
+    public int policy() throws IOException {
+        int level = policy.getLevel(body.length);
+        return level == Deflater.NO_COMPRESSION ? body.length : compress(level);
+    }
+
+    private int compress(int level) throws IOException {
+        var out = new CountingOutputStream();
+        try (var gzip = new PooledGzipOutputStream(out, level)) {
+            gzip.write(body);
+        }
+        return out.count;
+    }
+
+    private int compressParallel(int level) throws IOException {
+        var out = new CountingOutputStream();
+        ParallelGzip.compress(body, level, ForkJoinPool.commonPool(), out);
+        return out.count;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private int count = 0;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
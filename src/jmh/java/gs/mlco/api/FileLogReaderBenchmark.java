@@ -0,0 +1,73 @@
+package gs.mlco.api;
+
+import gs.mclo.api.internal.filter.*;
+import gs.mclo.api.reader.FileLogReader;
+import gs.mclo.api.response.Limits;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class FileLogReaderBenchmark {
+    /**
+     * File size in MiB
+     */
+    @Param({"1", "10", "100"})
+    public int size;
+
+    /**
+     * Whether to apply the default limits of mclogs or read the entire file
+     */
+    @Param({"true", "false"})
+    public boolean limits;
+
+    protected Path filePath;
+
+    protected FilterList filters;
+
+    @Setup
+    public void setup() throws IOException {
+        var random = new Random(0);
+        filePath = Path.of(System.getProperty("java.io.tmpdir"))
+                .resolve("test-file-" + random.nextInt(1_000_000) + ".log");
+
+        long bytes = size * 1024L * 1024L;
+        long written = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(filePath, StandardCharsets.UTF_8)) {
+            for (int i = 0; written < bytes; i++) {
+                String line = "[12:34:56] [Server thread/INFO]: This is a test log line " + i + "\n";
+                writer.write(line);
+                written += line.length();
+            }
+        }
+
+        filters = limits ? new FilterList(new Filter[]{
+                new TrimFilter(),
+                new LimitBytesFilter(Limits.DEFAULT.getMaxLength()),
+                new LimitLinesFilter(Limits.DEFAULT.getMaxLines()),
+        }) : new FilterList(new Filter[]{});
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(filePath);
+    }
+
+    @Benchmark
+    public String readStreamed() throws IOException {
+        return new FileLogReader(filePath).readContents(filters);
+    }
+
+    @Benchmark
+    public String readMapped() throws IOException {
+        return new FileLogReader(filePath, true).readContents(filters);
+    }
+}
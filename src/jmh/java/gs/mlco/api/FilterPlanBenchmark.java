@@ -0,0 +1,74 @@
+package gs.mlco.api;
+
+import gs.mclo.api.internal.FilteringReader;
+import gs.mclo.api.internal.LimitedReader;
+import gs.mclo.api.internal.filter.*;
+import gs.mclo.api.response.Limits;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class FilterPlanBenchmark {
+    /**
+     * Whether the filters contain a regex filter like the filters of the mclogs API
+     */
+    @Param({"true", "false"})
+    public boolean regex;
+
+    protected String content;
+
+    protected FilterList filters;
+
+    @Setup
+    public void setup() {
+        // A log that reaches both default limits
+        int lineLength = Limits.DEFAULT.getMaxLength() / Limits.DEFAULT.getMaxLines();
+        var builder = new StringBuilder();
+        for (int i = 0; i < Limits.DEFAULT.getMaxLines(); i++) {
+            String prefix = "[12:34:56] [Server thread/INFO]: Player" + i + " connected from 10.0.0." + (i % 256) + " ";
+            builder.append(prefix).append("x".repeat(Math.max(0, lineLength - prefix.length() - 1))).append('\n');
+        }
+        content = builder.toString();
+
+        var regexFilter = new RegexFilter(new ReplacingRegexPattern[]{
+                new ReplacingRegexPattern("(?<!([0-9]|-|\\w))(?:[1-2]?[0-9]{1,2}\\.){3}[1-2]?[0-9]{1,2}(?!([0-9]|-|\\w))", new char[]{}, "**.**.**.**"),
+        }, new RegexPattern[]{});
+        filters = new FilterList(regex ? new Filter[]{
+                new TrimFilter(),
+                new LimitBytesFilter(Limits.DEFAULT.getMaxLength()),
+                new LimitLinesFilter(Limits.DEFAULT.getMaxLines()),
+                regexFilter,
+        } : new Filter[]{
+                new TrimFilter(),
+                new LimitBytesFilter(Limits.DEFAULT.getMaxLength()),
+                new LimitLinesFilter(Limits.DEFAULT.getMaxLines()),
+        });
+    }
+
+    @Benchmark
+    public long applyAllFilters() throws IOException {
+        return read(new FilteringReader(limit(), filters, null));
+    }
+
+    @Benchmark
+    public long applyPlan() throws IOException {
+        return read(new FilteringReader(limit(), filters.getPlan(), null));
+    }
+
+    private Reader limit() {
+        return new LimitedReader(new StringReader(content), filters.getMaxBytes(), filters.getMaxLines(), true);
+    }
+
+    private static long read(Reader reader) throws IOException {
+        try (reader) {
+            return reader.transferTo(Writer.nullWriter());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package gs.mlco.api;
+
+import gs.mclo.api.internal.GzipFileInputStream;
+import gs.mclo.api.internal.LimitedReader;
+import gs.mclo.api.response.Limits;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class GzipFileBenchmark {
+    /**
+     * Uncompressed file size in MiB
+     */
+    @Param({"10", "100"})
+    public int size;
+
+    /**
+     * Number of concatenated gzip members, e.g. rotated logs that were appended to each other
+     */
+    @Param({"1", "32"})
+    public int members;
+
+    /**
+     * Whether to apply the default limits of mclogs or read the entire file
+     */
+    @Param({"true", "false"})
+    public boolean limits;
+
+    protected Path filePath;
+
+    @Setup
+    public void setup() throws IOException {
+        var random = new Random(0);
+        filePath = Path.of(System.getProperty("java.io.tmpdir"))
+                .resolve("test-file-" + random.nextInt(1_000_000) + ".log.gz");
+
+        long bytesPerMember = size * 1024L * 1024L / members;
+        int line = 0;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(filePath))) {
+            for (int member = 0; member < members; member++) {
+                var compressed = new ByteArrayOutputStream();
+                try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(compressed), StandardCharsets.UTF_8)) {
+                    for (long written = 0; written < bytesPerMember; line++) {
+                        String content = "[12:34:56] [Server thread/INFO]: This is a test log line " + line + "\n";
+                        writer.write(content);
+                        written += content.length();
+                    }
+                }
+                compressed.writeTo(out);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(filePath);
+    }
+
+    @Benchmark
+    public long readGzipInputStream() throws IOException {
+        return read(new GZIPInputStream(Files.newInputStream(filePath)));
+    }
+
+    @Benchmark
+    public long readGzipFile() throws IOException {
+        return read(GzipFileInputStream.open(filePath, null));
+    }
+
+    @Benchmark
+    public long readGzipFileParallel() throws IOException {
+        return read(GzipFileInputStream.open(filePath, ForkJoinPool.commonPool()));
+    }
+
+    private long read(InputStream in) throws IOException {
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        if (limits) {
+            reader = new LimitedReader(reader, Limits.DEFAULT.getMaxLength(), Limits.DEFAULT.getMaxLines(), true);
+        }
+
+        try (reader) {
+            return reader.transferTo(Writer.nullWriter());
+        }
+    }
+}
@@ -15,10 +15,20 @@ public class LimitedReaderBenchmark extends ReaderBenchmark {
     protected final int lineLimit = 1000;
     protected final int byteLimit = 10_000;
 
+    protected final char[] buffer = new char[8192];
+    protected String content;
+    protected String nonAsciiContent;
+
     public LimitedReaderBenchmark() {
         super(2500);
     }
 
+    @Setup
+    public void setupContent() throws IOException {
+        content = Files.readString(filePath);
+        nonAsciiContent = content.replace("test", "тест");
+    }
+
     @Benchmark
     public int testWithBufferedReaderByteLimit() throws IOException {
         return test(bufferedReader(), byteLimit, null);
@@ -49,6 +59,21 @@ public class LimitedReaderBenchmark extends ReaderBenchmark {
         return test(bufferedInputStreamReader(), null, lineLimit);
     }
 
+    @Benchmark
+    public int testBulkReadInMemoryNoLimit() throws IOException {
+        return testBulk(new StringReader(content), null, null);
+    }
+
+    @Benchmark
+    public int testBulkReadInMemoryBothLimits() throws IOException {
+        return testBulk(new StringReader(content), content.length(), lineCount);
+    }
+
+    @Benchmark
+    public int testBulkReadInMemoryNonAscii() throws IOException {
+        return testBulk(new StringReader(nonAsciiContent), null, lineCount);
+    }
+
     private int test(Reader in, Integer byteLimit, Integer lineLimit) throws IOException {
         try (Reader reader = new LimitedReader(in, byteLimit, lineLimit, true)) {
             StringWriter writer = new StringWriter();
@@ -57,6 +82,20 @@ public class LimitedReaderBenchmark extends ReaderBenchmark {
         }
     }
 
+    /**
+     * Read the entire reader using a fixed buffer to measure the reader itself without the overhead of a writer.
+     */
+    private int testBulk(Reader in, Integer byteLimit, Integer lineLimit) throws IOException {
+        try (Reader reader = new LimitedReader(in, byteLimit, lineLimit, true)) {
+            int total = 0;
+            int read;
+            while ((read = reader.read(buffer, 0, buffer.length)) != -1) {
+                total += read;
+            }
+            return total;
+        }
+    }
+
     private Reader bufferedReader() throws IOException {
         return Files.newBufferedReader(filePath);
     }
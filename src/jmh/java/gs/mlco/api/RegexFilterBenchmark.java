@@ -0,0 +1,108 @@
+package gs.mlco.api;
+
+import gs.mclo.api.internal.filter.RegexFilter;
+import gs.mclo.api.internal.filter.RegexPattern;
+import gs.mclo.api.internal.filter.ReplacingRegexPattern;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class RegexFilterBenchmark {
+    protected final int lineCount = 20_000;
+
+    protected String content;
+
+    @Setup
+    public void setup() {
+        var random = new Random(0);
+        var builder = new StringBuilder();
+
+        // Simulate a proxy log where most lines contain an IP address
+        for (int i = 0; i < lineCount; i++) {
+            builder.append("[12:34:56] [Netty Epoll Server IO #").append(i % 8).append("/INFO]: ");
+            switch (i % 4) {
+                case 0:
+                    builder.append("Player").append(i).append("[/")
+                            .append(random.nextInt(256)).append('.').append(random.nextInt(256)).append('.')
+                            .append(random.nextInt(256)).append('.').append(random.nextInt(256))
+                            .append(":").append(random.nextInt(65536)).append("] logged in");
+                    break;
+                case 1:
+                    builder.append("Connecting to 127.0.0.1:25565");
+                    break;
+                case 2:
+                    builder.append("[/").append(Integer.toHexString(random.nextInt(0x10000)))
+                            .append(":c600:a213:4835:fdaa:9d04:e354:ed9e] <-> InitialHandler has connected");
+                    break;
+                default:
+                    builder.append("Loaded 42 plugins in C:\\Users\\player\\server");
+                    break;
+            }
+            builder.append('\n');
+        }
+        content = builder.toString();
+    }
+
+    @Benchmark
+    public String applyCompiledFilter(FilterState state) {
+        return state.filter.apply(content);
+    }
+
+    @Benchmark
+    public String applyNewFilter() {
+        return createFilter().apply(content);
+    }
+
+    @Benchmark
+    public String applyFilterPerPattern(FilterState state) {
+        // One pass per pattern, like filters were applied before patterns were combined
+        var result = content;
+        for (var filter : state.singlePatternFilters) {
+            result = filter.apply(result);
+        }
+        return result;
+    }
+
+    @State(Scope.Benchmark)
+    public static class FilterState {
+        protected RegexFilter filter;
+        protected RegexFilter[] singlePatternFilters;
+
+        @Setup
+        public void setup() {
+            filter = createFilter();
+            filter.compile();
+
+            singlePatternFilters = Arrays.stream(PATTERNS)
+                    .map(pattern -> new RegexFilter(new ReplacingRegexPattern[]{pattern}, EXEMPTIONS))
+                    .toArray(RegexFilter[]::new);
+            for (var singlePatternFilter : singlePatternFilters) {
+                singlePatternFilter.compile();
+            }
+        }
+    }
+
+    private static final ReplacingRegexPattern[] PATTERNS = new ReplacingRegexPattern[]{
+            new ReplacingRegexPattern("(?<!([0-9]|-|\\w))(?:[1-2]?[0-9]{1,2}\\.){3}[1-2]?[0-9]{1,2}(?!([0-9]|-|\\w))", new char[]{}, "**.**.**.**"),
+            new ReplacingRegexPattern("(?<!([0-9]|-|\\w))(?:[0-9a-f]{0,4}:){7}[0-9a-f]{0,4}(?!([0-9]|-|\\w))", new char[]{'i'}, "****:****:****:****:****:****:****:****"),
+            new ReplacingRegexPattern("(?<=C:\\\\Users\\\\)([^\\\\]+)", new char[]{'i'}, "********"),
+            new ReplacingRegexPattern("(?<=--accessToken )\\S+", new char[]{}, "****"),
+    };
+
+    private static final RegexPattern[] EXEMPTIONS = new RegexPattern[]{
+            new RegexPattern("127\\.[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}", new char[]{}),
+            new RegexPattern("0\\.0\\.0\\.0", new char[]{}),
+            new RegexPattern("1\\.[01]\\.[01]\\.1", new char[]{}),
+            new RegexPattern("8\\.8\\.[84]\\.[84]", new char[]{}),
+            new RegexPattern("[0:]+1?", new char[]{}),
+    };
+
+    private static RegexFilter createFilter() {
+        return new RegexFilter(PATTERNS, EXEMPTIONS);
+    }
+}
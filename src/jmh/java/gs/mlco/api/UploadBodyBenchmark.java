@@ -0,0 +1,50 @@
+package gs.mlco.api;
+
+import com.google.gson.Gson;
+import gs.mclo.api.data.Metadata;
+import gs.mclo.api.internal.request.UploadLogRequestBody;
+import gs.mclo.api.internal.request.UploadLogRequestEncoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class UploadBodyBenchmark {
+    @Param({"ascii", "mixed"})
+    public String script;
+
+    protected final Gson gson = new Gson();
+    protected final Set<Metadata<?>> metadata = Set.of(new Metadata<>("server", "Paper 1.21", "Server", true));
+    protected String content;
+
+    @Setup
+    public void setup() {
+        var builder = new StringBuilder();
+        for (int i = 0; builder.length() < 10 * 1024 * 1024; i++) {
+            builder.append("[12:34:56] [Server thread/INFO]: <Player").append(i % 100).append("> ")
+                    .append(script.equals("ascii") ? "Has anyone seen my \"diamond\" pickaxe?" : "Привет, 日本語のログ 😀")
+                    .append('\n');
+            if (i % 50 == 0) {
+                builder.append("\tat net.minecraft.server.MinecraftServer.run(MinecraftServer.java:1234)\n");
+            }
+        }
+        content = builder.toString();
+    }
+
+    /**
+     * Serialize the body to a string with Gson and encode it afterward like before
+     */
+    @Benchmark
+    public byte[] gson() {
+        return gson.toJson(new UploadLogRequestBody(content, "mclogs-java", metadata)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encoder() {
+        return UploadLogRequestEncoder.encode(gson, content, "mclogs-java", metadata);
+    }
+}
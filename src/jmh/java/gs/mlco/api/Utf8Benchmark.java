@@ -0,0 +1,64 @@
+package gs.mlco.api;
+
+import gs.mclo.api.internal.LimitedReader;
+import gs.mclo.api.internal.Utf8;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class Utf8Benchmark {
+    @Param({"ascii", "mixed"})
+    public String script;
+
+    protected final char[] buffer = new char[8192];
+    protected String content;
+    protected char[] chars;
+
+    @Setup
+    public void setup() {
+        String line = script.equals("ascii")
+                ? "[12:34:56] [Server thread/INFO]: <Player> This is a test log line\n"
+                : "[12:34:56] [Server thread/INFO]: <Игрок> Привет, это тестовая строка 日本語のログ 😀\n";
+        content = line.repeat(1024 * 1024 / line.length());
+        chars = content.toCharArray();
+    }
+
+    @Benchmark
+    public int lengthOfChars() {
+        return Utf8.length(chars, 0, chars.length);
+    }
+
+    @Benchmark
+    public int lengthOfString() {
+        return Utf8.length(content);
+    }
+
+    @Benchmark
+    public int encodedLength() {
+        return content.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Benchmark
+    public int prefixOfHalf() {
+        return Utf8.prefixEnd(chars, 0, chars.length, chars.length / 2);
+    }
+
+    @Benchmark
+    public int limitedReader() throws IOException {
+        try (Reader reader = new LimitedReader(new StringReader(content), content.length(), 10_000, false)) {
+            int total = 0;
+            int read;
+            while ((read = reader.read(buffer, 0, buffer.length)) != -1) {
+                total += read;
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package gs.mclo.api;
+
+/**
+ * Statistics of the cache for the filters and limits of the instance
+ *
+ * @see MclogsClient#getCacheStats()
+ */
+public final class CacheStats {
+    private final long hits;
+    private final long staleHits;
+    private final long misses;
+    private final long requests;
+    private final long notModified;
+    private final long failures;
+
+    CacheStats(long hits, long staleHits, long misses, long requests, long notModified, long failures) {
+        this.hits = hits;
+        this.staleHits = staleHits;
+        this.misses = misses;
+        this.requests = requests;
+        this.notModified = notModified;
+        this.failures = failures;
+    }
+
+    /**
+     * @return the number of times a fresh cached value was used
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of times a stale cached value was used while it was refreshed in the background
+     */
+    public long getStaleHits() {
+        return staleHits;
+    }
+
+    /**
+     * @return the number of times no cached value could be used, so the value had to be fetched first
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of requests sent to the instance. Concurrent misses share a single request.
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return the number of requests the instance answered with {@code 304 Not Modified}
+     */
+    public long getNotModified() {
+        return notModified;
+    }
+
+    /**
+     * @return the number of requests that failed
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hits=" + hits +
+                ", staleHits=" + staleHits +
+                ", misses=" + misses +
+                ", requests=" + requests +
+                ", notModified=" + notModified +
+                ", failures=" + failures +
+                '}';
+    }
+}
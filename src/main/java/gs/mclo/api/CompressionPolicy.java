@@ -0,0 +1,134 @@
+package gs.mclo.api;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.zip.Deflater;
+
+/**
+ * Decides whether and how strongly uploaded logs are compressed.
+ * <p>
+ * Small bodies are sent uncompressed, because gzip saves almost nothing for them. Large bodies are compressed with a
+ * faster level, which makes the body slightly larger, but reduces the time spent compressing it considerably. Streamed
+ * uploads are treated as large bodies, since their size is not known in advance.
+ */
+public final class CompressionPolicy {
+    private int minSize = 1024;
+    private int level = Deflater.DEFAULT_COMPRESSION;
+    private int largeBodySize = 1024 * 1024;
+    private int largeBodyLevel = Deflater.BEST_SPEED;
+
+    /**
+     * Create a compression policy with the default settings
+     */
+    public CompressionPolicy() {
+    }
+
+    /**
+     * Create a compression policy that never compresses uploads
+     *
+     * @return the compression policy
+     */
+    public static CompressionPolicy none() {
+        return new CompressionPolicy()
+                .setLevel(Deflater.NO_COMPRESSION)
+                .setLargeBodyLevel(Deflater.NO_COMPRESSION);
+    }
+
+    /**
+     * @return the minimum size of a body in bytes to compress it
+     */
+    public int getMinSize() {
+        return minSize;
+    }
+
+    /**
+     * Set the minimum size of a body to compress it. Smaller bodies are sent uncompressed.
+     *
+     * @param minSize minimum size in bytes (default: 1 KiB)
+     * @return this
+     */
+    public CompressionPolicy setMinSize(int minSize) {
+        if (minSize < 0)
+            throw new IllegalArgumentException("Minimum size must not be negative");
+        this.minSize = minSize;
+        return this;
+    }
+
+    /**
+     * @return the compression level for bodies smaller than the {@link #getLargeBodySize() large body size}
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Set the compression level for bodies smaller than the {@link #getLargeBodySize() large body size}.
+     *
+     * @param level the level from 1 (fastest) to 9 (smallest), 0 to send bodies uncompressed or -1 for the default
+     *              level of zlib (default: -1)
+     * @return this
+     */
+    public CompressionPolicy setLevel(int level) {
+        this.level = checkLevel(level);
+        return this;
+    }
+
+    /**
+     * @return the minimum size in bytes for a body to be compressed with the {@link #getLargeBodyLevel() large body level}
+     */
+    public int getLargeBodySize() {
+        return largeBodySize;
+    }
+
+    /**
+     * Set the minimum size for a body to be compressed with the {@link #getLargeBodyLevel() large body level}
+     *
+     * @param largeBodySize minimum size in bytes (default: 1 MiB)
+     * @return this
+     */
+    public CompressionPolicy setLargeBodySize(int largeBodySize) {
+        if (largeBodySize < 0)
+            throw new IllegalArgumentException("Large body size must not be negative");
+        this.largeBodySize = largeBodySize;
+        return this;
+    }
+
+    /**
+     * @return the compression level for large and streamed bodies
+     */
+    public int getLargeBodyLevel() {
+        return largeBodyLevel;
+    }
+
+    /**
+     * Set the compression level for large and streamed bodies. Higher levels trade CPU time for less bandwidth.
+     *
+     * @param largeBodyLevel the level from 1 (fastest) to 9 (smallest), 0 to send bodies uncompressed or -1 for the
+     *                       default level of zlib (default: 1)
+     * @return this
+     */
+    public CompressionPolicy setLargeBodyLevel(int largeBodyLevel) {
+        this.largeBodyLevel = checkLevel(largeBodyLevel);
+        return this;
+    }
+
+    /**
+     * Get the compression level for a body
+     *
+     * @param size the size of the body in bytes or -1 if it is unknown
+     * @return the compression level or {@link Deflater#NO_COMPRESSION} if the body should be sent uncompressed
+     */
+    @ApiStatus.Internal
+    public int getLevel(long size) {
+        if (size < 0 || size >= largeBodySize) {
+            return largeBodyLevel;
+        }
+        return size < minSize ? Deflater.NO_COMPRESSION : level;
+    }
+
+    private static int checkLevel(int level) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+            throw new IllegalArgumentException("Compression level must be between -1 and 9");
+        return level;
+    }
+}
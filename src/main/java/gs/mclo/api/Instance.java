@@ -1,9 +1,14 @@
 package gs.mclo.api;
 
+import gs.mclo.api.internal.RateLimiter;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
 import java.util.Objects;
 
 public final class Instance {
     private String apiBaseUrl;
+    private @Nullable RateLimiter rateLimiter = null;
 
     /**
      * Create a new Instance with the default API base URL and view log URL
@@ -101,6 +106,36 @@ public final class Instance {
         return apiBaseUrl + "1/filters";
     }
 
+    /**
+     * Limit the rate of requests to this instance. The limit is shared by all clients using this instance.
+     * Requests over the limit are delayed until they can be sent.
+     * @param requestsPerSecond the number of requests per second
+     * @param burst the number of requests that can be sent at once before the rate applies
+     * @return this
+     */
+    public Instance setRateLimit(double requestsPerSecond, int burst) {
+        this.rateLimiter = new RateLimiter(requestsPerSecond, burst);
+        return this;
+    }
+
+    /**
+     * Remove the rate limit of this instance
+     * @return this
+     */
+    public Instance removeRateLimit() {
+        this.rateLimiter = null;
+        return this;
+    }
+
+    /**
+     * Get the rate limiter for requests to this instance
+     * @return the rate limiter or null if requests are not limited
+     */
+    @ApiStatus.Internal
+    public @Nullable RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
     private String ensureEndsWithSlash(String url) {
         if (!url.endsWith("/"))
             url += "/";
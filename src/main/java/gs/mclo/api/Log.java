@@ -1,6 +1,7 @@
 package gs.mclo.api;
 
 import gs.mclo.api.data.Metadata;
+import gs.mclo.api.internal.PrefetchReader;
 import gs.mclo.api.internal.filter.*;
 import gs.mclo.api.reader.FileLogReader;
 import gs.mclo.api.reader.LogReader;
@@ -10,10 +11,13 @@ import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.regex.Pattern;
 
 public class Log {
@@ -55,6 +59,11 @@ public class Log {
      */
     private @Nullable String content;
 
+    /**
+     * Content that was read ahead while the filters were fetched or null. Guarded by this.
+     */
+    private @Nullable PrefetchReader prefetched;
+
     /**
      * Optional name of the log source, e.g. a domain or software name.
      */
@@ -112,16 +121,94 @@ public class Log {
      */
     @ApiStatus.Internal
     public String getContent(FilterList filters) throws IOException {
+        return getContent(filters, null);
+    }
+
+    /**
+     * Filters are applied to the entire content, so regex filters can match multiple lines.
+     *
+     * @param executor if not null, regex filters that can't match across lines are applied to chunks of lines in
+     *                 parallel on this executor
+     * @return log content
+     */
+    @ApiStatus.Internal
+    public String getContent(FilterList filters, @Nullable Executor executor) throws IOException {
         if (content != null) {
             return content;
         }
 
-        content = reader.readContents(filters);
-        for (var filter : filters.getFilters()) {
-            content = filter.apply(content);
+        content = reader.readContents(filters, executor, takePrefetched());
+        return content;
+    }
+
+    /**
+     * Open a reader for the filtered log content without reading the entire log into memory. Filters are applied line
+     * by line, so matches of regex filters can't span multiple lines.
+     *
+     * @return reader for the log content
+     */
+    @ApiStatus.Internal
+    public Reader openContent(FilterList filters) throws IOException {
+        return openContent(filters, null);
+    }
+
+    /**
+     * Open a reader for the filtered log content without reading the entire log into memory. Filters are applied line
+     * by line, so matches of regex filters can't span multiple lines.
+     *
+     * @param executor if not null, regex filters are applied to chunks of lines in parallel on this executor
+     * @return reader for the log content
+     */
+    @ApiStatus.Internal
+    public Reader openContent(FilterList filters, @Nullable Executor executor) throws IOException {
+        if (content != null) {
+            return new StringReader(content);
+        }
+
+        return reader.openContents(filters, executor, takePrefetched());
+    }
+
+    /**
+     * Start reading the log before the filters are known. The next call to {@link #getContent(FilterList, Executor)}
+     * or {@link #openContent(FilterList, Executor)} continues from the content that was read ahead.
+     *
+     * @param maxChars the maximum number of chars to read ahead
+     * @param maxLines the maximum number of lines to read ahead
+     * @throws IOException if reading the log fails
+     */
+    @ApiStatus.Internal
+    public void prefetch(int maxChars, int maxLines) throws IOException {
+        if (content != null) {
+            return;
+        }
+
+        var prefetched = reader.prefetch(maxChars, maxLines);
+        synchronized (this) {
+            var previous = this.prefetched;
+            this.prefetched = prefetched;
+            if (previous != null) {
+                previous.close();
+            }
         }
+    }
 
-        return content;
+    /**
+     * Close content that was read ahead, but was not used, e.g. because the upload failed
+     *
+     * @throws IOException if closing the log fails
+     */
+    @ApiStatus.Internal
+    public void discardPrefetched() throws IOException {
+        var prefetched = takePrefetched();
+        if (prefetched != null) {
+            prefetched.close();
+        }
+    }
+
+    private synchronized @Nullable PrefetchReader takePrefetched() {
+        var prefetched = this.prefetched;
+        this.prefetched = null;
+        return prefetched;
     }
 
     /**
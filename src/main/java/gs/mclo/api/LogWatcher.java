@@ -0,0 +1,382 @@
+package gs.mclo.api;
+
+import gs.mclo.api.reader.FileLogReader;
+import gs.mclo.api.response.UploadLogResponse;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the {@code logs} and {@code crash-reports} subdirectories of a server or client directory and uploads new
+ * log files as soon as they have been written.
+ * <p>
+ * Files are uploaded once they haven't changed for the {@link #setDebounce(Duration) debounce} duration, so partially
+ * written files are not uploaded. Files that keep changing (e.g. {@code latest.log}) are not uploaded until they stop
+ * changing. Files with the same content as a file that was already uploaded by this watcher are skipped, unless that
+ * upload failed. At most {@link MclogsClient#setMaxConcurrentUploads(int) maxConcurrentUploads} files are uploaded at
+ * the same time.
+ * <p>
+ * How fast changes are detected depends on the {@link WatchService} of the platform.
+ */
+public final class LogWatcher implements Closeable {
+    private static final List<String> DIRECTORIES = List.of("logs", "crash-reports");
+    /**
+     * Number of content hashes that are remembered to skip duplicate files
+     */
+    private static final int MAX_HASHES = 1024;
+
+    private final MclogsClient client;
+    private final Path directory;
+    private final Consumer<UploadLogResult> listener;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> keys = new HashMap<>();
+    private final long startTime = System.currentTimeMillis();
+    private volatile Duration debounce = Duration.ofMillis(250);
+    private volatile boolean closed = false;
+
+    /**
+     * Files that have been created but are not uploaded yet. Only accessed by the watcher thread.
+     */
+    private final Map<Path, PendingFile> pending = new HashMap<>();
+    /**
+     * Number of pending files after the last check, for tests
+     */
+    private volatile int pendingCount = 0;
+    /**
+     * Hashes of the files that have been uploaded or are being uploaded. Guarded by this.
+     */
+    private final Set<String> hashes = Collections.newSetFromMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_HASHES;
+        }
+    });
+
+    private final Deque<QueuedFile> queue = new ArrayDeque<>();
+    private int running = 0;
+
+    LogWatcher(MclogsClient client, Path directory, Consumer<UploadLogResult> listener) throws IOException {
+        this.client = client;
+        this.directory = directory;
+        this.listener = listener;
+        this.watchService = directory.getFileSystem().newWatchService();
+        try {
+            register(directory, ENTRY_CREATE);
+            for (String name : DIRECTORIES) {
+                var subdirectory = directory.resolve(name);
+                if (Files.isDirectory(subdirectory)) {
+                    register(subdirectory, ENTRY_CREATE, ENTRY_MODIFY);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            watchService.close();
+            throw e;
+        }
+
+        var thread = new Thread(this::run, "mclogs-log-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Set how long a file must not change before it is uploaded
+     *
+     * @param debounce the debounce duration (default: 250ms)
+     * @return this
+     */
+    public LogWatcher setDebounce(Duration debounce) {
+        if (debounce.isNegative())
+            throw new IllegalArgumentException("Debounce duration must not be negative");
+        this.debounce = debounce;
+        return this;
+    }
+
+    /**
+     * @return the watched server or client directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Stop watching the directory. Uploads that have already started are completed, files that are still waiting for
+     * an upload slot are not uploaded.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        synchronized (this) {
+            queue.clear();
+        }
+        watchService.close();
+    }
+
+    /**
+     * @return the number of files that were created or modified but not checked yet
+     */
+    int getPendingFileCount() {
+        return pendingCount;
+    }
+
+    /**
+     * @return the number of uploads that have started but not completed yet
+     */
+    synchronized int getRunningUploads() {
+        return running;
+    }
+
+    private void register(Path path, WatchEvent.Kind<?>... kinds) throws IOException {
+        keys.put(path.register(watchService, kinds), path);
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                WatchKey key = watchService.poll(getTimeUntilNextCheck(), TimeUnit.MILLISECONDS);
+                while (key != null) {
+                    handle(key);
+                    key = watchService.poll();
+                }
+                checkPendingFiles();
+                pendingCount = pending.size();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Closed
+        }
+    }
+
+    private long getTimeUntilNextCheck() {
+        long now = System.nanoTime();
+        long next = Long.MAX_VALUE;
+        for (var file : pending.values()) {
+            next = Math.min(next, file.deadline - now);
+        }
+        return next == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(0, TimeUnit.NANOSECONDS.toMillis(next) + 1);
+    }
+
+    private void handle(WatchKey key) {
+        var path = keys.get(key);
+        for (var event : key.pollEvents()) {
+            if (path == null) {
+                continue;
+            }
+
+            if (event.kind() == OVERFLOW) {
+                // Events were lost, so check all files that were modified since the watcher was started
+                if (path.equals(directory)) {
+                    DIRECTORIES.forEach(name -> registerSubdirectory(directory.resolve(name)));
+                } else {
+                    scan(path);
+                }
+                continue;
+            }
+
+            var file = path.resolve((Path) event.context());
+            if (path.equals(directory)) {
+                if (DIRECTORIES.contains(file.getFileName().toString())) {
+                    registerSubdirectory(file);
+                }
+                continue;
+            }
+
+            if (event.kind() == ENTRY_CREATE) {
+                addPendingFile(file);
+            } else {
+                var pendingFile = pending.get(file);
+                if (pendingFile != null) {
+                    pendingFile.deadline = System.nanoTime() + debounce.toNanos();
+                }
+            }
+        }
+
+        if (!key.reset()) {
+            keys.remove(key);
+        }
+    }
+
+    /**
+     * Start watching a subdirectory that was created after the watcher was started
+     */
+    private void registerSubdirectory(Path path) {
+        if (!Files.isDirectory(path) || keys.containsValue(path)) {
+            return;
+        }
+
+        try {
+            register(path, ENTRY_CREATE, ENTRY_MODIFY);
+        } catch (IOException e) {
+            return;
+        }
+        // Files might have been created before the directory was registered
+        scan(path);
+    }
+
+    private void scan(Path path) {
+        try (Stream<Path> files = Files.list(path)) {
+            files.filter(file -> {
+                try {
+                    return Files.getLastModifiedTime(file).toMillis() >= startTime;
+                } catch (IOException e) {
+                    return false;
+                }
+            }).forEach(this::addPendingFile);
+        } catch (IOException e) {
+            // The directory was deleted
+        }
+    }
+
+    private void addPendingFile(Path file) {
+        if (!FileLogReader.ALLOWED_FILE_NAME_PATTERN.matcher(file.getFileName().toString()).matches()) {
+            return;
+        }
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return;
+        }
+
+        if (attributes.isRegularFile()) {
+            var pendingFile = pending.computeIfAbsent(file, x -> new PendingFile());
+            pendingFile.update(attributes, System.nanoTime() + debounce.toNanos());
+        }
+    }
+
+    /**
+     * Upload pending files that haven't changed during the debounce duration
+     */
+    private void checkPendingFiles() {
+        long now = System.nanoTime();
+        var iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            var entry = iterator.next();
+            var file = entry.getKey();
+            var pendingFile = entry.getValue();
+            if (pendingFile.deadline > now) {
+                continue;
+            }
+
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (IOException e) {
+                // Deleted before it was uploaded
+                iterator.remove();
+                continue;
+            }
+
+            // Not every platform reports every modification, so check that the file didn't change
+            if (pendingFile.isChanged(attributes)) {
+                pendingFile.update(attributes, now + debounce.toNanos());
+                continue;
+            }
+
+            iterator.remove();
+            var hash = hash(file);
+            if (hash != null) {
+                enqueue(file, hash);
+            }
+        }
+    }
+
+    private synchronized void enqueue(Path file, String hash) {
+        if (closed || !hashes.add(hash)) {
+            return;
+        }
+        queue.add(new QueuedFile(file, hash));
+        startUploads();
+    }
+
+    private synchronized void startUploads() {
+        while (!closed && running < client.getMaxConcurrentUploads() && !queue.isEmpty()) {
+            var file = queue.poll();
+            var log = new Log(file.path);
+            running++;
+
+            CompletableFuture<UploadLogResponse> upload;
+            try {
+                upload = client.uploadLog(log);
+            } catch (RuntimeException e) {
+                upload = CompletableFuture.failedFuture(e);
+            }
+            upload.whenComplete((response, error) -> {
+                if (error != null) {
+                    // Files with the same content are uploaded again
+                    synchronized (this) {
+                        hashes.remove(file.hash);
+                    }
+                }
+                try {
+                    listener.accept(new UploadLogResult(log, response, error));
+                } finally {
+                    synchronized (this) {
+                        running--;
+                        startUploads();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the SHA-256 hash of the file content or null if the file can't be read
+     */
+    private static @Nullable String hash(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            var digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (IOException e) {
+            return null;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class QueuedFile {
+        private final Path path;
+        private final String hash;
+
+        private QueuedFile(Path path, String hash) {
+            this.path = path;
+            this.hash = hash;
+        }
+    }
+
+    private static final class PendingFile {
+        private long deadline;
+        private long size;
+        private long lastModified;
+
+        private void update(BasicFileAttributes attributes, long deadline) {
+            this.size = attributes.size();
+            this.lastModified = attributes.lastModifiedTime().toMillis();
+            this.deadline = deadline;
+        }
+
+        private boolean isChanged(BasicFileAttributes attributes) {
+            return attributes.size() != size || attributes.lastModifiedTime().toMillis() != lastModified;
+        }
+    }
+}
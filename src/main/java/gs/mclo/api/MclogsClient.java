@@ -2,9 +2,17 @@ package gs.mclo.api;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import gs.mclo.api.cache.UploadCache;
 import gs.mclo.api.data.LogField;
+import gs.mclo.api.internal.AtomicFiles;
+import gs.mclo.api.internal.BoundedPublisher;
+import gs.mclo.api.internal.CachedValue;
+import gs.mclo.api.internal.InstanceCacheFile;
+import gs.mclo.api.internal.IoExecutor;
 import gs.mclo.api.internal.JsonBodyHandler;
+import gs.mclo.api.internal.RawBodyHandlers;
 import gs.mclo.api.internal.RequestBuilder;
+import gs.mclo.api.internal.RetryingSender;
 import gs.mclo.api.internal.filter.*;
 import gs.mclo.api.internal.gson.FilterTypeAdapterFactory;
 import gs.mclo.api.internal.gson.InstantTypeAdapter;
@@ -13,30 +21,62 @@ import gs.mclo.api.response.*;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 public class MclogsClient {
-    private final Gson gson = new GsonBuilder()
+    /**
+     * Gson is thread safe and doesn't depend on the configuration of a client, so all clients share one instance.
+     */
+    private static final Gson GSON = new GsonBuilder()
             .registerTypeAdapter(Instant.class, new InstantTypeAdapter())
             .registerTypeAdapterFactory(new FilterTypeAdapterFactory())
             .create();
-    private final HttpClient httpClient = HttpClient.newBuilder()
-            .version(HttpClient.Version.HTTP_2)
-            .followRedirects(HttpClient.Redirect.NORMAL)
-            .build();
+
+    /**
+     * Maximum number of chars that are read ahead for streamed uploads, so memory usage stays low
+     */
+    private static final int STREAMING_PREFETCH_CHARS = 1024 * 1024;
+
+    private final Gson gson = GSON;
+    private HttpClient httpClient = SharedHttpClient.INSTANCE;
 
     private Instance instance = new Instance();
-    private @Nullable Limits limits;
-    private @Nullable FilterList filters;
+    private final CachedValue<Limits> limits = new CachedValue<>(etag ->
+            conditionalRequest(instance.getStorageLimitUrl(), Limits.class, etag));
+    private final CachedValue<FilterList> filters = new CachedValue<>(etag ->
+            conditionalRequest(instance.getFiltersUrl(), Filter[].class, etag)
+                    .thenApply(response -> response.map(FilterList::new)));
+    private @Nullable InstanceCacheFile instanceCacheFile = null;
     private final RequestBuilder requestBuilder = new RequestBuilder(gson);
+    private int maxConcurrentUploads = 4;
+    private RetryPolicy retryPolicy = new RetryPolicy();
+    private @Nullable UploadCache uploadCache = null;
+    private @Nullable Executor ioExecutor = null;
+    private @Nullable Executor computeExecutor = null;
 
     /**
      * Create a new Mclogs instance with a custom user agent
@@ -118,6 +158,201 @@ public class MclogsClient {
         return this;
     }
 
+    /**
+     * Stream log contents while uploading them instead of reading the entire log into memory first.
+     * This keeps memory usage low for large logs. Streamed logs are filtered line by line, so matches of regex filters
+     * can't span multiple lines.
+     *
+     * @param streamUploads whether to stream uploads
+     * @return this
+     */
+    public MclogsClient setStreamUploads(boolean streamUploads) {
+        requestBuilder.setStreamUploads(streamUploads);
+        return this;
+    }
+
+    /**
+     * Apply regex filters to large logs in parallel before uploading them. The log is split into chunks of lines
+     * which are filtered on the given executor, e.g. {@link java.util.concurrent.ForkJoinPool#commonPool()}.
+     * The result is identical to filtering the log sequentially. Logs that aren't streamed are filtered sequentially
+     * if a regex filter can match across lines.
+     *
+     * @param filterExecutor the executor to filter logs on or null to filter logs sequentially (default)
+     * @return this
+     */
+    public MclogsClient setFilterExecutor(@Nullable Executor filterExecutor) {
+        requestBuilder.setFilterExecutor(filterExecutor);
+        return this;
+    }
+
+    /**
+     * Compress large logs in parallel before uploading them. Logs are split into blocks of 128 KiB which are compressed
+     * on the given executor, e.g. {@link java.util.concurrent.ForkJoinPool#commonPool()}, and joined into a single gzip
+     * stream. Streamed uploads are always compressed on a single thread.
+     *
+     * @param compressionExecutor the executor to compress logs on or null to compress logs on a single thread (default)
+     * @return this
+     */
+    public MclogsClient setCompressionExecutor(@Nullable Executor compressionExecutor) {
+        requestBuilder.setCompressionExecutor(compressionExecutor);
+        return this;
+    }
+
+    /**
+     * Set the executor for blocking I/O. Response bodies are parsed on this executor while they are streamed. If the
+     * filters of the instance are not cached yet, logs are also read and decompressed on it up to the default limits
+     * of mclogs (or 1 MiB when uploads are {@link #setStreamUploads(boolean) streamed}) at the same time as the
+     * filters are fetched.
+     * <p>
+     * The executor of the {@link #setHttpClient(HttpClient) HTTP client} is never used for this, since it has to
+     * deliver the response bodies that are being parsed.
+     *
+     * @param ioExecutor the executor or null to use a shared pool of up to 8 daemon threads (default)
+     * @return this
+     */
+    public MclogsClient setIoExecutor(@Nullable Executor ioExecutor) {
+        this.ioExecutor = ioExecutor;
+        return this;
+    }
+
+    /**
+     * Set the executor logs are filtered and compressed on before they are uploaded
+     *
+     * @param computeExecutor the executor or null to continue on the thread that provided the filters (default)
+     * @return this
+     */
+    public MclogsClient setComputeExecutor(@Nullable Executor computeExecutor) {
+        this.computeExecutor = computeExecutor;
+        return this;
+    }
+
+    /**
+     * Create a builder for an HTTP client with the default configuration of this library. This can be used to
+     * configure e.g. a connect timeout or a custom executor for a client that is passed to {@link #setHttpClient(HttpClient)}.
+     *
+     * @return a new HTTP client builder
+     */
+    public static HttpClient.Builder newHttpClientBuilder() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL);
+    }
+
+    /**
+     * @return the HTTP client used to send requests
+     */
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * Set the HTTP client used to send requests.
+     * By default, all clients share a single HTTP client, so they can reuse connections to the same instance.
+     * If you need a custom configuration (e.g. a connect timeout), create a client with {@link #newHttpClientBuilder()}
+     * and share it between all of your mclogs clients.
+     *
+     * @param httpClient the HTTP client
+     * @return this
+     */
+    public MclogsClient setHttpClient(HttpClient httpClient) {
+        this.httpClient = Objects.requireNonNull(httpClient);
+        return this;
+    }
+
+    /**
+     * Set the timeout for each request sent by this client
+     *
+     * @param requestTimeout the timeout or null to wait indefinitely (default)
+     * @return this
+     */
+    public MclogsClient setRequestTimeout(@Nullable Duration requestTimeout) {
+        requestBuilder.setRequestTimeout(requestTimeout);
+        return this;
+    }
+
+    /**
+     * @return the policy for retrying failed requests
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Set the policy for retrying failed requests. By default, requests are retried up to 3 times if the instance is
+     * rate limiting or temporarily unavailable. Use {@link RetryPolicy#none()} to disable retries.
+     *
+     * @param retryPolicy the retry policy
+     * @return this
+     */
+    public MclogsClient setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = Objects.requireNonNull(retryPolicy);
+        return this;
+    }
+
+    /**
+     * @return the policy for compressing uploaded logs
+     */
+    public CompressionPolicy getCompressionPolicy() {
+        return requestBuilder.getCompressionPolicy();
+    }
+
+    /**
+     * Set the policy for compressing uploaded logs. By default, logs smaller than 1 KiB are sent uncompressed and logs
+     * larger than 1 MiB are compressed with the fastest level. Use {@link CompressionPolicy#none()} to disable
+     * compression.
+     *
+     * @param compressionPolicy the compression policy
+     * @return this
+     */
+    public MclogsClient setCompressionPolicy(CompressionPolicy compressionPolicy) {
+        requestBuilder.setCompressionPolicy(compressionPolicy);
+        return this;
+    }
+
+    /**
+     * Set the maximum number of logs that are uploaded at the same time by {@link #uploadLogs(Collection)} and
+     * {@link #publishUploads(Iterable, boolean)}. Logs are only read once their upload starts, so this also limits the
+     * number of logs that are held in memory.
+     *
+     * @param maxConcurrentUploads maximum number of concurrent uploads (default: 4)
+     * @return this
+     */
+    public MclogsClient setMaxConcurrentUploads(int maxConcurrentUploads) {
+        if (maxConcurrentUploads < 1)
+            throw new IllegalArgumentException("Maximum number of concurrent uploads must be at least 1");
+        this.maxConcurrentUploads = maxConcurrentUploads;
+        return this;
+    }
+
+    /**
+     * @return the maximum number of logs that are uploaded at the same time
+     */
+    public int getMaxConcurrentUploads() {
+        return maxConcurrentUploads;
+    }
+
+    /**
+     * @return the cache of previous uploads or null if uploads are not cached
+     */
+    public @Nullable UploadCache getUploadCache() {
+        return uploadCache;
+    }
+
+    /**
+     * Set a cache of previous uploads. If a log with the same filtered content, source and metadata has already been
+     * uploaded to the same instance and has not expired yet, the previous upload is returned instead of uploading the
+     * log again. Deleting a log with {@link #deleteLog(String, String)} removes it from the cache.
+     * <p>
+     * The content has to be read before uploading, so streamed uploads read logs twice if they are not cached.
+     *
+     * @param uploadCache the cache, e.g. a {@link gs.mclo.api.cache.MemoryUploadCache}, or null to disable caching (default)
+     * @return this
+     */
+    public MclogsClient setUploadCache(@Nullable UploadCache uploadCache) {
+        this.uploadCache = uploadCache;
+        return this;
+    }
+
     /**
      * @return the instance to upload logs to
      */
@@ -133,10 +368,81 @@ public class MclogsClient {
      */
     public MclogsClient setInstance(Instance instance) {
         this.instance = instance;
-        this.limits = null;
+        this.limits.invalidate();
+        this.filters.invalidate();
+        loadInstanceCacheFile();
+        return this;
+    }
+
+    /**
+     * Store the filters and limits of the instance in a file, so they can be used immediately by the next process
+     * instead of waiting for them to be fetched. Values loaded from the file are refreshed in the background when they
+     * are first used. Values that are older than the {@link #setCacheTtl(Duration) TTL} and the
+     * {@link #setStaleWhileRevalidate(Duration) stale-while-revalidate duration} together are not used, so set those
+     * before the file. Values that the instance confirms as not modified are stored again, so they don't expire in the
+     * file while they are still valid. The file can store the values of multiple instances and can be shared by multiple
+     * clients.
+     *
+     * @param file the file or null to only cache the filters and limits in memory (default)
+     * @return this
+     */
+    public MclogsClient setInstanceCacheFile(@Nullable Path file) {
+        this.instanceCacheFile = file == null ? null : new InstanceCacheFile(file, gson);
+        if (file == null) {
+            limits.setListener(null);
+            filters.setListener(null);
+        } else {
+            limits.setListener(response -> saveInstanceCacheFile("limits", Limits.class, response));
+            filters.setListener(response -> saveInstanceCacheFile("filters", Filter[].class,
+                    response.map(FilterList::getFilters)));
+        }
+        loadInstanceCacheFile();
+        return this;
+    }
+
+    /**
+     * Set how long the filters and limits of the instance are cached before they are refreshed.
+     * If the instance sends an ETag, refreshes only download them again if they changed.
+     *
+     * @param cacheTtl the time to live (default: 10 minutes)
+     * @return this
+     */
+    public MclogsClient setCacheTtl(Duration cacheTtl) {
+        limits.setTtl(cacheTtl);
+        filters.setTtl(cacheTtl);
+        return this;
+    }
+
+    /**
+     * Set how long the filters and limits of the instance are used after their {@link #setCacheTtl(Duration) TTL}
+     * while they are refreshed in the background. Requests only wait for the filters and limits if they have been
+     * stale for longer than this.
+     *
+     * @param staleWhileRevalidate the duration after the TTL (default: 1 hour)
+     * @return this
+     */
+    public MclogsClient setStaleWhileRevalidate(Duration staleWhileRevalidate) {
+        limits.setStaleWhileRevalidate(staleWhileRevalidate);
+        filters.setStaleWhileRevalidate(staleWhileRevalidate);
         return this;
     }
 
+    /**
+     * Get statistics of the cache for the filters and limits of the instance
+     *
+     * @return the combined statistics of the filters and limits
+     */
+    public CacheStats getCacheStats() {
+        return new CacheStats(
+                limits.getHits() + filters.getHits(),
+                limits.getStaleHits() + filters.getStaleHits(),
+                limits.getMisses() + filters.getMisses(),
+                limits.getRequests() + filters.getRequests(),
+                limits.getNotModified() + filters.getNotModified(),
+                limits.getFailures() + filters.getFailures()
+        );
+    }
+
     /**
      * Upload a log to mclogs
      *
@@ -144,14 +450,31 @@ public class MclogsClient {
      * @return the response
      */
     public CompletableFuture<UploadLogResponse> uploadLog(Log log) {
-        return getFiltersOrDefault().thenCompose(filters -> {
+        return withFilters(log, filters -> {
             if (log.getSource() == null) {
                 log.setSource(requestBuilder.getProjectName());
             }
 
+            var url = instance.getLogUploadUrl();
+            var cache = this.uploadCache;
             try {
-                HttpRequest request = requestBuilder.uploadRequest(instance.getLogUploadUrl(), log, filters);
-                return asyncRequest(request, UploadLogResponse.class);
+                if (cache == null) {
+                    return asyncRequest(requestBuilder.uploadRequest(url, log, filters), UploadLogResponse.class, false);
+                }
+
+                String content = requestBuilder.readContent(log, filters);
+                String key = requestBuilder.uploadKey(url, log, filters, content);
+                var previous = cache.get(key);
+                if (previous != null) {
+                    // The cached response may be shared with other clients, so it must not be changed
+                    return CompletableFuture.completedFuture(previous.copy(this));
+                }
+
+                HttpRequest request = requestBuilder.uploadRequest(url, log, filters, content);
+                return asyncRequest(request, UploadLogResponse.class, false).thenApply(response -> {
+                    cache.put(key, response);
+                    return response;
+                });
             } catch (IOException e) {
                 return CompletableFuture.failedFuture(e);
             }
@@ -178,6 +501,63 @@ public class MclogsClient {
         return this.uploadLog(new Log(log));
     }
 
+    /**
+     * Upload multiple logs to mclogs. At most {@link #setMaxConcurrentUploads(int) maxConcurrentUploads} logs are
+     * uploaded at the same time. Failed uploads don't affect other uploads and are reported in their result.
+     *
+     * @param logs the logs to upload
+     * @return the results in the same order as the logs
+     */
+    public CompletableFuture<List<UploadLogResult>> uploadLogs(Collection<Log> logs) {
+        var future = new CompletableFuture<List<UploadLogResult>>();
+        publishUploads(logs, true).subscribe(new Flow.Subscriber<>() {
+            private final List<UploadLogResult> results = new ArrayList<>(logs.size());
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(UploadLogResult item) {
+                results.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                future.complete(results);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Upload multiple logs to mclogs and publish the result of each upload.
+     * Uploads are only started once the subscriber requests their result and at most
+     * {@link #setMaxConcurrentUploads(int) maxConcurrentUploads} results are pending at the same time.
+     * Failed uploads don't affect other uploads and are reported in their result.
+     *
+     * @param logs    the logs to upload. Iterated lazily, so logs can be created on demand.
+     * @param ordered whether to publish results in the order of the logs instead of the order the uploads complete
+     * @return a publisher for the upload results
+     */
+    public Flow.Publisher<UploadLogResult> publishUploads(Iterable<Log> logs, boolean ordered) {
+        return new BoundedPublisher<>(logs, log -> {
+            CompletableFuture<UploadLogResponse> upload;
+            try {
+                upload = uploadLog(log);
+            } catch (RuntimeException e) {
+                upload = CompletableFuture.failedFuture(e);
+            }
+            return upload.handle((response, error) -> new UploadLogResult(log, response, error));
+        }, maxConcurrentUploads, ordered);
+    }
+
     /**
      * Fetch the raw contents of a log from mclogs
      *
@@ -188,7 +568,120 @@ public class MclogsClient {
         HttpRequest request = requestBuilder.request(instance.getRawLogUrl(logId))
                 .GET()
                 .build();
-        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(HttpResponse::body);
+        return sender().send(request, HttpResponse.BodyHandlers.ofString(), true).thenApply(HttpResponse::body);
+    }
+
+    /**
+     * Fetch the raw contents of a log from mclogs as a stream. The log is transferred gzip compressed if the instance
+     * supports it and decompressed while reading the stream.
+     *
+     * @param logId the id of the log
+     * @return an input stream of the raw contents of the log. Must be closed by the caller.
+     */
+    public CompletableFuture<InputStream> getRawLogContentStream(String logId) {
+        return sender().send(rawLogRequest(logId), RawBodyHandlers.ofInputStream(), true)
+                .thenApplyAsync(response -> response.body().get(), ioExecutor());
+    }
+
+    /**
+     * Fetch the raw contents of a log from mclogs as a reader
+     *
+     * @param logId the id of the log
+     * @return a reader for the raw contents of the log. Must be closed by the caller.
+     * @see #getRawLogContentStream(String)
+     */
+    public CompletableFuture<Reader> getRawLogContentReader(String logId) {
+        return getRawLogContentStream(logId)
+                .thenApply(in -> new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Fetch the raw contents of a log from mclogs as a lazily read stream of lines
+     *
+     * @param logId the id of the log
+     * @return a stream of the lines of the log. Must be closed by the caller.
+     * @see #getRawLogContentStream(String)
+     */
+    public CompletableFuture<Stream<String>> getRawLogContentLines(String logId) {
+        return getRawLogContentReader(logId).thenApply(reader -> {
+            var bufferedReader = new BufferedReader(reader);
+            return bufferedReader.lines().onClose(() -> {
+                try {
+                    bufferedReader.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        });
+    }
+
+    /**
+     * Download the raw contents of a log from mclogs to a file without holding the log in memory.
+     * The log is written to a temporary file in the same directory first, which only replaces the file once the download
+     * succeeded. If the download fails, the file is left unchanged.
+     *
+     * @param logId the id of the log
+     * @param file  the file to write the log to
+     * @return the path of the file
+     * @see #getRawLogContentStream(String)
+     */
+    public CompletableFuture<Path> downloadRawLogContent(String logId, Path file) {
+        Path temp;
+        FileChannel channel;
+        try {
+            temp = AtomicFiles.createTempFile(file);
+            try {
+                channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return downloadRawLogContent(logId, channel)
+                .handle((result, error) -> {
+                    try {
+                        try {
+                            channel.close();
+                            if (error == null) {
+                                AtomicFiles.move(temp, file);
+                                return file;
+                            }
+                        } finally {
+                            Files.deleteIfExists(temp);
+                        }
+                    } catch (IOException e) {
+                        if (error == null) {
+                            throw new CompletionException(e);
+                        }
+                        error.addSuppressed(e);
+                    }
+                    throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+                });
+    }
+
+    /**
+     * Download the raw contents of a log from mclogs to a channel without holding the log in memory.
+     * Uncompressed responses are written to the channel directly from the buffers of the HTTP client.
+     *
+     * @param logId   the id of the log
+     * @param channel the channel to write the log to. Not closed by this method.
+     * @return a future that completes when the log has been written to the channel
+     * @see #getRawLogContentStream(String)
+     */
+    public CompletableFuture<Void> downloadRawLogContent(String logId, WritableByteChannel channel) {
+        // Only retry requests that failed before writing anything to the channel
+        return sender().send(rawLogRequest(logId), RawBodyHandlers.ofChannel(channel), false)
+                .thenApplyAsync(response -> response.body().get(), ioExecutor());
+    }
+
+    private HttpRequest rawLogRequest(String logId) {
+        return requestBuilder.request(instance.getRawLogUrl(logId))
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build();
     }
 
     /**
@@ -202,7 +695,7 @@ public class MclogsClient {
                 .header("Accept", "application/json")
                 .GET()
                 .build();
-        return asyncRequest(request, InsightsResponse.class);
+        return asyncRequest(request, InsightsResponse.class, true);
     }
 
     /**
@@ -212,10 +705,10 @@ public class MclogsClient {
      * @return the insights of the log
      */
     public CompletableFuture<InsightsResponse> analyseLog(Log log) {
-        return this.getFiltersOrDefault().thenCompose(filters -> {
+        return withFilters(log, filters -> {
             try {
                 HttpRequest request = requestBuilder.uploadRequest(instance.getLogAnalysisUrl(), log, filters);
-                return asyncRequest(request, InsightsResponse.class);
+                return asyncRequest(request, InsightsResponse.class, true);
             } catch (IOException e) {
                 return CompletableFuture.failedFuture(e);
             }
@@ -248,19 +741,7 @@ public class MclogsClient {
      * @return the storage limits
      */
     public CompletableFuture<Limits> getLimits() {
-        var limits = this.limits;
-        if (limits != null) {
-            return CompletableFuture.completedFuture(limits);
-        }
-
-        HttpRequest request = requestBuilder.request(instance.getStorageLimitUrl())
-                .header("Accept", "application/json")
-                .GET()
-                .build();
-        return asyncRequest(request, Limits.class).thenApply(result -> {
-            this.limits = result;
-            return result;
-        });
+        return limits.get();
     }
 
     /**
@@ -280,7 +761,7 @@ public class MclogsClient {
                 .header("Accept", "application/json")
                 .GET()
                 .build();
-        return asyncRequest(request, GetLogResponse.class);
+        return asyncRequest(request, GetLogResponse.class, true);
     }
 
     /**
@@ -295,7 +776,11 @@ public class MclogsClient {
                 .header("Authorization", "Bearer " + token)
                 .DELETE()
                 .build();
-        return asyncRequest(request, Void.class).thenAccept(x -> {
+        return asyncRequest(request, Void.class, true).thenAccept(x -> {
+            var cache = this.uploadCache;
+            if (cache != null) {
+                cache.invalidate(id);
+            }
         });
     }
 
@@ -305,21 +790,7 @@ public class MclogsClient {
      * @return an array of filters
      */
     CompletableFuture<FilterList> getFilters() {
-        var filters = this.filters;
-        if (filters != null) {
-            return CompletableFuture.completedFuture(filters);
-        }
-
-        HttpRequest request = requestBuilder.request(instance.getFiltersUrl())
-                .header("Accept", "application/json")
-                .GET()
-                .build();
-        return asyncRequest(request, Filter[].class)
-                .thenApply(FilterList::new)
-                .thenApply(result -> {
-                    this.filters = result;
-                    return result;
-                });
+        return filters.get();
     }
 
     /**
@@ -352,6 +823,19 @@ public class MclogsClient {
         return listFilesInDirectory(directory.resolve("crash-reports"));
     }
 
+    /**
+     * Watch the {@code logs} and {@code crash-reports} subdirectories of a server/client directory and upload new log
+     * files as soon as they have been written, instead of listing the directories periodically.
+     *
+     * @param directory server/client directory
+     * @param listener  called with the result of each upload
+     * @return the watcher. Close it to stop watching.
+     * @throws IOException if the directory can't be watched
+     */
+    public LogWatcher watchDirectory(Path directory, Consumer<UploadLogResult> listener) throws IOException {
+        return new LogWatcher(this, directory, Objects.requireNonNull(listener, "Listener must not be null"));
+    }
+
     /**
      * List all files in a directory that match the allowed file name pattern
      *
@@ -364,7 +848,7 @@ public class MclogsClient {
             files = new String[0];
 
         return Arrays.stream(files)
-                .filter(f -> f.matches(FileLogReader.ALLOWED_FILE_NAME_PATTERN.pattern()))
+                .filter(f -> FileLogReader.ALLOWED_FILE_NAME_PATTERN.matcher(f).matches())
                 .sorted()
                 .toArray(String[]::new);
     }
@@ -389,9 +873,120 @@ public class MclogsClient {
         return listCrashReportsInDirectory(Path.of(directory));
     }
 
-    private <T> CompletableFuture<T> asyncRequest(HttpRequest request, Class<T> responseClass) {
-        return httpClient.sendAsync(request, new JsonBodyHandler<>(this, responseClass))
-                .thenApply(HttpResponse::body);
+    /**
+     * Send a request and parse the JSON response
+     *
+     * @param request       the request
+     * @param responseClass the response type
+     * @param idempotent    whether sending the request multiple times has the same effect as sending it once
+     * @return the parsed response
+     */
+    private <T> CompletableFuture<T> asyncRequest(HttpRequest request, Class<T> responseClass, boolean idempotent) {
+        // The body is parsed while it's streamed, which blocks, so it's not parsed on the HTTP client's threads
+        var future = sender().send(request, new JsonBodyHandler<>(this, responseClass), idempotent)
+                .thenApplyAsync(response -> response.body().get(), ioExecutor());
+        future.whenComplete((response, error) -> RequestBuilder.release(request));
+        return future;
+    }
+
+    /**
+     * Send a GET request that is answered with {@code 304 Not Modified} if the ETag still matches
+     *
+     * @param url           the URL
+     * @param responseClass the response type
+     * @param etag          the ETag of the cached response or null
+     * @return the parsed response and its ETag
+     */
+    private <T> CompletableFuture<CachedValue.Response<T>> conditionalRequest(String url, Class<T> responseClass, @Nullable String etag) {
+        var builder = requestBuilder.request(url).header("Accept", "application/json");
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+
+        var jsonHandler = new JsonBodyHandler<>(this, responseClass);
+        HttpResponse.BodyHandler<Supplier<@Nullable T>> handler = responseInfo -> responseInfo.statusCode() == 304
+                ? HttpResponse.BodySubscribers.replacing(() -> null)
+                : jsonHandler.apply(responseInfo);
+        return sender().send(builder.GET().build(), handler, true)
+                .thenApplyAsync(response -> {
+                    if (response.statusCode() == 304) {
+                        return CachedValue.Response.notModified();
+                    }
+                    return CachedValue.Response.of(Objects.requireNonNull(response.body().get()),
+                            response.headers().firstValue("ETag").orElse(null));
+                }, ioExecutor());
+    }
+
+    private void loadInstanceCacheFile() {
+        var file = this.instanceCacheFile;
+        if (file == null) {
+            return;
+        }
+
+        var url = instance.getApiBaseUrl();
+        InstanceCacheFile.Snapshot<Limits> limits = file.read(url, "limits", Limits.class);
+        if (limits != null) {
+            this.limits.putStale(limits.getResponse(), limits.getAge());
+        }
+
+        InstanceCacheFile.Snapshot<Filter[]> filters = file.read(url, "filters", Filter[].class);
+        if (filters != null) {
+            this.filters.putStale(filters.getResponse().map(FilterList::new), filters.getAge());
+        }
+    }
+
+    private void saveInstanceCacheFile(String name, Class<?> type, CachedValue.Response<?> response) {
+        var file = this.instanceCacheFile;
+        if (file != null) {
+            file.write(instance.getApiBaseUrl(), name, type, response);
+        }
+    }
+
+    private Executor ioExecutor() {
+        var ioExecutor = this.ioExecutor;
+        return ioExecutor == null ? IoExecutor.shared() : ioExecutor;
+    }
+
+    private RetryingSender sender() {
+        return new RetryingSender(httpClient, retryPolicy, instance.getRateLimiter());
+    }
+
+    /**
+     * Prepare a log with the filters of the instance. If the filters have to be fetched first, the log is read ahead
+     * on the I/O executor in the meantime.
+     *
+     * @param log    the log
+     * @param action action that uses the filtered log. Called on the compute executor.
+     * @return the result of the action
+     */
+    private <T> CompletableFuture<T> withFilters(Log log, Function<FilterList, CompletableFuture<T>> action) {
+        var filters = getFiltersOrDefault();
+        if (!filters.isDone()) {
+            int maxChars = requestBuilder.isStreamUploads()
+                    ? STREAMING_PREFETCH_CHARS
+                    : Limits.DEFAULT.getMaxLength();
+            Runnable prefetch = () -> {
+                try {
+                    log.prefetch(maxChars, Limits.DEFAULT.getMaxLines());
+                } catch (IOException e) {
+                    // Reported when the log is read again
+                }
+            };
+            var prefetched = CompletableFuture.runAsync(prefetch, ioExecutor());
+            filters = filters.thenCombine(prefetched, (result, x) -> result);
+        }
+
+        var computeExecutor = this.computeExecutor;
+        var result = computeExecutor == null
+                ? filters.thenCompose(action)
+                : filters.thenComposeAsync(action, computeExecutor);
+        return result.whenComplete((x, error) -> {
+            try {
+                log.discardPrefetched();
+            } catch (IOException e) {
+                // The log has been read already
+            }
+        });
     }
 
     private CompletableFuture<FilterList> getFiltersOrDefault() {
@@ -406,4 +1001,11 @@ public class MclogsClient {
     public Gson gson() {
         return this.gson;
     }
+
+    /**
+     * Holder for the default HTTP client, so it's only created if a client without a custom HTTP client is used.
+     */
+    private static final class SharedHttpClient {
+        private static final HttpClient INSTANCE = newHttpClientBuilder().build();
+    }
 }
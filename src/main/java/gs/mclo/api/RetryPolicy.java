@@ -0,0 +1,164 @@
+package gs.mclo.api;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether and when failed requests are retried.
+ * <p>
+ * Requests are retried if the instance is rate limiting (429) or temporarily unavailable (5xx). The delay between
+ * attempts grows exponentially with random jitter, unless the instance specifies a delay with a {@code Retry-After}
+ * header. Requests that may have changed data on the instance (e.g. uploading a log) are only retried if the instance
+ * definitely didn't process them.
+ */
+public final class RetryPolicy {
+    private int maxRetries = 3;
+    private Duration baseDelay = Duration.ofMillis(500);
+    private Duration maxDelay = Duration.ofSeconds(30);
+
+    /**
+     * Create a retry policy with the default settings
+     */
+    public RetryPolicy() {
+    }
+
+    /**
+     * Create a retry policy that never retries requests
+     *
+     * @return the retry policy
+     */
+    public static RetryPolicy none() {
+        return new RetryPolicy().setMaxRetries(0);
+    }
+
+    /**
+     * @return the maximum number of retries for a single request
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Set the maximum number of retries for a single request
+     *
+     * @param maxRetries maximum number of retries (default: 3)
+     * @return this
+     */
+    public RetryPolicy setMaxRetries(int maxRetries) {
+        if (maxRetries < 0)
+            throw new IllegalArgumentException("Maximum number of retries must not be negative");
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    /**
+     * @return the delay before the first retry
+     */
+    public Duration getBaseDelay() {
+        return baseDelay;
+    }
+
+    /**
+     * Set the delay before the first retry. The delay is doubled for every further retry.
+     *
+     * @param baseDelay the base delay (default: 500ms)
+     * @return this
+     */
+    public RetryPolicy setBaseDelay(Duration baseDelay) {
+        if (Objects.requireNonNull(baseDelay).isNegative())
+            throw new IllegalArgumentException("Base delay must not be negative");
+        this.baseDelay = baseDelay;
+        return this;
+    }
+
+    /**
+     * @return the maximum delay between two attempts
+     */
+    public Duration getMaxDelay() {
+        return maxDelay;
+    }
+
+    /**
+     * Set the maximum delay between two attempts. Requests are not retried if the instance asks for a longer delay.
+     *
+     * @param maxDelay the maximum delay (default: 30s)
+     * @return this
+     */
+    public RetryPolicy setMaxDelay(Duration maxDelay) {
+        if (Objects.requireNonNull(maxDelay).isNegative())
+            throw new IllegalArgumentException("Maximum delay must not be negative");
+        this.maxDelay = maxDelay;
+        return this;
+    }
+
+    /**
+     * Check whether a request should be retried after receiving a response with this status code
+     *
+     * @param statusCode HTTP status code of the response
+     * @param idempotent whether sending the request multiple times has the same effect as sending it once
+     * @return whether to retry the request
+     */
+    @ApiStatus.Internal
+    public boolean shouldRetry(int statusCode, boolean idempotent) {
+        switch (statusCode) {
+            case 429:
+            case 503:
+                // The request was rejected before it was processed
+                return true;
+            case 500:
+            case 502:
+            case 504:
+                return idempotent;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Check whether a request should be retried after it failed with this error
+     *
+     * @param error      the error
+     * @param idempotent whether sending the request multiple times has the same effect as sending it once
+     * @return whether to retry the request
+     */
+    @ApiStatus.Internal
+    public boolean shouldRetry(Throwable error, boolean idempotent) {
+        if (error instanceof ConnectException || error instanceof HttpConnectTimeoutException) {
+            // The request was never sent
+            return true;
+        }
+        return idempotent && error instanceof IOException && !(error instanceof APIException);
+    }
+
+    /**
+     * Get the delay before the next attempt
+     *
+     * @param retry      number of the upcoming retry starting at 1
+     * @param retryAfter the delay requested by the instance or null
+     * @return the delay or null if the request should not be retried
+     */
+    @ApiStatus.Internal
+    public @Nullable Duration getDelay(int retry, @Nullable Duration retryAfter) {
+        if (retry > maxRetries) {
+            return null;
+        }
+
+        if (retryAfter != null) {
+            return retryAfter.compareTo(maxDelay) > 0 ? null : retryAfter;
+        }
+
+        // Exponential backoff with full jitter
+        long max = baseDelay.toNanos() << Math.min(retry - 1, 30);
+        if (max < 0 || max > maxDelay.toNanos()) {
+            max = maxDelay.toNanos();
+        }
+        return Duration.ofNanos(max == 0 ? 0 : ThreadLocalRandom.current().nextLong(max + 1));
+    }
+}
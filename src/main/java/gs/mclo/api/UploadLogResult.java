@@ -0,0 +1,59 @@
+package gs.mclo.api;
+
+import gs.mclo.api.response.UploadLogResponse;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * The result of uploading a single log as part of a batch upload
+ */
+public final class UploadLogResult {
+    private final Log log;
+    private final @Nullable UploadLogResponse response;
+    private final @Nullable Throwable error;
+
+    @ApiStatus.Internal
+    public UploadLogResult(Log log, @Nullable UploadLogResponse response, @Nullable Throwable error) {
+        this.log = log;
+        this.response = response;
+        this.error = unwrap(error);
+    }
+
+    /**
+     * @return the log that was uploaded
+     */
+    public Log getLog() {
+        return log;
+    }
+
+    /**
+     * @return whether the log was uploaded successfully
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * @return the response of the API or null if the upload failed
+     */
+    public @Nullable UploadLogResponse getResponse() {
+        return response;
+    }
+
+    /**
+     * @return the reason the upload failed or null if it was successful
+     */
+    public @Nullable Throwable getError() {
+        return error;
+    }
+
+    private static @Nullable Throwable unwrap(@Nullable Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+}
@@ -0,0 +1,168 @@
+package gs.mclo.api.cache;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import gs.mclo.api.internal.AtomicFiles;
+import gs.mclo.api.internal.gson.InstantTypeAdapter;
+import gs.mclo.api.response.UploadLogResponse;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An upload cache that is stored in a JSON file, so uploads are remembered across restarts.
+ * <p>
+ * The cache is loaded when it is created. Changes are written shortly after they happen, so multiple uploads in quick
+ * succession only replace the file once. Call {@link #flush()} before exiting to write pending changes immediately.
+ * If the file can't be read, the cache starts empty. If it can't be written, uploads are only remembered in memory.
+ * Multiple processes should not share the same file.
+ *
+ * @see MemoryUploadCache
+ */
+public final class FileUploadCache implements UploadCache {
+    private static final int VERSION = 1;
+    /**
+     * How long to wait after a change before writing the file, so changes in quick succession are written together
+     */
+    private static final long SAVE_DELAY_MILLIS = 1000;
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(Instant.class, new InstantTypeAdapter().nullSafe())
+            .create();
+
+    private final Path file;
+    private final MemoryUploadCache cache;
+    private final Executor saveExecutor;
+    private final Object writeLock = new Object();
+    private boolean dirty = false;
+
+    /**
+     * Create a new file upload cache
+     *
+     * @param file       the file to store the cache in. Created when the first upload is cached.
+     * @param maxEntries the maximum number of uploads to remember
+     * @param maxAge     the maximum time to remember an upload for
+     */
+    public FileUploadCache(Path file, int maxEntries, Duration maxAge) {
+        this(file, new MemoryUploadCache(maxEntries, maxAge, Clock.systemUTC()));
+    }
+
+    FileUploadCache(Path file, MemoryUploadCache cache) {
+        this(file, cache, CompletableFuture.delayedExecutor(SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    FileUploadCache(Path file, MemoryUploadCache cache, Executor saveExecutor) {
+        this.file = Objects.requireNonNull(file, "File must not be null");
+        this.cache = cache;
+        this.saveExecutor = saveExecutor;
+        load();
+    }
+
+    @Override
+    public @Nullable UploadLogResponse get(String key) {
+        return cache.get(key);
+    }
+
+    @Override
+    public void put(String key, UploadLogResponse response) {
+        cache.put(key, response);
+        scheduleSave();
+    }
+
+    @Override
+    public void invalidate(String logId) {
+        cache.invalidate(logId);
+        scheduleSave();
+    }
+
+    /**
+     * Write pending changes to the file now instead of waiting for the scheduled write
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            synchronized (this) {
+                if (!dirty) {
+                    return;
+                }
+                dirty = false;
+            }
+            save();
+        }
+    }
+
+    private synchronized void scheduleSave() {
+        if (dirty) {
+            // The scheduled write hasn't taken its snapshot yet, so it will include this change
+            return;
+        }
+        dirty = true;
+        saveExecutor.execute(this::flush);
+    }
+
+    private void load() {
+        JsonArray entries;
+        try {
+            JsonElement json = JsonParser.parseString(Files.readString(file, StandardCharsets.UTF_8));
+            if (!json.isJsonObject()) {
+                return;
+            }
+
+            var object = json.getAsJsonObject();
+            var version = object.get("version");
+            var elements = object.get("entries");
+            if (version == null || !version.isJsonPrimitive() || version.getAsInt() != VERSION
+                    || elements == null || !elements.isJsonArray()) {
+                return;
+            }
+            entries = elements.getAsJsonArray();
+        } catch (IOException | RuntimeException e) {
+            // Start with an empty cache if the file doesn't exist or is corrupted
+            return;
+        }
+
+        for (JsonElement element : entries) {
+            try {
+                var entry = element.getAsJsonObject();
+                cache.put(entry.get("key").getAsString(),
+                        GSON.fromJson(entry.get("response"), UploadLogResponse.class),
+                        Instant.ofEpochSecond(entry.get("validUntil").getAsLong()));
+            } catch (RuntimeException e) {
+                // Skip invalid entries
+            }
+        }
+    }
+
+    private void save() {
+        var entries = new JsonArray();
+        cache.forEach((key, entry) -> {
+            var json = new JsonObject();
+            json.addProperty("key", key);
+            json.addProperty("validUntil", entry.validUntil.getEpochSecond());
+            json.add("response", GSON.toJsonTree(entry.response));
+            entries.add(json);
+        });
+
+        var json = new JsonObject();
+        json.addProperty("version", VERSION);
+        json.add("entries", entries);
+
+        try {
+            AtomicFiles.writeString(file, GSON.toJson(json));
+        } catch (IOException e) {
+            // Failing the upload because it can't be cached would be worse than uploading it again later
+        }
+    }
+}
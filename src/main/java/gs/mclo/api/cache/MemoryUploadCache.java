@@ -0,0 +1,116 @@
+package gs.mclo.api.cache;
+
+import gs.mclo.api.response.UploadLogResponse;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * An upload cache that keeps the most recently used uploads in memory.
+ * <p>
+ * Entries are removed once the log expires or they are older than the maximum age. If the cache is full, the least
+ * recently used entry is removed.
+ */
+public final class MemoryUploadCache implements UploadCache {
+    private final int maxEntries;
+    private final Duration maxAge;
+    private final Clock clock;
+    private final LinkedHashMap<String, CachedUpload> entries;
+
+    /**
+     * Create a new memory upload cache
+     *
+     * @param maxEntries the maximum number of uploads to remember
+     * @param maxAge     the maximum time to remember an upload for
+     */
+    public MemoryUploadCache(int maxEntries, Duration maxAge) {
+        this(maxEntries, maxAge, Clock.systemUTC());
+    }
+
+    MemoryUploadCache(int maxEntries, Duration maxAge, Clock clock) {
+        if (maxEntries < 1)
+            throw new IllegalArgumentException("Maximum number of entries must be at least 1");
+        if (maxAge.isNegative() || maxAge.isZero())
+            throw new IllegalArgumentException("Maximum age must be positive");
+
+        this.maxEntries = maxEntries;
+        this.maxAge = maxAge;
+        this.clock = Objects.requireNonNull(clock);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedUpload> eldest) {
+                return size() > MemoryUploadCache.this.maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public synchronized @Nullable UploadLogResponse get(String key) {
+        var entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+
+        if (!entry.validUntil.isAfter(clock.instant())) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.response;
+    }
+
+    @Override
+    public void put(String key, UploadLogResponse response) {
+        put(key, response, clock.instant().plus(maxAge));
+    }
+
+    @Override
+    public synchronized void invalidate(String logId) {
+        entries.values().removeIf(entry -> logId.equals(entry.response.getId()));
+    }
+
+    /**
+     * @return the number of cached uploads, including expired uploads that have not been removed yet
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Remember an upload until the given time or until the log expires if that is earlier
+     */
+    synchronized void put(String key, UploadLogResponse response, Instant validUntil) {
+        var expires = response.getExpires();
+        if (expires != null && expires.isBefore(validUntil)) {
+            validUntil = expires;
+        }
+
+        if (validUntil.isAfter(clock.instant())) {
+            entries.put(key, new CachedUpload(response, validUntil));
+        }
+    }
+
+    /**
+     * Call the consumer for all entries that have not expired, from the least to the most recently used
+     */
+    synchronized void forEach(BiConsumer<String, CachedUpload> consumer) {
+        var now = clock.instant();
+        entries.values().removeIf(entry -> !entry.validUntil.isAfter(now));
+        entries.forEach(consumer);
+    }
+
+    static final class CachedUpload {
+        final UploadLogResponse response;
+        final Instant validUntil;
+
+        private CachedUpload(UploadLogResponse response, Instant validUntil) {
+            this.response = response;
+            this.validUntil = validUntil;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package gs.mclo.api.cache;
+
+import gs.mclo.api.response.UploadLogResponse;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Remembers uploaded logs, so uploading the same log again returns the previous upload instead of sending it again.
+ * <p>
+ * Keys are hashes of the instance, the filtered content, the source and the metadata of a log. Entries must not be
+ * returned after the {@link UploadLogResponse#getExpires() expiration} of the log. Implementations must be thread safe.
+ *
+ * @see MemoryUploadCache
+ * @see FileUploadCache
+ */
+public interface UploadCache {
+    /**
+     * Get a previous upload
+     *
+     * @param key hash of the uploaded log
+     * @return the response of the previous upload or null if there is none or it has expired
+     */
+    @Nullable UploadLogResponse get(String key);
+
+    /**
+     * Remember an upload
+     *
+     * @param key      hash of the uploaded log
+     * @param response the response of the upload
+     */
+    void put(String key, UploadLogResponse response);
+
+    /**
+     * Forget all uploads of a log, e.g. because it was deleted
+     *
+     * @param logId the id of the log
+     */
+    void invalidate(String logId);
+}
@@ -0,0 +1,2 @@
+@org.jetbrains.annotations.NotNullByDefault
+package gs.mclo.api.cache;
@@ -0,0 +1,66 @@
+package gs.mclo.api.internal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Replaces files atomically, so readers (including other processes) never see a partially written file.
+ */
+public final class AtomicFiles {
+    private AtomicFiles() {
+    }
+
+    /**
+     * Write a string to a file by writing it to a temporary file in the same directory first and moving that file
+     * over the target. Missing parent directories are created. If the file system doesn't support atomic moves, the
+     * file is replaced with a regular move. The temporary file is deleted if anything fails.
+     *
+     * @param file    the file to replace
+     * @param content the new content, encoded as UTF-8
+     * @throws IOException if the file can't be written
+     */
+    public static void writeString(Path file, String content) throws IOException {
+        var temp = createTempFile(file);
+        try {
+            Files.writeString(temp, content, StandardCharsets.UTF_8);
+            move(temp, file);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Create an empty temporary file in the same directory as a file, so it can be {@link #move(Path, Path) moved} over
+     * that file afterward. Missing parent directories are created.
+     *
+     * @param file the file that will be replaced
+     * @return the path of the temporary file
+     * @throws IOException if the file can't be created
+     */
+    public static Path createTempFile(Path file) throws IOException {
+        var parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        return Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+    }
+
+    /**
+     * Move a file over another file, atomically if the file system supports it
+     *
+     * @param source the file to move
+     * @param target the file to replace
+     * @throws IOException if the file can't be moved
+     */
+    public static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package gs.mclo.api.internal;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A publisher that runs an asynchronous task for every input and publishes the results.
+ * <p>
+ * Tasks are only started if the subscriber has requested their result, and no more than a fixed number of tasks are
+ * running or waiting to be delivered at the same time. Results are either published in the order of the inputs or in
+ * the order the tasks complete. Every subscriber gets its own iterator of the inputs.
+ *
+ * @param <T> input type
+ * @param <R> result type
+ */
+public final class BoundedPublisher<T, R> implements Flow.Publisher<R> {
+    private final Iterable<? extends T> inputs;
+    private final Function<? super T, CompletableFuture<R>> task;
+    private final int maxInFlight;
+    private final boolean ordered;
+
+    /**
+     * @param inputs      the inputs
+     * @param task        the task that is started for every input. Its future must not complete exceptionally.
+     * @param maxInFlight maximum number of tasks that are running or waiting to be delivered
+     * @param ordered     whether results are published in the order of the inputs
+     */
+    public BoundedPublisher(Iterable<? extends T> inputs,
+                            Function<? super T, CompletableFuture<R>> task,
+                            int maxInFlight,
+                            boolean ordered) {
+        if (maxInFlight < 1)
+            throw new IllegalArgumentException("Maximum number of tasks in flight must be at least 1");
+
+        this.inputs = Objects.requireNonNull(inputs);
+        this.task = Objects.requireNonNull(task);
+        this.maxInFlight = maxInFlight;
+        this.ordered = ordered;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super R> subscriber) {
+        Objects.requireNonNull(subscriber);
+        new BoundedSubscription(subscriber).start();
+    }
+
+    private final class BoundedSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super R> subscriber;
+        /**
+         * Number of pending calls to {@link #drain()}. Only the call that increments this from zero drains, so all
+         * other fields are only accessed by one thread at a time.
+         */
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        /**
+         * Started tasks whose results have not been delivered yet, in the order they were started
+         */
+        private final ArrayDeque<CompletableFuture<R>> pending = new ArrayDeque<>();
+        private volatile long requested = 0;
+        private volatile long invalidRequest = 0;
+        private long delivered = 0;
+        private @Nullable Iterator<? extends T> iterator;
+        private boolean finished = false;
+
+        private BoundedSubscription(Flow.Subscriber<? super R> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        private void start() {
+            try {
+                iterator = inputs.iterator();
+            } catch (Throwable t) {
+                subscriber.onSubscribe(this);
+                fail(t);
+                return;
+            }
+            subscriber.onSubscribe(this);
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = n;
+            } else {
+                synchronized (this) {
+                    long total = requested + n;
+                    requested = total < 0 ? Long.MAX_VALUE : total;
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled.set(true);
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            do {
+                var iterator = this.iterator;
+                if (iterator != null && !finished && !cancelled.get()) {
+                    try {
+                        step(iterator);
+                    } catch (Throwable t) {
+                        fail(t);
+                    }
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        /**
+         * Deliver completed results and start new tasks as long as possible
+         *
+         * @param iterator iterator of the remaining inputs
+         */
+        private void step(Iterator<? extends T> iterator) {
+            if (invalidRequest != 0) {
+                fail(new IllegalArgumentException("Requested " + invalidRequest + " items"));
+                return;
+            }
+
+            while (!cancelled.get()) {
+                boolean progress = deliver();
+
+                if (pending.size() < maxInFlight && delivered + pending.size() < requested && iterator.hasNext()) {
+                    var future = task.apply(iterator.next());
+                    pending.add(future);
+                    future.whenComplete((result, error) -> drain());
+                    progress = true;
+                }
+
+                if (pending.isEmpty() && !iterator.hasNext()) {
+                    finished = true;
+                    subscriber.onComplete();
+                    return;
+                }
+
+                if (!progress) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Deliver all results that are ready
+         *
+         * @return whether a result was delivered
+         */
+        private boolean deliver() {
+            boolean deliveredAny = false;
+            var it = pending.iterator();
+            while (it.hasNext() && delivered < requested && !cancelled.get()) {
+                var future = it.next();
+                if (!future.isDone()) {
+                    if (ordered) {
+                        break;
+                    }
+                    continue;
+                }
+
+                it.remove();
+                delivered++;
+                deliveredAny = true;
+                subscriber.onNext(future.join());
+            }
+            return deliveredAny;
+        }
+
+        private void fail(Throwable t) {
+            finished = true;
+            cancelled.set(true);
+            subscriber.onError(t);
+        }
+    }
+}
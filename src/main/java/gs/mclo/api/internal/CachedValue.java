@@ -0,0 +1,311 @@
+package gs.mclo.api.internal;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches a value that is fetched from the API, e.g. the filters or limits of an instance.
+ * <p>
+ * Concurrent requests for a value that is not cached share a single fetch. Values are fresh for the TTL. After that,
+ * they are returned for the stale-while-revalidate duration while a single background fetch refreshes them. Refreshes
+ * send the ETag of the cached value, so the instance can respond with {@code 304 Not Modified} if it didn't change.
+ * Failed background refreshes keep the stale value.
+ *
+ * @param <T> the type of the value
+ */
+public final class CachedValue<T> {
+    private final Function<@Nullable String, CompletableFuture<Response<T>>> fetcher;
+    private final LongSupplier nanoTime;
+    private volatile Duration ttl = Duration.ofMinutes(10);
+    private volatile Duration staleWhileRevalidate = Duration.ofHours(1);
+
+    private volatile @Nullable Consumer<Response<T>> listener = null;
+
+    private volatile @Nullable Entry<T> entry = null;
+    /**
+     * The fetch that is currently running. Guarded by this.
+     */
+    private @Nullable CompletableFuture<T> pending = null;
+    /**
+     * Incremented when the value is invalidated, so fetches that were started before are not cached. Guarded by this.
+     */
+    private int generation = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * Create a new cached value
+     *
+     * @param fetcher fetches the value. Called with the ETag of the cached value or null.
+     */
+    public CachedValue(Function<@Nullable String, CompletableFuture<Response<T>>> fetcher) {
+        this(fetcher, System::nanoTime);
+    }
+
+    CachedValue(Function<@Nullable String, CompletableFuture<Response<T>>> fetcher, LongSupplier nanoTime) {
+        this.fetcher = fetcher;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Set how long a value is fresh
+     *
+     * @param ttl the time to live
+     */
+    public void setTtl(Duration ttl) {
+        if (ttl.isNegative())
+            throw new IllegalArgumentException("TTL must not be negative");
+        this.ttl = ttl;
+    }
+
+    /**
+     * Set how long a value is returned after it expired while it's refreshed in the background
+     *
+     * @param staleWhileRevalidate the duration after the TTL
+     */
+    public void setStaleWhileRevalidate(Duration staleWhileRevalidate) {
+        if (staleWhileRevalidate.isNegative())
+            throw new IllegalArgumentException("Stale-while-revalidate duration must not be negative");
+        this.staleWhileRevalidate = staleWhileRevalidate;
+    }
+
+    /**
+     * Set a listener that is called with every value that was fetched or that the instance confirmed as not modified,
+     * e.g. to persist it
+     *
+     * @param listener the listener or null
+     */
+    public void setListener(@Nullable Consumer<Response<T>> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Get the value
+     *
+     * @return the cached value or a future that completes when the value has been fetched
+     */
+    public CompletableFuture<T> get() {
+        var entry = this.entry;
+        if (entry != null) {
+            long age = nanoTime.getAsLong() - entry.fetchedAt;
+            long ttl = this.ttl.toNanos();
+            if (age < ttl) {
+                hits.incrementAndGet();
+                return CompletableFuture.completedFuture(entry.value);
+            }
+
+            if (age - ttl < staleWhileRevalidate.toNanos()) {
+                staleHits.incrementAndGet();
+                fetch(entry);
+                return CompletableFuture.completedFuture(entry.value);
+            }
+        }
+
+        misses.incrementAndGet();
+        return fetch(entry);
+    }
+
+    /**
+     * Cache a value that was fetched earlier, e.g. by a previous process. The value is treated as stale even if it's
+     * younger than the TTL, so it's returned immediately while it's refreshed. Ignored if a value is already cached or
+     * if the value is older than the TTL and the stale-while-revalidate duration together.
+     *
+     * @param response the previously fetched value and its ETag
+     * @param age      the time since the value was fetched
+     */
+    public synchronized void putStale(Response<T> response, Duration age) {
+        var value = response.value;
+        var ttl = this.ttl;
+        if (entry != null || value == null || age.compareTo(ttl.plus(staleWhileRevalidate)) >= 0) {
+            return;
+        }
+        entry = new Entry<>(value, response.etag, nanoTime.getAsLong() - Math.max(age.toNanos(), ttl.toNanos()));
+    }
+
+    /**
+     * Remove the cached value, e.g. because the instance changed
+     */
+    public synchronized void invalidate() {
+        generation++;
+        entry = null;
+        pending = null;
+    }
+
+    private synchronized CompletableFuture<T> fetch(@Nullable Entry<T> previous) {
+        var pending = this.pending;
+        if (pending != null) {
+            return pending;
+        }
+
+        int generation = this.generation;
+        var etag = previous == null ? null : previous.etag;
+        requests.incrementAndGet();
+        CompletableFuture<Response<T>> request;
+        try {
+            request = fetcher.apply(etag);
+        } catch (RuntimeException e) {
+            request = CompletableFuture.failedFuture(e);
+        }
+
+        var future = request.thenApply(response -> {
+            if (response.value == null) {
+                if (previous == null)
+                    throw new IllegalStateException("Value was not modified, but is not cached");
+                notModified.incrementAndGet();
+                // The listener is notified with the confirmed value, so persisted values are refreshed as well
+                response = Response.of(previous.value, previous.etag);
+            }
+            var value = Objects.requireNonNull(response.value);
+            if (store(generation, new Entry<>(value, response.etag, nanoTime.getAsLong()))) {
+                var listener = this.listener;
+                if (listener != null) {
+                    listener.accept(response);
+                }
+            }
+            return value;
+        });
+        this.pending = future;
+        future.whenComplete((value, error) -> {
+            if (error != null) {
+                failures.incrementAndGet();
+            }
+            clearPending(future);
+        });
+        return future;
+    }
+
+    private synchronized boolean store(int generation, Entry<T> entry) {
+        if (this.generation != generation) {
+            return false;
+        }
+        this.entry = entry;
+        return true;
+    }
+
+    private synchronized void clearPending(CompletableFuture<T> future) {
+        if (pending == future) {
+            pending = null;
+        }
+    }
+
+    /**
+     * @return the number of requests that returned a fresh value
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of requests that returned a stale value while it was refreshed
+     */
+    public long getStaleHits() {
+        return staleHits.get();
+    }
+
+    /**
+     * @return the number of requests that had to wait for the value to be fetched
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of times the value was fetched
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return the number of fetches that returned that the value was not modified
+     */
+    public long getNotModified() {
+        return notModified.get();
+    }
+
+    /**
+     * @return the number of fetches that failed
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * A fetched value
+     *
+     * @param <T> the type of the value
+     */
+    public static final class Response<T> {
+        private final @Nullable T value;
+        private final @Nullable String etag;
+
+        private Response(@Nullable T value, @Nullable String etag) {
+            this.value = value;
+            this.etag = etag;
+        }
+
+        /**
+         * @return the fetched value or null if it was not modified
+         */
+        public @Nullable T getValue() {
+            return value;
+        }
+
+        /**
+         * @return the ETag of the value or null if the instance didn't send one
+         */
+        public @Nullable String getEtag() {
+            return etag;
+        }
+
+        /**
+         * @param value the fetched value
+         * @param etag  the ETag of the value or null if the instance didn't send one
+         * @return a response with a new value
+         */
+        public static <T> Response<T> of(T value, @Nullable String etag) {
+            return new Response<>(Objects.requireNonNull(value), etag);
+        }
+
+        /**
+         * @return a response for a value that was not modified since it was cached
+         */
+        public static <T> Response<T> notModified() {
+            return new Response<>(null, null);
+        }
+
+        /**
+         * Convert the value of this response
+         *
+         * @param mapper function to convert the value
+         * @return a response with the converted value and the same ETag
+         */
+        public <R> Response<R> map(Function<T, R> mapper) {
+            return new Response<>(value == null ? null : mapper.apply(value), etag);
+        }
+    }
+
+    private static final class Entry<T> {
+        private final T value;
+        private final @Nullable String etag;
+        private final long fetchedAt;
+
+        private Entry(T value, @Nullable String etag, long fetchedAt) {
+            this.value = value;
+            this.etag = etag;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
@@ -1,18 +1,209 @@
 package gs.mclo.api.internal;
 
+import org.jetbrains.annotations.Nullable;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.io.*;
 import java.net.http.HttpRequest;
 import java.nio.charset.StandardCharsets;
-import java.util.zip.GZIPOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
 
 public class CustomBodyPublishers {
-    public static HttpRequest.BodyPublisher ofGzipString(String body) throws IOException {
-        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-        try (GZIPOutputStream gzipStream = new GZIPOutputStream(byteStream)) {
-            gzipStream.write(body.getBytes(StandardCharsets.UTF_8));
+    private static final int BUFFER_SIZE = 8192;
+    /**
+     * Size of the chunks compressed bodies are collected in
+     */
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Create a body publisher for a body that is compressed at the given level.
+     * The compressed body is collected in fixed size chunks instead of a single growing array.
+     *
+     * @param body  the body
+     * @param level the compression level or {@link Deflater#NO_COMPRESSION} to send the body uncompressed
+     * @return the body publisher
+     * @throws IOException if compressing the body fails
+     */
+    public static HttpRequest.BodyPublisher ofBytes(byte[] body, int level) throws IOException {
+        return ofBytes(body, level, null);
+    }
+
+    /**
+     * Create a body publisher for a body that is compressed at the given level.
+     * Bodies larger than a single {@link ParallelGzip#BLOCK_SIZE block} are compressed in parallel if an executor is
+     * given and there is more than one processor.
+     *
+     * @param body     the body
+     * @param level    the compression level or {@link Deflater#NO_COMPRESSION} to send the body uncompressed
+     * @param executor the executor to compress blocks of the body on or null to compress it on the calling thread
+     * @return the body publisher
+     * @throws IOException if compressing the body fails
+     */
+    public static HttpRequest.BodyPublisher ofBytes(byte[] body, int level, @Nullable Executor executor) throws IOException {
+        if (level == Deflater.NO_COMPRESSION) {
+            return HttpRequest.BodyPublishers.ofByteArray(body);
+        }
+
+        var chunks = new ChunkSink();
+        // Splitting the body into blocks only pays off if they can be compressed at the same time
+        if (executor != null && body.length > ParallelGzip.BLOCK_SIZE && Runtime.getRuntime().availableProcessors() > 1) {
+            ParallelGzip.compress(body, level, executor, chunks);
+            chunks.close();
+        } else {
+            try (var gzip = new PooledGzipOutputStream(chunks, level)) {
+                gzip.write(body);
+            }
+        }
+        return HttpRequest.BodyPublishers.fromPublisher(
+                HttpRequest.BodyPublishers.ofByteArrays(chunks.chunks), chunks.size);
+    }
+
+    /**
+     * Create a body publisher that writes and compresses the output of a chunk writer on demand.
+     * Chunks are only written and compressed when the HTTP client requests more data, so only a small buffer is
+     * held in memory regardless of the total body size.
+     *
+     * @param writers supplier for a new chunk writer. Called once for every subscription to the publisher.
+     * @param level   the compression level or {@link Deflater#NO_COMPRESSION} to send the body uncompressed
+     * @return the body publisher
+     */
+    public static HttpRequest.BodyPublisher ofStream(Supplier<ChunkWriter> writers, int level) {
+        return HttpRequest.BodyPublishers.ofInputStream(() -> new ChunkInputStream(writers.get(), level));
+    }
+
+    /**
+     * Writes a body in multiple chunks
+     */
+    public interface ChunkWriter extends Closeable {
+        /**
+         * Write the next chunk of the body
+         *
+         * @param out the writer to write the chunk to
+         * @return false if the body is complete
+         * @throws IOException if an I/O error occurs
+         */
+        boolean writeNext(Writer out) throws IOException;
+    }
+
+    /**
+     * An input stream that pulls chunks from a {@link ChunkWriter} and returns them, gzip compressed unless the level
+     * is {@link Deflater#NO_COMPRESSION}.
+     */
+    private static final class ChunkInputStream extends InputStream {
+        private final ChunkWriter chunks;
+        private final Sink sink = new Sink();
+        private final Writer writer;
+        private boolean finished = false;
+        private int position = 0;
+
+        private ChunkInputStream(ChunkWriter chunks, int level) {
+            this.chunks = chunks;
+            try {
+                OutputStream out = level == Deflater.NO_COMPRESSION ? sink : new PooledGzipOutputStream(sink, level);
+                this.writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                // Writing the header to the in memory sink can not fail
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            int read = read(b, 0, 1);
+            return read == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            while (position == sink.size()) {
+                sink.reset();
+                position = 0;
+                if (finished) {
+                    return -1;
+                }
+
+                if (!chunks.writeNext(writer)) {
+                    finished = true;
+                    writer.close();
+                    chunks.close();
+                }
+            }
+
+            int count = Math.min(len, sink.size() - position);
+            System.arraycopy(sink.buffer(), position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                finished = true;
+                try {
+                    chunks.close();
+                } finally {
+                    // Return the deflater to the pool
+                    writer.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * A byte array output stream that exposes its buffer to avoid copying it.
+     */
+    private static final class Sink extends ByteArrayOutputStream {
+        private Sink() {
+            super(BUFFER_SIZE);
+        }
+
+        private byte[] buffer() {
+            return buf;
+        }
+    }
+
+    /**
+     * An output stream that collects its output in chunks of a fixed size
+     */
+    private static final class ChunkSink extends OutputStream {
+        private final List<byte[]> chunks = new ArrayList<>();
+        private byte @Nullable [] current = null;
+        private int position = 0;
+        private long size = 0;
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            while (len > 0) {
+                if (current == null || position == current.length) {
+                    current = new byte[CHUNK_SIZE];
+                    chunks.add(current);
+                    position = 0;
+                }
+
+                int count = Math.min(len, current.length - position);
+                System.arraycopy(b, off, current, position, count);
+                position += count;
+                off += count;
+                len -= count;
+                size += count;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (current != null && position < current.length) {
+                chunks.set(chunks.size() - 1, Arrays.copyOf(current, position));
+            }
         }
-        return HttpRequest.BodyPublishers.ofByteArray(byteStream.toByteArray());
     }
 }
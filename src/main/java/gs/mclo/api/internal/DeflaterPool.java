@@ -0,0 +1,91 @@
+package gs.mclo.api.internal;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+/**
+ * A pool of raw deflaters (without zlib headers) that are reused for compressing uploads.
+ * <p>
+ * Each deflater holds a few hundred KiB of native memory that is only freed when it is ended or garbage collected.
+ * Reusing them avoids allocating that memory for every upload. The pool is bounded, so deflaters that are released
+ * while it is full are ended immediately.
+ * <p>
+ * Deflaters are only reused for the same compression level. Changing the level of a deflater leaves a pending parameter
+ * change that alters its next deflate call, so deflaters are kept in a separate queue per level instead.
+ */
+public final class DeflaterPool {
+    private static final DeflaterPool SHARED = new DeflaterPool(Runtime.getRuntime().availableProcessors());
+
+    private final int maxSize;
+    private final ConcurrentHashMap<Integer, ConcurrentLinkedDeque<Deflater>> deflaters = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Create a new deflater pool
+     *
+     * @param maxSize the maximum number of idle deflaters to keep
+     */
+    public DeflaterPool(int maxSize) {
+        if (maxSize < 0)
+            throw new IllegalArgumentException("Maximum size must not be negative");
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return the pool shared by all clients
+     */
+    public static DeflaterPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Take a deflater from the pool or create a new one
+     *
+     * @param level the compression level
+     * @return a deflater that must be {@link #release(Deflater, int) released} after use
+     */
+    public Deflater acquire(int level) {
+        var idle = deflaters.get(level);
+        Deflater deflater = idle == null ? null : idle.pollFirst();
+        if (deflater == null) {
+            return new Deflater(level, true);
+        }
+
+        size.decrementAndGet();
+        return deflater;
+    }
+
+    /**
+     * Return a deflater to the pool. The deflater must not be used afterward.
+     *
+     * @param deflater the deflater
+     * @param level    the compression level the deflater was acquired with
+     */
+    public void release(Deflater deflater, int level) {
+        deflater.reset();
+        if (size.incrementAndGet() > maxSize) {
+            size.decrementAndGet();
+            deflater.end();
+            return;
+        }
+        deflaters.computeIfAbsent(level, key -> new ConcurrentLinkedDeque<>()).offerFirst(deflater);
+    }
+
+    /**
+     * End a deflater that failed instead of returning it to the pool
+     *
+     * @param deflater the deflater
+     */
+    public void discard(Deflater deflater) {
+        deflater.end();
+    }
+
+    /**
+     * @return the number of idle deflaters in the pool
+     */
+    public int size() {
+        return size.get();
+    }
+}
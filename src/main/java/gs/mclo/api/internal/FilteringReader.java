@@ -0,0 +1,181 @@
+package gs.mclo.api.internal;
+
+import gs.mclo.api.internal.filter.FilterList;
+import gs.mclo.api.internal.filter.FilterPlan;
+import gs.mclo.api.internal.filter.LineConsumer;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * A reader that applies the filters of a {@link FilterList} line by line.
+ * <p>
+ * The lines of the underlying reader are passed through the {@link FilterList#pipeline(LineConsumer) filter pipeline}
+ * as they are read, so only a few lines of the log are held in memory at a time. Matches of regex filters can
+ * therefore not span multiple lines. Once a limit is reached, no more content is read from the underlying reader.
+ */
+public final class FilteringReader extends Reader {
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The underlying reader
+     */
+    @Nullable
+    private Reader in;
+    /**
+     * The filter pipeline
+     */
+    private final LineConsumer pipeline;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    /**
+     * The line that is currently being read
+     */
+    private final StringBuilder line = new StringBuilder();
+    /**
+     * Filtered output that has not been read yet
+     */
+    private final StringBuilder output = new StringBuilder();
+    private int outputPosition = 0;
+    /**
+     * Whether the first line has been written to the output
+     */
+    private boolean started = false;
+    /**
+     * Whether the pipeline has ended
+     */
+    private boolean ended = false;
+
+    /**
+     * Create a new filtering reader
+     *
+     * @param in      the underlying reader
+     * @param filters the filters to apply
+     */
+    public FilteringReader(Reader in, FilterList filters) {
+        this(in, filters, null);
+    }
+
+    /**
+     * Create a new filtering reader
+     *
+     * @param in       the underlying reader
+     * @param filters  the filters to apply
+     * @param executor if not null, regex filters are applied to chunks of lines in parallel on this executor
+     */
+    public FilteringReader(Reader in, FilterList filters, @Nullable Executor executor) {
+        this(in, sink -> filters.pipeline(sink, executor));
+    }
+
+    /**
+     * Create a new filtering reader that only applies the stages of a plan
+     *
+     * @param in       the underlying reader. Must already be limited with the limits of the plan.
+     * @param plan     the plan to apply
+     * @param executor if not null, regex filters are applied to chunks of lines in parallel on this executor
+     */
+    public FilteringReader(Reader in, FilterPlan plan, @Nullable Executor executor) {
+        this(in, sink -> plan.pipeline(sink, executor));
+    }
+
+    private FilteringReader(Reader in, Function<LineConsumer, LineConsumer> pipeline) {
+        this.in = Objects.requireNonNull(in);
+        this.pipeline = pipeline.apply(new LineConsumer() {
+            @Override
+            public boolean accept(String line) {
+                if (started) {
+                    output.append('\n');
+                }
+                started = true;
+                output.append(line);
+                return true;
+            }
+
+            @Override
+            public void end() {
+            }
+        });
+    }
+
+    @Override
+    public int read(char[] chars, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, chars.length);
+        if (this.in == null) {
+            throw new IOException("Stream closed");
+        }
+
+        if (length == 0) {
+            return 0;
+        }
+
+        while (outputPosition == output.length()) {
+            output.setLength(0);
+            outputPosition = 0;
+            if (ended) {
+                return -1;
+            }
+            try {
+                fill(this.in);
+            } catch (UncheckedIOException e) {
+                // Filtering a chunk of lines in parallel failed
+                throw e.getCause();
+            }
+        }
+
+        int count = Math.min(length, output.length() - outputPosition);
+        output.getChars(outputPosition, outputPosition + count, chars, offset);
+        outputPosition += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.in != null) {
+            try {
+                this.in.close();
+            } finally {
+                this.in = null;
+            }
+        }
+    }
+
+    /**
+     * Pass the next chunk of lines from the underlying reader through the pipeline.
+     *
+     * @param in the underlying reader
+     * @throws IOException if an I/O error occurs
+     */
+    private void fill(Reader in) throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if (read == -1) {
+            pipeline.accept(line.toString());
+            end();
+            return;
+        }
+
+        int start = 0;
+        for (int i = 0; i < read; i++) {
+            if (buffer[i] == '\n') {
+                line.append(buffer, start, i - start);
+                boolean more = pipeline.accept(line.toString());
+                line.setLength(0);
+                start = i + 1;
+                if (!more) {
+                    end();
+                    return;
+                }
+            }
+        }
+        line.append(buffer, start, read - start);
+    }
+
+    private void end() {
+        ended = true;
+        line.setLength(0);
+        pipeline.end();
+    }
+}
@@ -0,0 +1,515 @@
+package gs.mclo.api.internal;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decompresses gzip files, including files that consist of multiple concatenated gzip members (e.g. rotated logs that
+ * were appended to each other).
+ * <p>
+ * Compressed data is read from a {@link FileChannel} into a large direct buffer and inflated straight into the
+ * caller's buffer, so nothing is decompressed before it is read. Reading can stop at any point, e.g. once the limits
+ * of a log are reached.
+ * <p>
+ * If an executor is given, the members following the current one are inflated in parallel. The start of a member is
+ * only known once the previous member has been inflated, so members are found by searching the compressed data for
+ * gzip headers. The search runs on the executor as well, so the reading thread starts inflating the current member
+ * immediately. Members are only used if they start exactly where the previous member ended and pass the CRC check,
+ * so false matches inside compressed data are discarded. Each prefetched member is held in memory, members that
+ * decompress to more than {@value #MAX_PREFETCHED_SIZE} bytes are inflated on the reading thread instead.
+ */
+public final class GzipFileInputStream extends InputStream {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * The maximum number of decompressed bytes of a member that is inflated in parallel
+     */
+    private static final int MAX_PREFETCHED_SIZE = 16 * 1024 * 1024;
+    /**
+     * How far ahead of the current member the compressed data is searched for other members
+     */
+    private static final int SEARCH_DISTANCE = 8 * 1024 * 1024;
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private final FileChannel channel;
+    private final @Nullable Executor executor;
+    private final int maxPrefetched;
+    private final Input input;
+    private final Member member = new Member();
+    /**
+     * Members that are being inflated in parallel by their start position
+     */
+    private final ConcurrentSkipListMap<Long, CompletableFuture<@Nullable Prefetched>> prefetched = new ConcurrentSkipListMap<>();
+    /**
+     * Searches for members. Each search runs after the previous one, so only one thread accesses {@link #searched}.
+     */
+    private CompletableFuture<?> search = CompletableFuture.completedFuture(null);
+    /**
+     * Position up to which the compressed data has been searched for members
+     */
+    private long searched = 0;
+    /**
+     * Start of the member that is currently read. Members before it are not inflated anymore.
+     */
+    private volatile long current = 0;
+
+    /**
+     * Whether a member is currently read from the input
+     */
+    private boolean inflating = false;
+    private byte @Nullable [] data = null;
+    private int dataPosition = 0;
+    private long dataEnd = 0;
+    private boolean ended = false;
+    private volatile boolean closed = false;
+
+    private GzipFileInputStream(FileChannel channel, @Nullable Executor executor) throws IOException {
+        this.channel = channel;
+        this.executor = executor;
+        this.maxPrefetched = Math.max(1, Runtime.getRuntime().availableProcessors());
+        this.input = new Input(channel, 0);
+        if (!input.startsWithMagic()) {
+            throw new ZipException("Not in GZIP format");
+        }
+        member.start(input);
+        inflating = true;
+        prefetch(0);
+    }
+
+    /**
+     * Open a gzip file
+     *
+     * @param path     the file
+     * @param executor if not null, members after the current one are inflated in parallel on this executor
+     * @return the stream
+     * @throws IOException if the file can't be opened or is not in gzip format
+     */
+    public static GzipFileInputStream open(Path path, @Nullable Executor executor) throws IOException {
+        var channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new GzipFileInputStream(channel, executor);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+
+        if (len == 0) {
+            return 0;
+        }
+
+        while (!ended) {
+            if (data != null) {
+                if (dataPosition < data.length) {
+                    int count = Math.min(len, data.length - dataPosition);
+                    System.arraycopy(data, dataPosition, b, off, count);
+                    dataPosition += count;
+                    return count;
+                }
+                data = null;
+                nextMember(dataEnd);
+            } else if (inflating) {
+                int count = member.read(input, b, off, len);
+                if (count != -1) {
+                    return count;
+                }
+                inflating = false;
+                nextMember(input.position());
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        for (var future : prefetched.values()) {
+            future.cancel(false);
+        }
+        prefetched.clear();
+        member.inflater.end();
+        channel.close();
+    }
+
+    /**
+     * Continue with the member at the given position
+     *
+     * @param position the position after the previous member
+     * @throws IOException if an I/O error occurs
+     */
+    private void nextMember(long position) throws IOException {
+        if (executor != null) {
+            current = position;
+            // Members before the position were false matches
+            var skipped = prefetched.headMap(position);
+            for (var future : skipped.values()) {
+                future.cancel(false);
+            }
+            skipped.clear();
+
+            var future = prefetched.remove(position);
+            var result = future != null ? future.join() : null;
+            if (result != null) {
+                data = result.data;
+                dataPosition = 0;
+                dataEnd = result.end;
+                prefetch(position);
+                return;
+            }
+        }
+
+        if (input.position() != position) {
+            input.seek(position);
+        }
+        if (!input.startsWithMagic()) {
+            // End of the file or trailing garbage
+            ended = true;
+            return;
+        }
+
+        try {
+            member.start(input);
+        } catch (ZipException e) {
+            ended = true;
+            return;
+        }
+        inflating = true;
+        prefetch(position);
+    }
+
+    /**
+     * Search for members after the given position on the executor and inflate them in parallel
+     *
+     * @param position start of the current member
+     */
+    private void prefetch(long position) {
+        var executor = this.executor;
+        if (executor == null) {
+            return;
+        }
+
+        current = position;
+        search = search.handleAsync((result, error) -> {
+            search(position, executor);
+            return null;
+        }, executor);
+    }
+
+    /**
+     * Search the compressed data after the given position for members
+     *
+     * @param position start of the member that was current when the search was started
+     * @param executor the executor to inflate members on
+     */
+    private void search(long position, Executor executor) {
+        try {
+            searched = Math.max(searched, position + 1);
+            long end = Math.min(channel.size(), position + SEARCH_DISTANCE);
+            var buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (!closed && prefetched.size() < maxPrefetched && searched < end) {
+                buffer.clear();
+                if (channel.read(buffer, searched) <= 0) {
+                    break;
+                }
+                buffer.flip();
+
+                // Headers are at least 10 bytes, so the last bytes are searched again with the next block
+                int limit = buffer.limit() < BUFFER_SIZE ? buffer.limit() : buffer.limit() - 9;
+                int i = 0;
+                for (; i < limit && prefetched.size() < maxPrefetched; i++) {
+                    long start = searched + i;
+                    // The reading thread may have moved past the position in the meantime
+                    if (start > current && isHeader(buffer, i)) {
+                        prefetched.computeIfAbsent(start, key -> CompletableFuture.supplyAsync(() -> inflate(start), executor));
+                    }
+                }
+                searched += i;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Closed or rejected, the remaining members are inflated by the reading thread
+        }
+    }
+
+    /**
+     * Check whether a gzip header could start at the given index of the buffer
+     */
+    private static boolean isHeader(ByteBuffer buffer, int index) {
+        if (buffer.limit() - index < 10) {
+            return false;
+        }
+
+        return buffer.get(index) == 0x1f
+                && buffer.get(index + 1) == (byte) 0x8b
+                && buffer.get(index + 2) == 8
+                // Reserved flags
+                && (buffer.get(index + 3) & 0xe0) == 0;
+    }
+
+    /**
+     * Inflate the member that might start at the given position
+     *
+     * @param start possible start of a member
+     * @return the member or null if there's no valid member at the position or it is too large
+     */
+    private @Nullable Prefetched inflate(long start) {
+        var member = new Member();
+        try {
+            var input = new Input(channel, start);
+            member.start(input);
+
+            List<byte[]> chunks = new ArrayList<>();
+            int size = 0;
+            while (true) {
+                byte[] chunk = new byte[BUFFER_SIZE];
+                int length = 0;
+                int read;
+                while (length < chunk.length && (read = member.read(input, chunk, length, chunk.length - length)) != -1) {
+                    length += read;
+                }
+
+                size += length;
+                if (size > MAX_PREFETCHED_SIZE || closed) {
+                    return null;
+                }
+                chunks.add(length == chunk.length ? chunk : Arrays.copyOf(chunk, length));
+                if (length < chunk.length) {
+                    break;
+                }
+            }
+
+            byte[] data = new byte[size];
+            int position = 0;
+            for (byte[] chunk : chunks) {
+                System.arraycopy(chunk, 0, data, position, chunk.length);
+                position += chunk.length;
+            }
+            return new Prefetched(data, input.position());
+        } catch (IOException | RuntimeException e) {
+            return null;
+        } finally {
+            member.inflater.end();
+        }
+    }
+
+    /**
+     * Buffered compressed data of a channel
+     */
+    private static final class Input {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        /**
+         * Position of the channel after the buffered data
+         */
+        private long next;
+
+        private Input(FileChannel channel, long position) {
+            this.channel = channel;
+            seek(position);
+        }
+
+        private long position() {
+            return next - buffer.remaining();
+        }
+
+        private void seek(long position) {
+            buffer.clear().limit(0);
+            next = position;
+        }
+
+        /**
+         * Read more data from the channel
+         *
+         * @return false at the end of the file
+         */
+        private boolean fill() throws IOException {
+            buffer.compact();
+            int read = channel.read(buffer, next);
+            buffer.flip();
+            if (read <= 0) {
+                return false;
+            }
+            next += read;
+            return true;
+        }
+
+        private int readUnsignedByte() throws IOException {
+            if (!buffer.hasRemaining() && !fill()) {
+                throw new EOFException("Unexpected end of GZIP input stream");
+            }
+            return buffer.get() & 0xff;
+        }
+
+        private long readUnsignedInt() throws IOException {
+            return readUnsignedByte()
+                    | (readUnsignedByte() << 8)
+                    | (readUnsignedByte() << 16)
+                    | ((long) readUnsignedByte() << 24);
+        }
+
+        private void skip(int bytes) throws IOException {
+            for (int i = 0; i < bytes; i++) {
+                readUnsignedByte();
+            }
+        }
+
+        /**
+         * Skip a zero terminated string
+         */
+        private void skipString() throws IOException {
+            int b;
+            do {
+                b = readUnsignedByte();
+            } while (b != 0);
+        }
+
+        private boolean startsWithMagic() throws IOException {
+            while (buffer.remaining() < 2) {
+                if (!fill()) {
+                    return false;
+                }
+            }
+            return buffer.get(buffer.position()) == 0x1f && buffer.get(buffer.position() + 1) == (byte) 0x8b;
+        }
+    }
+
+    /**
+     * Inflates a single gzip member
+     */
+    private static final class Member {
+        private final Inflater inflater = new Inflater(true);
+        private final CRC32 crc = new CRC32();
+        private long size;
+
+        /**
+         * Read the header of a member and prepare to inflate it
+         *
+         * @param input input positioned at the start of the member
+         */
+        private void start(Input input) throws IOException {
+            if (input.readUnsignedByte() != 0x1f || input.readUnsignedByte() != 0x8b) {
+                throw new ZipException("Not in GZIP format");
+            }
+            if (input.readUnsignedByte() != 8) {
+                throw new ZipException("Unsupported compression method");
+            }
+
+            int flags = input.readUnsignedByte();
+            // Modification time, extra flags and operating system
+            input.skip(6);
+            if ((flags & FEXTRA) != 0) {
+                input.skip(input.readUnsignedByte() | (input.readUnsignedByte() << 8));
+            }
+            if ((flags & FNAME) != 0) {
+                input.skipString();
+            }
+            if ((flags & FCOMMENT) != 0) {
+                input.skipString();
+            }
+            if ((flags & FHCRC) != 0) {
+                input.skip(2);
+            }
+
+            inflater.reset();
+            crc.reset();
+            size = 0;
+        }
+
+        /**
+         * Inflate the member into a buffer
+         *
+         * @return the number of bytes or -1 if the end of the member has been reached and its trailer has been checked
+         */
+        private int read(Input input, byte[] b, int off, int len) throws IOException {
+            while (true) {
+                if (inflater.finished()) {
+                    readTrailer(input);
+                    return -1;
+                }
+
+                if (inflater.needsInput()) {
+                    if (!input.buffer.hasRemaining() && !input.fill()) {
+                        throw new EOFException("Unexpected end of ZLIB input stream");
+                    }
+                    inflater.setInput(input.buffer);
+                }
+
+                int count;
+                try {
+                    count = inflater.inflate(b, off, len);
+                } catch (DataFormatException e) {
+                    throw new ZipException(e.getMessage() != null ? e.getMessage() : "Invalid ZLIB data format");
+                }
+
+                if (count > 0) {
+                    crc.update(b, off, count);
+                    size += count;
+                    return count;
+                }
+
+                if (inflater.needsDictionary()) {
+                    throw new ZipException("Unexpected ZLIB dictionary");
+                }
+            }
+        }
+
+        private void readTrailer(Input input) throws IOException {
+            if (input.readUnsignedInt() != crc.getValue() || input.readUnsignedInt() != (size & 0xffffffffL)) {
+                throw new ZipException("Corrupt GZIP trailer");
+            }
+        }
+    }
+
+    /**
+     * A member that has been inflated in parallel
+     */
+    private static final class Prefetched {
+        private final byte[] data;
+        /**
+         * Position after the member
+         */
+        private final long end;
+
+        private Prefetched(byte[] data, long end) {
+            this.data = data;
+            this.end = end;
+        }
+    }
+}
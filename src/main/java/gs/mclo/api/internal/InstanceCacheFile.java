@@ -0,0 +1,165 @@
+package gs.mclo.api.internal;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Stores the last known filters and limits of instances in a JSON file, so a new process can use them immediately
+ * instead of waiting for them to be fetched.
+ * <p>
+ * Values are stored per {@link gs.mclo.api.Instance#getApiBaseUrl() API base URL} together with their ETag, so the
+ * first refresh can be a conditional request. Values are serialized with the gson instance of the client, so filters
+ * use the same format as the API. If the file can't be read or written, it is ignored.
+ */
+public final class InstanceCacheFile {
+    private static final int VERSION = 1;
+
+    private final Path file;
+    private final Gson gson;
+
+    public InstanceCacheFile(Path file, Gson gson) {
+        this.file = file;
+        this.gson = gson;
+    }
+
+    /**
+     * @return the path of the file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Read a value
+     *
+     * @param apiBaseUrl the API base URL of the instance
+     * @param name       name of the value, e.g. {@code filters}
+     * @param type       type of the value
+     * @return the stored value, its ETag and when it was stored or null if it's not stored
+     */
+    public synchronized <T> @Nullable Snapshot<T> read(String apiBaseUrl, String name, Type type) {
+        var instance = readFile().getAsJsonObject("instances").get(apiBaseUrl);
+        if (instance == null || !instance.isJsonObject()) {
+            return null;
+        }
+
+        var entry = instance.getAsJsonObject().get(name);
+        if (entry == null || !entry.isJsonObject()) {
+            return null;
+        }
+
+        try {
+            var json = entry.getAsJsonObject();
+            T value = gson.fromJson(json.get("value"), type);
+            if (value == null) {
+                return null;
+            }
+            var etag = json.get("etag");
+            var updated = Instant.ofEpochSecond(json.get("updated").getAsLong());
+            return new Snapshot<>(CachedValue.Response.of(value, etag == null || etag.isJsonNull() ? null : etag.getAsString()),
+                    updated);
+        } catch (RuntimeException e) {
+            // The value was stored by an incompatible version or is corrupted
+            return null;
+        }
+    }
+
+    /**
+     * Store a value
+     *
+     * @param apiBaseUrl the API base URL of the instance
+     * @param name       name of the value, e.g. {@code filters}
+     * @param type       type of the value
+     * @param response   the value and its ETag
+     */
+    public synchronized void write(String apiBaseUrl, String name, Type type, CachedValue.Response<?> response) {
+        var json = readFile();
+        var instances = json.getAsJsonObject("instances");
+        var instance = instances.get(apiBaseUrl);
+        if (instance == null || !instance.isJsonObject()) {
+            instance = new JsonObject();
+            instances.add(apiBaseUrl, instance);
+        }
+
+        var entry = new JsonObject();
+        entry.add("value", gson.toJsonTree(response.getValue(), type));
+        entry.addProperty("etag", response.getEtag());
+        entry.addProperty("updated", Instant.now().getEpochSecond());
+        instance.getAsJsonObject().add(name, entry);
+
+        try {
+            // Other processes may read the file at any time, so it's replaced instead of being overwritten
+            AtomicFiles.writeString(file, gson.toJson(json));
+        } catch (IOException e) {
+            // The values are fetched again by the next process
+        }
+    }
+
+    /**
+     * Read the file. Other processes may have changed it since it was last read.
+     *
+     * @return the content of the file or an empty cache if it doesn't exist or can't be read
+     */
+    private JsonObject readFile() {
+        try {
+            JsonElement json = JsonParser.parseString(Files.readString(file, StandardCharsets.UTF_8));
+            if (json.isJsonObject()) {
+                var object = json.getAsJsonObject();
+                var version = object.get("version");
+                var instances = object.get("instances");
+                if (version != null && version.isJsonPrimitive() && version.getAsInt() == VERSION
+                        && instances != null && instances.isJsonObject()) {
+                    return object;
+                }
+            }
+        } catch (IOException | JsonParseException | NumberFormatException | UnsupportedOperationException e) {
+            // Start with an empty cache
+        }
+
+        var json = new JsonObject();
+        json.addProperty("version", VERSION);
+        json.add("instances", new JsonObject());
+        return json;
+    }
+
+    /**
+     * A value that was read from the file
+     *
+     * @param <T> the type of the value
+     */
+    public static final class Snapshot<T> {
+        private final CachedValue.Response<T> response;
+        private final Instant updated;
+
+        private Snapshot(CachedValue.Response<T> response, Instant updated) {
+            this.response = response;
+            this.updated = updated;
+        }
+
+        /**
+         * @return the value and its ETag
+         */
+        public CachedValue.Response<T> getResponse() {
+            return response;
+        }
+
+        /**
+         * @return the time since the value was stored
+         */
+        public Duration getAge() {
+            return Duration.between(updated, Instant.now());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package gs.mclo.api.internal;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The default executor for blocking I/O, e.g. parsing a response body while it is streamed.
+ * <p>
+ * Blocking tasks must not run on the common pool, where they would stall unrelated computations, or on the executor of
+ * the HTTP client, which also delivers the response bodies the tasks are waiting for. The pool is bounded, so further
+ * tasks wait in a queue. Its daemon threads are created on demand and stop after a minute without work.
+ */
+public final class IoExecutor {
+    /**
+     * Maximum number of threads of the shared executor
+     */
+    public static final int MAX_THREADS = 8;
+
+    private IoExecutor() {
+    }
+
+    /**
+     * @return the executor shared by all clients
+     */
+    public static Executor shared() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Holder for the shared executor, so it's only created if a client without a custom I/O executor is used.
+     */
+    private static final class Holder {
+        private static final ThreadPoolExecutor INSTANCE = create();
+
+        private static ThreadPoolExecutor create() {
+            var count = new AtomicInteger();
+            var executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                var thread = new Thread(runnable, "mclogs-io-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+}
@@ -2,15 +2,30 @@ package gs.mclo.api.internal;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import gs.mclo.api.APIException;
 import gs.mclo.api.MclogsClient;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.*;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
-public final class JsonBodyHandler<T> implements HttpResponse.BodyHandler<T> {
+/**
+ * Parses JSON responses of the API.
+ * <p>
+ * The body is bound to the response class directly from the response stream, without buffering it as a string or
+ * JSON tree first. Since reading the stream blocks, the body is a supplier that should not be called on the HTTP
+ * client's threads.
+ *
+ * @param <T> the response type
+ */
+public final class JsonBodyHandler<T> implements HttpResponse.BodyHandler<Supplier<@Nullable T>> {
     private final MclogsClient client;
     private final Class<T> clazz;
 
@@ -20,12 +35,65 @@ public final class JsonBodyHandler<T> implements HttpResponse.BodyHandler<T> {
     }
 
     @Override
-    public HttpResponse.BodySubscriber<@Nullable T> apply(HttpResponse.ResponseInfo responseInfo) {
-        return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8), x -> map(x, responseInfo));
+    public HttpResponse.BodySubscriber<Supplier<@Nullable T>> apply(HttpResponse.ResponseInfo responseInfo) {
+        return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofInputStream(),
+                in -> () -> read(new InputStreamReader(in, StandardCharsets.UTF_8), responseInfo));
     }
 
     @Nullable T map(String json, HttpResponse.ResponseInfo responseInfo) {
-        var element = JsonParser.parseString(json);
+        return read(new StringReader(json), responseInfo);
+    }
+
+    /**
+     * Parse a response body
+     *
+     * @param reader       reader for the response body. Closed after reading.
+     * @param responseInfo response status and headers
+     * @return the parsed response
+     */
+    @Nullable T read(Reader reader, HttpResponse.ResponseInfo responseInfo) {
+        try (var json = new ResponseReader(reader)) {
+            json.setStrictness(Strictness.LENIENT);
+
+            JsonToken token;
+            try {
+                token = json.peek();
+            } catch (EOFException e) {
+                token = JsonToken.END_DOCUMENT;
+            }
+
+            if (clazz == Void.class
+                    || (token == JsonToken.BEGIN_OBJECT && clazz.isArray())
+                    || (token != JsonToken.BEGIN_OBJECT && token != JsonToken.BEGIN_ARRAY)) {
+                // Empty, invalid or error responses that are small enough to parse into a tree
+                return map(token == JsonToken.END_DOCUMENT ? JsonParser.parseString("") : JsonParser.parseReader(json), responseInfo);
+            }
+
+            T body;
+            try {
+                body = client.gson().fromJson(json, clazz);
+            } catch (RuntimeException e) {
+                // Report API errors instead of failing to parse an error response as the response class
+                json.checkError(responseInfo);
+                throw e;
+            }
+
+            if (token == JsonToken.BEGIN_OBJECT) {
+                json.checkError(responseInfo);
+            }
+
+            // Read to the end, so the connection can be reused
+            if (json.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("JSON document was not fully consumed.");
+            }
+
+            return initialize(body);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private @Nullable T map(JsonElement element, HttpResponse.ResponseInfo responseInfo) {
         if (element.isJsonObject()) {
             checkError(element, responseInfo);
         } else if (!element.isJsonArray()) {
@@ -37,8 +105,10 @@ public final class JsonBodyHandler<T> implements HttpResponse.BodyHandler<T> {
             return null;
         }
 
-        var body = client.gson().fromJson(element, clazz);
+        return initialize(client.gson().fromJson(element, clazz));
+    }
 
+    private @Nullable T initialize(@Nullable T body) {
         if (body instanceof Initializable) {
             ((Initializable) body).setClient(client);
         }
@@ -68,4 +138,76 @@ public final class JsonBodyHandler<T> implements HttpResponse.BodyHandler<T> {
             throw new CompletionException(new APIException(message, responseInfo.statusCode()));
         }
     }
+
+    /**
+     * A JSON reader that picks up the {@code success} and {@code error} properties of the response object while the
+     * response is bound to a class that doesn't contain them.
+     */
+    private static final class ResponseReader extends JsonReader {
+        private static final String SUCCESS_PATH = "$.success";
+        private static final String ERROR_PATH = "$.error";
+
+        private boolean failed = false;
+        private boolean hasError = false;
+        private @Nullable String errorMessage = null;
+
+        private ResponseReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public void skipValue() throws IOException {
+            var token = peek();
+            if (token != JsonToken.BEGIN_OBJECT && token != JsonToken.BEGIN_ARRAY && token != JsonToken.END_DOCUMENT) {
+                var path = getPath();
+                if (SUCCESS_PATH.equals(path) && token == JsonToken.BOOLEAN) {
+                    nextBoolean();
+                    return;
+                }
+                if (ERROR_PATH.equals(path)) {
+                    if (token == JsonToken.STRING) {
+                        nextString();
+                        return;
+                    }
+                    hasError |= token != JsonToken.NULL;
+                }
+            } else if (token != JsonToken.END_DOCUMENT && ERROR_PATH.equals(getPath())) {
+                hasError = true;
+            }
+            super.skipValue();
+        }
+
+        @Override
+        public boolean nextBoolean() throws IOException {
+            var isSuccess = SUCCESS_PATH.equals(getPath());
+            var value = super.nextBoolean();
+            if (isSuccess) {
+                failed = !value;
+            }
+            return value;
+        }
+
+        @Override
+        public String nextString() throws IOException {
+            var isError = ERROR_PATH.equals(getPath()) && peek() == JsonToken.STRING;
+            var value = super.nextString();
+            if (isError) {
+                hasError = true;
+                errorMessage = value;
+            }
+            return value;
+        }
+
+        /**
+         * Throw an exception if the properties read so far describe an error
+         *
+         * @param responseInfo response status and headers
+         */
+        private void checkError(HttpResponse.ResponseInfo responseInfo) {
+            if (failed || hasError) {
+                var message = errorMessage != null ? errorMessage : "Unknown API error";
+                throw new CompletionException(new APIException(message, responseInfo.statusCode()));
+            }
+        }
+    }
 }
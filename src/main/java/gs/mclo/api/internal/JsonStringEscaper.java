@@ -0,0 +1,181 @@
+package gs.mclo.api.internal;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Escapes the contents of JSON strings the same way as Gson's {@link com.google.gson.stream.JsonWriter}.
+ * This allows writing large string values in chunks without materializing them as a single string, or writing them as
+ * UTF-8 bytes directly.
+ */
+public final class JsonStringEscaper {
+    private static final String[] REPLACEMENT_CHARS;
+    private static final String[] HTML_SAFE_REPLACEMENT_CHARS;
+    private static final byte[] LINE_SEPARATOR = "\\u2028".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PARAGRAPH_SEPARATOR = "\\u2029".getBytes(StandardCharsets.US_ASCII);
+
+    static {
+        REPLACEMENT_CHARS = new String[128];
+        for (int i = 0; i <= 0x1f; i++) {
+            REPLACEMENT_CHARS[i] = String.format("\\u%04x", i);
+        }
+        REPLACEMENT_CHARS['"'] = "\\\"";
+        REPLACEMENT_CHARS['\\'] = "\\\\";
+        REPLACEMENT_CHARS['\t'] = "\\t";
+        REPLACEMENT_CHARS['\b'] = "\\b";
+        REPLACEMENT_CHARS['\n'] = "\\n";
+        REPLACEMENT_CHARS['\r'] = "\\r";
+        REPLACEMENT_CHARS['\f'] = "\\f";
+        HTML_SAFE_REPLACEMENT_CHARS = REPLACEMENT_CHARS.clone();
+        HTML_SAFE_REPLACEMENT_CHARS['<'] = "\\u003c";
+        HTML_SAFE_REPLACEMENT_CHARS['>'] = "\\u003e";
+        HTML_SAFE_REPLACEMENT_CHARS['&'] = "\\u0026";
+        HTML_SAFE_REPLACEMENT_CHARS['='] = "\\u003d";
+        HTML_SAFE_REPLACEMENT_CHARS['\''] = "\\u0027";
+    }
+
+    private final String[] replacements;
+    /**
+     * The replacements of ASCII chars as bytes or null if the char is written as is
+     */
+    private final byte[][] replacementBytes = new byte[128][];
+
+    /**
+     * Create a new escaper
+     *
+     * @param htmlSafe whether to escape HTML characters like Gson does by default
+     */
+    public JsonStringEscaper(boolean htmlSafe) {
+        this.replacements = htmlSafe ? HTML_SAFE_REPLACEMENT_CHARS : REPLACEMENT_CHARS;
+        for (int i = 0; i < replacements.length; i++) {
+            if (replacements[i] != null) {
+                replacementBytes[i] = replacements[i].getBytes(StandardCharsets.US_ASCII);
+            }
+        }
+    }
+
+    /**
+     * Write the escaped chars to a writer. Quotes around the string are not written.
+     *
+     * @param chars  the chars to escape
+     * @param offset the offset of the first char
+     * @param length the number of chars to escape
+     * @param out    the writer to write to
+     * @throws IOException if writing fails
+     */
+    public void escape(char[] chars, int offset, int length, Writer out) throws IOException {
+        int last = offset;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            char c = chars[i];
+            String replacement;
+            if (c < 128) {
+                replacement = replacements[c];
+                if (replacement == null) {
+                    continue;
+                }
+            } else if (c == '\u2028') {
+                replacement = "\\u2028";
+            } else if (c == '\u2029') {
+                replacement = "\\u2029";
+            } else {
+                continue;
+            }
+
+            if (last < i) {
+                out.write(chars, last, i - last);
+            }
+            out.write(replacement);
+            last = i + 1;
+        }
+
+        if (last < end) {
+            out.write(chars, last, end - last);
+        }
+    }
+
+    /**
+     * Get the number of bytes {@link #escapeUtf8(CharSequence, byte[], int)} writes for a string
+     *
+     * @param chars the chars to escape
+     * @return the length of the escaped string in UTF-8
+     */
+    public long utf8Length(CharSequence chars) {
+        byte[][] replacements = this.replacementBytes;
+        long length = 0;
+        int end = chars.length();
+        for (int i = 0; i < end; i++) {
+            char c = chars.charAt(i);
+            if (c < 128) {
+                byte[] replacement = replacements[c];
+                length += replacement == null ? 1 : replacement.length;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (c == '\u2028' || c == '\u2029') {
+                length += LINE_SEPARATOR.length;
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogates are replaced with '?'
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Write the escaped chars as UTF-8 to a byte array. Quotes around the string are not written.
+     * Unpaired surrogates are replaced with {@code ?} like {@link String#getBytes(java.nio.charset.Charset)} does.
+     *
+     * @param chars    the chars to escape
+     * @param out      the array to write to. Must have room for {@link #utf8Length(CharSequence)} bytes.
+     * @param position the index to write the first byte to
+     * @return the index after the last written byte
+     */
+    public int escapeUtf8(CharSequence chars, byte[] out, int position) {
+        byte[][] replacements = this.replacementBytes;
+        int end = chars.length();
+        int i = 0;
+        while (i < end) {
+            // Copy runs of ASCII chars that don't need to be escaped
+            char c;
+            while ((c = chars.charAt(i)) < 128 && replacements[c] == null) {
+                out[position++] = (byte) c;
+                if (++i == end) {
+                    return position;
+                }
+            }
+
+            if (c < 128) {
+                byte[] replacement = replacements[c];
+                System.arraycopy(replacement, 0, out, position, replacement.length);
+                position += replacement.length;
+            } else if (c < 0x800) {
+                out[position++] = (byte) (0xc0 | c >> 6);
+                out[position++] = (byte) (0x80 | c & 0x3f);
+            } else if (c == '\u2028' || c == '\u2029') {
+                byte[] replacement = c == '\u2028' ? LINE_SEPARATOR : PARAGRAPH_SEPARATOR;
+                System.arraycopy(replacement, 0, out, position, replacement.length);
+                position += replacement.length;
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, chars.charAt(++i));
+                out[position++] = (byte) (0xf0 | codePoint >> 18);
+                out[position++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                out[position++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                out[position++] = (byte) (0x80 | codePoint & 0x3f);
+            } else if (Character.isSurrogate(c)) {
+                out[position++] = '?';
+            } else {
+                out[position++] = (byte) (0xe0 | c >> 12);
+                out[position++] = (byte) (0x80 | c >> 6 & 0x3f);
+                out[position++] = (byte) (0x80 | c & 0x3f);
+            }
+            i++;
+        }
+        return position;
+    }
+}
@@ -8,9 +8,17 @@ import java.util.Objects;
 
 /**
  * A Helper class that limits the number of bytes and/or lines read from a Reader.
+ * <p>
+ * Characters are read straight into the caller's buffer and the limits are tracked with primitive counters. Byte limits
+ * are exact UTF-8 byte counts (see {@link Utf8}) and never split a surrogate pair.
+ * This reader is meant to be consumed by a single thread and does not synchronize on its lock.
  */
-@SuppressWarnings("SynchronizeOnNonFinalField")
 public final class LimitedReader extends Reader {
+    /**
+     * Value of the remaining limits if no limit is enforced.
+     */
+    private static final int UNLIMITED = -1;
+
     /**
      * The underlying reader
      */
@@ -21,15 +29,17 @@ public final class LimitedReader extends Reader {
      */
     private boolean trim;
     /**
-     * The remaining byte limit. If null, no limit is enforced.
+     * Whether one of the limits has been reached
      */
-    @Nullable
-    private Integer remainingByteLimit;
+    private boolean limitReached = false;
     /**
-     * The remaining line limit. If null, no limit is enforced.
+     * The remaining byte limit or {@link #UNLIMITED}.
      */
-    @Nullable
-    private Integer remainingLineLimit;
+    private int remainingByteLimit;
+    /**
+     * The remaining line limit or {@link #UNLIMITED}.
+     */
+    private int remainingLineLimit;
 
     /**
      * Creates a new LimitedReader with the given limits.
@@ -41,105 +51,118 @@ public final class LimitedReader extends Reader {
      */
     public LimitedReader(Reader in, @Nullable Integer byteLimit, @Nullable Integer lineLimit, boolean trim) {
         this.in = Objects.requireNonNull(in);
-        this.remainingByteLimit = byteLimit;
-        this.remainingLineLimit = lineLimit;
+        this.remainingByteLimit = byteLimit == null ? UNLIMITED : Math.max(byteLimit, 0);
+        this.remainingLineLimit = lineLimit == null ? UNLIMITED : Math.max(lineLimit, 0);
         this.trim = trim;
     }
 
     @Override
     public int read(char[] chars, int offset, int length) throws IOException {
-        synchronized (this.lock) {
-            if (this.in == null) {
-                throw new IOException("Stream closed");
-            }
+        Objects.checkFromIndexSize(offset, length, chars.length);
+        if (this.in == null) {
+            throw new IOException("Stream closed");
+        }
+
+        if (length == 0) {
+            return 0;
+        }
 
-            char[] readChars = new char[length];
-            int read = this.in.read(readChars, 0, length);
+        if (this.limitReached || this.remainingByteLimit == 0 || this.remainingLineLimit == 0) {
+            return -1;
+        }
+
+        int read;
+        int start;
+        do {
+            read = this.in.read(chars, offset, length);
             if (read == -1) {
                 return -1;
             }
 
-            int i = 0;
-            for (int b = 0; i < read; i++) {
-                char c = readChars[b];
-                if (this.remainingByteLimit != null) {
-                    if (this.remainingByteLimit <= 0) {
-                        return i == 0 ? -1 : i;
-                    }
-
-                    var remainingByteLimit = this.remainingByteLimit;
-                    int byteCount = getPartialUTF8Size(c);
-                    if (this.getRemainingUTF8Size(c) > remainingByteLimit) {
-                        return i == 0 ? -1 : i;
-                    }
-                    this.remainingByteLimit -= byteCount;
-                }
-
-                if (c == '\n' && this.remainingLineLimit != null) {
-                    this.remainingLineLimit--;
-                    if (this.remainingLineLimit <= 0) {
-                        return i == 0 ? -1 : i;
-                    }
-                }
-
-                if (!trim || !Character.isWhitespace(c)) {
-                    chars[offset + i] = c;
-                    b++;
-                }
-
-                if (trim && !Character.isWhitespace(c)) {
-                    this.trim = false;
-                }
+            start = offset;
+            if (this.trim) {
+                start = skipWhitespace(chars, offset, offset + read);
             }
+        } while (start == offset + read);
+
+        if (start != offset) {
+            System.arraycopy(chars, start, chars, offset, offset + read - start);
+            read -= start - offset;
+        }
 
-            return i;
+        int accepted = accept(chars, offset, offset + read);
+        if (accepted == 0) {
+            return -1;
         }
+        return accepted;
     }
 
     @Override
     public void close() throws IOException {
-        synchronized (this.lock) {
-            if (this.in != null) {
-                try {
-                    this.in.close();
-                } finally {
-                    this.in = null;
-                }
+        if (this.in != null) {
+            try {
+                this.in.close();
+            } finally {
+                this.in = null;
             }
         }
     }
 
     /**
-     * Get the number of bytes it would require to encode this full char in UTF-8.
-     * High surrogates are considered 4 bytes since the low surrogate is still needed.
+     * Skip leading whitespace while trimming is enabled.
      *
-     * @param character the UTF-16 input character
-     * @return size required to encode this character in UTF-8
+     * @param chars buffer
+     * @param start first index to check
+     * @param end   end index (exclusive)
+     * @return the index of the first char that should be kept
      */
-    private int getRemainingUTF8Size(char character) {
-        if (character < 0x80) {
-            return 1;
+    private int skipWhitespace(char[] chars, int start, int end) {
+        int i = start;
+        while (i < end && Character.isWhitespace(chars[i])) {
+            i++;
         }
 
-        if (Character.isHighSurrogate(character)) {
-            return 4;
+        if (i < end) {
+            this.trim = false;
         }
-
-        return 2;
+        return i;
     }
 
     /**
-     * Get the number of bytes it would require to encode this (part of a) char in UTF-8.
-     * Surrogates are considered to be 2 bytes by this method.
+     * Apply the limits to the chars that were just read.
      *
-     * @param character the UTF-16 input character
-     * @return size this char would take in UTF-8
+     * @param chars buffer
+     * @param start first index of the new chars
+     * @param end   end index (exclusive)
+     * @return the number of chars that are within the limits
      */
-    private int getPartialUTF8Size(char character) {
-        if (character < 0x80) {
-            return 1;
+    private int accept(char[] chars, int start, int end) {
+        int limit = end;
+        if (this.remainingLineLimit != UNLIMITED) {
+            int lines = this.remainingLineLimit;
+            for (int i = start; i < end; i++) {
+                if (chars[i] == '\n' && --lines == 0) {
+                    limit = i;
+                    this.limitReached = true;
+                    break;
+                }
+            }
+            this.remainingLineLimit = lines;
         }
 
-        return 2;
+        int bytes = this.remainingByteLimit;
+        if (bytes != UNLIMITED && limit > start) {
+            int length = Utf8.length(chars, start, limit);
+            // Keep room for the low surrogate if the chars end with a high surrogate
+            int reserved = Character.isHighSurrogate(chars[limit - 1]) ? 2 : 0;
+            if (length + reserved <= bytes) {
+                this.remainingByteLimit = bytes - length;
+            } else {
+                limit = Utf8.prefixEnd(chars, start, limit, bytes);
+                this.remainingByteLimit = 0;
+                this.limitReached = true;
+            }
+        }
+        return limit - start;
     }
 }
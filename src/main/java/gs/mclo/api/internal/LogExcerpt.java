@@ -0,0 +1,528 @@
+package gs.mclo.api.internal;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Extracts the end or the start and the end of a log within line and byte limits.
+ * <p>
+ * Byte counts are exact UTF-8 byte counts and lines are separated by {@code \n}. If the log is trimmed, ASCII
+ * whitespace at the start and the end of the log is removed before the limits are applied. Lines are only cut if a
+ * single line doesn't fit into the byte limit.
+ * <p>
+ * Logs in seekable channels are read backwards from the end in blocks, so only the part of the log that is kept is
+ * read. Logs from any other reader are read entirely, but only the kept lines are held in memory.
+ */
+public final class LogExcerpt {
+    /**
+     * The line that replaces the omitted part between the start and the end of a log
+     */
+    public static final String ELISION_MARKER = "[...]";
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private LogExcerpt() {
+    }
+
+    /**
+     * Get the last lines of a log
+     *
+     * @param in        reader for the log
+     * @param byteLimit the maximum number of bytes, or null for no limit
+     * @param lineLimit the maximum number of lines, or null for no limit
+     * @param trim      whether to trim whitespace at the start and the end of the log
+     * @return the last lines
+     * @throws IOException if an I/O error occurs
+     */
+    public static String tail(Reader in, @Nullable Integer byteLimit, @Nullable Integer lineLimit, boolean trim) throws IOException {
+        var lines = new Lines(in, trim);
+        var tail = new Tail(limit(lineLimit), limit(byteLimit));
+        String line;
+        while ((line = lines.next()) != null) {
+            tail.add(line);
+        }
+        return tail.toString();
+    }
+
+    /**
+     * Get the first and the last lines of a log. If the log doesn't fit into the limits, the lines in between are
+     * replaced by {@link #ELISION_MARKER}.
+     *
+     * @param in        reader for the log
+     * @param byteLimit the maximum number of bytes, or null for no limit
+     * @param lineLimit the maximum number of lines, or null for no limit
+     * @param trim      whether to trim whitespace at the start and the end of the log
+     * @return the first and the last lines
+     * @throws IOException if an I/O error occurs
+     */
+    public static String headAndTail(Reader in, @Nullable Integer byteLimit, @Nullable Integer lineLimit, boolean trim) throws IOException {
+        int maxLines = limit(lineLimit);
+        int maxBytes = limit(byteLimit);
+        var lines = new Lines(in, trim);
+
+        // Keep everything until it is clear that the log doesn't fit
+        List<String> start = new ArrayList<>();
+        long bytes = -1;
+        String line;
+        while ((line = lines.next()) != null) {
+            start.add(line);
+            bytes += Utf8.length(line) + 1;
+            if (start.size() > maxLines || bytes > maxBytes) {
+                break;
+            }
+        }
+
+        if (line == null) {
+            return String.join("\n", start);
+        }
+
+        var split = Split.of(maxLines, maxBytes);
+        var tail = split != null ? new Tail(split.tailLines, split.tailBytes) : new Tail(maxLines, maxBytes);
+        // The log is larger than both parts together, so they can't overlap
+        for (String kept : start) {
+            tail.add(kept);
+        }
+        while ((line = lines.next()) != null) {
+            tail.add(line);
+        }
+
+        if (split == null) {
+            return tail.toString();
+        }
+
+        Iterator<String> iterator = start.iterator();
+        String head = head(() -> iterator.hasNext() ? iterator.next() : null, split.headLines, split.headBytes);
+        return head + '\n' + ELISION_MARKER + '\n' + tail;
+    }
+
+    /**
+     * Get the last lines of a log by reading the channel backwards from the end
+     *
+     * @param channel   channel containing the UTF-8 encoded log
+     * @param byteLimit the maximum number of bytes, or null for no limit
+     * @param lineLimit the maximum number of lines, or null for no limit
+     * @param trim      whether to trim whitespace at the start and the end of the log
+     * @return the last lines
+     * @throws IOException if an I/O error occurs
+     */
+    public static String tail(SeekableByteChannel channel, @Nullable Integer byteLimit, @Nullable Integer lineLimit, boolean trim) throws IOException {
+        var range = Range.of(channel, trim);
+        long start = findTailStart(channel, range, limit(lineLimit), limit(byteLimit));
+        return decode(channel, start, range.end);
+    }
+
+    /**
+     * Get the first and the last lines of a log. The start of the log is read from the start of the channel and the
+     * end of the log is read backwards from the end. The content in between is never read.
+     *
+     * @param channel   channel containing the UTF-8 encoded log
+     * @param byteLimit the maximum number of bytes, or null for no limit
+     * @param lineLimit the maximum number of lines, or null for no limit
+     * @param trim      whether to trim whitespace at the start and the end of the log
+     * @return the first and the last lines
+     * @throws IOException if an I/O error occurs
+     * @see #headAndTail(Reader, Integer, Integer, boolean)
+     */
+    public static String headAndTail(SeekableByteChannel channel, @Nullable Integer byteLimit, @Nullable Integer lineLimit, boolean trim) throws IOException {
+        int maxLines = limit(lineLimit);
+        int maxBytes = limit(byteLimit);
+        var range = Range.of(channel, trim);
+        if (range.end - range.start <= maxBytes) {
+            // Small enough to be read entirely
+            return headAndTail(new StringReader(decode(channel, range.start, range.end)), byteLimit, lineLimit, trim);
+        }
+
+        var split = Split.of(maxLines, maxBytes);
+        if (split == null) {
+            return decode(channel, findTailStart(channel, range, maxLines, maxBytes), range.end);
+        }
+
+        String tail = decode(channel, findTailStart(channel, range, split.tailLines, split.tailBytes), range.end);
+        var lines = new Lines(Channels.newReader(channel.position(range.start), StandardCharsets.UTF_8), false);
+        String head = head(lines::next, split.headLines, split.headBytes);
+        return head + '\n' + ELISION_MARKER + '\n' + tail;
+    }
+
+    private static int limit(@Nullable Integer limit) {
+        return limit == null ? Integer.MAX_VALUE : Math.max(limit, 0);
+    }
+
+    /**
+     * Get the first lines that fit into the limits. The first line is cut if it doesn't fit on its own.
+     *
+     * @param lines    the lines
+     * @param maxLines the maximum number of lines
+     * @param maxBytes the maximum number of bytes
+     * @return the first lines
+     * @throws IOException if an I/O error occurs
+     */
+    private static String head(LineSource lines, int maxLines, int maxBytes) throws IOException {
+        var head = new StringBuilder();
+        long bytes = -1;
+        String line;
+        for (int count = 0; count < maxLines && (line = lines.next()) != null; count++) {
+            int length = Utf8.length(line);
+            if (bytes + 1 + length > maxBytes) {
+                if (count == 0) {
+                    head.append(line, 0, Utf8.prefixLength(line, maxBytes));
+                }
+                break;
+            }
+
+            if (count > 0) {
+                head.append('\n');
+            }
+            head.append(line);
+            bytes += 1 + length;
+        }
+        return head.toString();
+    }
+
+    /**
+     * Find the start of the last lines that fit into the limits by reading the channel backwards
+     *
+     * @param channel  the channel
+     * @param range    the range of the channel that contains the log
+     * @param maxLines the maximum number of lines
+     * @param maxBytes the maximum number of bytes
+     * @return the position of the first byte that is kept
+     * @throws IOException if an I/O error occurs
+     */
+    private static long findTailStart(SeekableByteChannel channel, Range range, int maxLines, int maxBytes) throws IOException {
+        long end = range.end;
+        if (maxLines == 0) {
+            return end;
+        }
+
+        var block = ByteBuffer.allocate((int) Math.min(BLOCK_SIZE, Math.max(end - range.start, 1)));
+        int lines = 1;
+        // Start of the first complete line that fits
+        long lineStart = -1;
+        // Start of the first complete character that fits
+        long charStart = end;
+        long blockEnd = end;
+        while (blockEnd > range.start) {
+            long blockStart = Math.max(range.start, blockEnd - block.capacity());
+            read(channel, block, blockStart, (int) (blockEnd - blockStart));
+
+            for (long position = blockEnd - 1; position >= blockStart; position--) {
+                byte b = block.get((int) (position - blockStart));
+                if (end - position > maxBytes) {
+                    if (b == '\n') {
+                        return position + 1;
+                    }
+                    return lineStart != -1 ? lineStart : charStart;
+                }
+
+                if (b == '\n') {
+                    if (lines == maxLines) {
+                        return position + 1;
+                    }
+                    lines++;
+                    lineStart = position + 1;
+                }
+
+                if ((b & 0xc0) != 0x80) {
+                    charStart = position;
+                }
+            }
+            blockEnd = blockStart;
+        }
+        return range.start;
+    }
+
+    /**
+     * Read and decode a part of a channel
+     *
+     * @param channel the channel
+     * @param start   position of the first byte
+     * @param end     position after the last byte
+     * @return the decoded content
+     * @throws IOException if an I/O error occurs
+     */
+    private static String decode(SeekableByteChannel channel, long start, long end) throws IOException {
+        var buffer = ByteBuffer.allocate(Math.toIntExact(end - start));
+        read(channel, buffer, start, buffer.capacity());
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+
+    /**
+     * Fill a buffer from a position of the channel. The buffer is flipped afterward.
+     */
+    private static void read(SeekableByteChannel channel, ByteBuffer buffer, long position, int length) throws IOException {
+        buffer.clear().limit(length);
+        channel.position(position);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) == -1) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+        buffer.flip();
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || (c >= 0x09 && c <= 0x0d) || (c >= 0x1c && c <= 0x1f);
+    }
+
+    /**
+     * @return the index of the longest suffix that fits into the byte limit without splitting a surrogate pair
+     */
+    private static int suffixStart(String string, int maxBytes) {
+        int bytes = 0;
+        int i = string.length();
+        while (i > 0) {
+            int codePoint = string.codePointBefore(i);
+            bytes += Utf8.length(codePoint);
+            if (bytes > maxBytes) {
+                break;
+            }
+            i -= Character.charCount(codePoint);
+        }
+        return i;
+    }
+
+    private interface LineSource {
+        /**
+         * @return the next line or null at the end of the log
+         */
+        @Nullable String next() throws IOException;
+    }
+
+    /**
+     * Splits a reader into lines. If trimming is enabled, whitespace at the start and the end of the log is skipped.
+     */
+    private static final class Lines implements LineSource {
+        private final Reader in;
+        private final boolean trim;
+        private final char[] buffer = new char[8192];
+        private int position = 0;
+        private int limit = 0;
+        private boolean started;
+        private boolean ended = false;
+        private final StringBuilder line = new StringBuilder();
+        /**
+         * Lines that are ready to be returned
+         */
+        private final ArrayDeque<String> ready = new ArrayDeque<>();
+        /**
+         * Blank lines after the last line with content. They are dropped if they are at the end of the log.
+         */
+        private final List<String> blank = new ArrayList<>();
+        /**
+         * The last line with content. Its trailing whitespace is removed if it's the last line of the log.
+         */
+        private @Nullable String last = null;
+
+        private Lines(Reader in, boolean trim) {
+            this.in = in;
+            this.trim = trim;
+            this.started = !trim;
+        }
+
+        @Override
+        public @Nullable String next() throws IOException {
+            while (ready.isEmpty()) {
+                String raw = readLine();
+                if (raw == null) {
+                    if (last != null) {
+                        ready.add(stripTrailing(last));
+                        last = null;
+                    }
+                    blank.clear();
+                    return ready.poll();
+                }
+
+                if (!trim) {
+                    ready.add(raw);
+                } else if (isBlank(raw)) {
+                    blank.add(raw);
+                } else {
+                    if (last != null) {
+                        ready.add(last);
+                    }
+                    ready.addAll(blank);
+                    blank.clear();
+                    last = raw;
+                }
+            }
+            return ready.poll();
+        }
+
+        private @Nullable String readLine() throws IOException {
+            while (!ended) {
+                if (position == limit) {
+                    limit = in.read(buffer, 0, buffer.length);
+                    position = 0;
+                    if (limit == -1) {
+                        limit = 0;
+                        ended = true;
+                        String result = line.toString();
+                        line.setLength(0);
+                        return result;
+                    }
+                }
+
+                if (!started) {
+                    while (position < limit && isWhitespace(buffer[position])) {
+                        position++;
+                    }
+                    started = position < limit;
+                }
+
+                for (int i = position; i < limit; i++) {
+                    if (buffer[i] == '\n') {
+                        line.append(buffer, position, i - position);
+                        position = i + 1;
+                        String result = line.toString();
+                        line.setLength(0);
+                        return result;
+                    }
+                }
+                line.append(buffer, position, limit - position);
+                position = limit;
+            }
+            return null;
+        }
+
+        private static boolean isBlank(String line) {
+            for (int i = 0; i < line.length(); i++) {
+                if (!isWhitespace(line.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static String stripTrailing(String line) {
+            int end = line.length();
+            while (end > 0 && isWhitespace(line.charAt(end - 1))) {
+                end--;
+            }
+            return line.substring(0, end);
+        }
+    }
+
+    /**
+     * Keeps the last lines that fit into the limits
+     */
+    private static final class Tail {
+        private final int maxLines;
+        private final int maxBytes;
+        private final ArrayDeque<String> lines = new ArrayDeque<>();
+        /**
+         * Size of the kept lines including the line separators
+         */
+        private long bytes = -1;
+
+        private Tail(int maxLines, int maxBytes) {
+            this.maxLines = maxLines;
+            this.maxBytes = maxBytes;
+        }
+
+        private void add(String line) {
+            lines.addLast(line);
+            bytes += Utf8.length(line) + 1;
+            while (lines.size() > maxLines || (bytes > maxBytes && lines.size() > 1)) {
+                bytes -= Utf8.length(lines.removeFirst()) + 1;
+            }
+        }
+
+        @Override
+        public String toString() {
+            if (lines.size() == 1 && bytes > maxBytes) {
+                String line = lines.getFirst();
+                return line.substring(suffixStart(line, maxBytes));
+            }
+            return String.join("\n", lines);
+        }
+    }
+
+    /**
+     * The part of a channel that contains the (trimmed) log
+     */
+    private static final class Range {
+        private final long start;
+        private final long end;
+
+        private Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        private static Range of(SeekableByteChannel channel, boolean trim) throws IOException {
+            long size = channel.size();
+            if (!trim || size == 0) {
+                return new Range(0, size);
+            }
+
+            var block = ByteBuffer.allocate((int) Math.min(BLOCK_SIZE, size));
+            long start = 0;
+            search:
+            while (start < size) {
+                int length = (int) Math.min(block.capacity(), size - start);
+                read(channel, block, start, length);
+                for (int i = 0; i < length; i++, start++) {
+                    if (!isWhitespace(block.get(i))) {
+                        break search;
+                    }
+                }
+            }
+
+            long end = size;
+            search:
+            while (end > start) {
+                int length = (int) Math.min(block.capacity(), end - start);
+                read(channel, block, end - length, length);
+                for (int i = length - 1; i >= 0; i--, end--) {
+                    if (!isWhitespace(block.get(i))) {
+                        break search;
+                    }
+                }
+            }
+            return new Range(start, end);
+        }
+    }
+
+    /**
+     * Limits of the head and the tail if both are kept
+     */
+    private static final class Split {
+        private final int headLines;
+        private final int headBytes;
+        private final int tailLines;
+        private final int tailBytes;
+
+        private Split(int headLines, int headBytes, int tailLines, int tailBytes) {
+            this.headLines = headLines;
+            this.headBytes = headBytes;
+            this.tailLines = tailLines;
+            this.tailBytes = tailBytes;
+        }
+
+        /**
+         * Split the limits between the head, the elision marker and the tail
+         *
+         * @return the split limits or null if the limits are too small to keep both
+         */
+        private static @Nullable Split of(int maxLines, int maxBytes) {
+            int markerBytes = ELISION_MARKER.length() + 2;
+            if (maxLines < 3 || maxBytes < markerBytes + 2) {
+                return null;
+            }
+
+            int headLines = (maxLines - 1) / 2;
+            int headBytes = (maxBytes - markerBytes) / 2;
+            return new Split(headLines, headBytes, maxLines - 1 - headLines, maxBytes - markerBytes - headBytes);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package gs.mclo.api.internal;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Opens readers for uncompressed UTF-8 files by memory mapping them.
+ * <p>
+ * The line and byte limits are applied to the mapped bytes directly, so only the part of the file that is kept is
+ * decoded and read from disk. Byte limits are exact UTF-8 byte counts and never split a character.
+ */
+public final class MappedFileReader {
+    private MappedFileReader() {
+    }
+
+    /**
+     * Open a reader for the retained prefix of a file
+     *
+     * @param path      the file
+     * @param byteLimit the maximum number of bytes to read, or null for no limit
+     * @param lineLimit the maximum number of lines to read, or null for no limit
+     * @param trim      whether to skip whitespace at the start of the file
+     * @return the reader or null if the file is too large to be mapped
+     * @throws IOException if an I/O error occurs
+     */
+    public static @Nullable Reader open(Path path,
+                                        @Nullable Integer byteLimit,
+                                        @Nullable Integer lineLimit,
+                                        boolean trim) throws IOException {
+        ByteBuffer buffer;
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                return null;
+            }
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        int start = trim ? skipWhitespace(buffer) : 0;
+        int end = findEnd(buffer, start, byteLimit, lineLimit);
+        return new InputStreamReader(new ByteBufferInputStream(buffer.position(start).limit(end).slice()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param buffer file content
+     * @return index of the first byte that isn't ASCII whitespace
+     */
+    private static int skipWhitespace(ByteBuffer buffer) {
+        int i = 0;
+        int size = buffer.limit();
+        while (i < size && isWhitespace(buffer.get(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || (b >= 0x09 && b <= 0x0d) || (b >= 0x1c && b <= 0x1f);
+    }
+
+    /**
+     * Find the end of the retained content
+     *
+     * @param buffer    file content
+     * @param start     start of the retained content
+     * @param byteLimit the maximum number of bytes, or null for no limit
+     * @param lineLimit the maximum number of lines, or null for no limit
+     * @return end of the retained content (exclusive)
+     */
+    private static int findEnd(ByteBuffer buffer, int start, @Nullable Integer byteLimit, @Nullable Integer lineLimit) {
+        int end = buffer.limit();
+        if (byteLimit != null && end - start > Math.max(byteLimit, 0)) {
+            end = start + Math.max(byteLimit, 0);
+            // Don't split a multibyte character
+            while (end > start && (buffer.get(end) & 0xc0) == 0x80) {
+                end--;
+            }
+        }
+
+        if (lineLimit != null) {
+            int lines = Math.max(lineLimit, 0);
+            if (lines == 0) {
+                return start;
+            }
+
+            for (int i = start; i < end; i++) {
+                if (buffer.get(i) == '\n' && --lines == 0) {
+                    return i;
+                }
+            }
+        }
+        return end;
+    }
+
+    /**
+     * An input stream that reads the remaining bytes of a buffer
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
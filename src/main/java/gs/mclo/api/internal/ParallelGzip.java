@@ -0,0 +1,254 @@
+package gs.mclo.api.internal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses large bodies into a single gzip stream by deflating blocks in parallel, like pigz.
+ * <p>
+ * Each block is deflated by its own deflater with the last 32 KiB of the previous block as a preset dictionary, so the
+ * compression ratio is almost the same as deflating the body at once. All blocks except the last one end with a sync
+ * flush, which aligns them to a byte boundary without ending the deflate stream, so the blocks can simply be
+ * concatenated. The CRC32 of the body is combined from the CRC32s of the blocks.
+ * <p>
+ * The calling thread compresses blocks as well, so compressing never waits for tasks that are still queued on a busy
+ * executor.
+ */
+public final class ParallelGzip {
+    /**
+     * Size of the uncompressed blocks
+     */
+    public static final int BLOCK_SIZE = 128 * 1024;
+    /**
+     * Maximum size of a deflate dictionary
+     */
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private ParallelGzip() {
+    }
+
+    /**
+     * Compress a body and write it to an output stream
+     *
+     * @param body     the uncompressed body
+     * @param level    the compression level
+     * @param executor the executor to compress blocks on
+     * @param out      the stream to write the gzip stream to
+     * @throws IOException if writing the output fails
+     */
+    public static void compress(byte[] body, int level, Executor executor, OutputStream out) throws IOException {
+        compress(body, level, executor, Runtime.getRuntime().availableProcessors(), DeflaterPool.shared(), out);
+    }
+
+    /**
+     * Compress a body and write it to an output stream
+     *
+     * @param body        the uncompressed body
+     * @param level       the compression level
+     * @param executor    the executor to compress blocks on
+     * @param parallelism the maximum number of blocks that are compressed at the same time
+     * @param pool        the pool to borrow deflaters from
+     * @param out         the stream to write the gzip stream to
+     * @throws IOException if writing the output fails
+     */
+    public static void compress(byte[] body, int level, Executor executor, int parallelism, DeflaterPool pool,
+                                OutputStream out) throws IOException {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+
+        var job = new Job(body, level, pool);
+        for (int i = Math.min(parallelism, job.blocks.length) - 1; i > 0; i--) {
+            try {
+                executor.execute(job::run);
+            } catch (RejectedExecutionException e) {
+                // The remaining blocks are compressed by the calling thread
+                break;
+            }
+        }
+        job.run();
+
+        out.write(PooledGzipOutputStream.HEADER);
+        int crc = 0;
+        for (int i = 0; i < job.blocks.length; i++) {
+            Block block;
+            try {
+                block = job.blocks[i].join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+            out.write(block.data, 0, block.length);
+            crc = crc32Combine(crc, block.crc, job.length(i));
+        }
+
+        var trailer = new byte[8];
+        PooledGzipOutputStream.writeInt(trailer, 0, crc);
+        PooledGzipOutputStream.writeInt(trailer, 4, body.length);
+        out.write(trailer);
+    }
+
+    /**
+     * Combine the CRC32 of two consecutive parts of data. This is a port of {@code crc32_combine} from zlib.
+     *
+     * @param crc1   CRC32 of the first part
+     * @param crc2   CRC32 of the second part
+     * @param length length of the second part
+     * @return the CRC32 of both parts
+     */
+    static int crc32Combine(int crc1, int crc2, long length) {
+        if (length <= 0) {
+            return crc1;
+        }
+
+        // Operator for one zero bit
+        int[] odd = new int[32];
+        odd[0] = 0xedb88320;
+        int row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+
+        int[] even = new int[32];
+        // Operator for two zero bits
+        square(even, odd);
+        // Operator for four zero bits
+        square(odd, even);
+
+        // Apply length zero bytes to crc1, the first square is the operator for one zero byte
+        do {
+            square(even, odd);
+            if ((length & 1) != 0) {
+                crc1 = times(even, crc1);
+            }
+            length >>= 1;
+            if (length == 0) {
+                break;
+            }
+
+            square(odd, even);
+            if ((length & 1) != 0) {
+                crc1 = times(odd, crc1);
+            }
+            length >>= 1;
+        } while (length != 0);
+        return crc1 ^ crc2;
+    }
+
+    private static int times(int[] matrix, int vector) {
+        int sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void square(int[] square, int[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = times(matrix, matrix[n]);
+        }
+    }
+
+    /**
+     * Compresses the blocks of a body. Workers take the next block until all blocks are taken.
+     */
+    private static final class Job {
+        private final byte[] body;
+        private final int level;
+        private final DeflaterPool pool;
+        private final CompletableFuture<Block>[] blocks;
+        private final AtomicInteger next = new AtomicInteger();
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Job(byte[] body, int level, DeflaterPool pool) {
+            this.body = body;
+            this.level = level;
+            this.pool = pool;
+            int count = Math.max(1, (body.length + BLOCK_SIZE - 1) / BLOCK_SIZE);
+            this.blocks = new CompletableFuture[count];
+            for (int i = 0; i < count; i++) {
+                blocks[i] = new CompletableFuture<>();
+            }
+        }
+
+        private void run() {
+            int i;
+            while ((i = next.getAndIncrement()) < blocks.length) {
+                try {
+                    blocks[i].complete(compress(i));
+                } catch (Throwable t) {
+                    blocks[i].completeExceptionally(t);
+                }
+            }
+        }
+
+        private int length(int block) {
+            return Math.min(BLOCK_SIZE, body.length - block * BLOCK_SIZE);
+        }
+
+        private Block compress(int block) {
+            int start = block * BLOCK_SIZE;
+            int length = length(block);
+            boolean last = block == blocks.length - 1;
+
+            var crc = new CRC32();
+            crc.update(body, start, length);
+
+            Deflater deflater = pool.acquire(level);
+            try {
+                if (start > 0) {
+                    int dictionary = Math.min(DICTIONARY_SIZE, start);
+                    deflater.setDictionary(body, start - dictionary, dictionary);
+                }
+                deflater.setInput(body, start, length);
+                if (last) {
+                    deflater.finish();
+                }
+
+                byte[] output = new byte[length + length / 8 + 64];
+                int size = 0;
+                while (true) {
+                    int space = output.length - size;
+                    size += last
+                            ? deflater.deflate(output, size, space)
+                            : deflater.deflate(output, size, space, Deflater.SYNC_FLUSH);
+                    // A sync flush is complete once all input was consumed and it doesn't fill the output. A deflater
+                    // with a pending parameter change only applies the change in the first call and returns no output.
+                    if (last ? deflater.finished() : deflater.needsInput() && size < output.length) {
+                        break;
+                    }
+                    if (size == output.length) {
+                        output = Arrays.copyOf(output, output.length * 2);
+                    }
+                }
+
+                pool.release(deflater, level);
+                return new Block(output, size, (int) crc.getValue());
+            } catch (RuntimeException e) {
+                pool.discard(deflater);
+                throw e;
+            }
+        }
+    }
+
+    private static final class Block {
+        private final byte[] data;
+        private final int length;
+        private final int crc;
+
+        private Block(byte[] data, int length, int crc) {
+            this.data = data;
+            this.length = length;
+            this.crc = crc;
+        }
+    }
+}
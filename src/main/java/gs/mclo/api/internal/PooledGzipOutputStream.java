@@ -0,0 +1,164 @@
+package gs.mclo.api.internal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A gzip output stream that borrows its deflater from a {@link DeflaterPool}.
+ * <p>
+ * The compressed data is the same as the output of {@link java.util.zip.GZIPOutputStream}. The deflater is returned
+ * to the pool when the stream is finished or closed, so streams must always be closed.
+ */
+public final class PooledGzipOutputStream extends OutputStream {
+    private static final int BUFFER_SIZE = 8192;
+    /**
+     * Gzip header without a file name, modification time or flags. The operating system is unknown (255).
+     */
+    static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final OutputStream out;
+    private final DeflaterPool pool;
+    private final int level;
+    private final CRC32 crc = new CRC32();
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final Deflater deflater;
+    private boolean finished = false;
+    private boolean closed = false;
+
+    /**
+     * Create a new gzip output stream with a deflater from the shared pool
+     *
+     * @param out   the stream to write the compressed data to
+     * @param level the compression level
+     * @throws IOException if writing the gzip header fails
+     */
+    public PooledGzipOutputStream(OutputStream out, int level) throws IOException {
+        this(out, level, DeflaterPool.shared());
+    }
+
+    /**
+     * Create a new gzip output stream
+     *
+     * @param out   the stream to write the compressed data to
+     * @param level the compression level
+     * @param pool  the pool to borrow the deflater from
+     * @throws IOException if writing the gzip header fails
+     */
+    public PooledGzipOutputStream(OutputStream out, int level, DeflaterPool pool) throws IOException {
+        this.out = Objects.requireNonNull(out);
+        this.pool = Objects.requireNonNull(pool);
+        this.level = level;
+        this.deflater = pool.acquire(level);
+        try {
+            out.write(HEADER);
+        } catch (IOException | RuntimeException e) {
+            pool.release(deflater, level);
+            throw e;
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (finished) {
+            throw new IOException("Stream finished");
+        }
+        if (len == 0) {
+            return;
+        }
+
+        crc.update(b, off, len);
+        deflater.setInput(b, off, len);
+        try {
+            while (!deflater.needsInput()) {
+                deflate();
+            }
+        } catch (IOException | RuntimeException e) {
+            fail();
+            throw e;
+        }
+    }
+
+    /**
+     * Write the remaining compressed data and the gzip trailer without closing the underlying stream.
+     * The deflater is returned to the pool afterward.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+
+        try {
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate();
+            }
+            writeTrailer();
+        } catch (IOException | RuntimeException e) {
+            fail();
+            throw e;
+        }
+        finished = true;
+        pool.release(deflater, level);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void deflate() throws IOException {
+        int length = deflater.deflate(buffer, 0, buffer.length);
+        if (length > 0) {
+            out.write(buffer, 0, length);
+        }
+    }
+
+    private void writeTrailer() throws IOException {
+        var trailer = new byte[8];
+        writeInt(trailer, 0, (int) crc.getValue());
+        writeInt(trailer, 4, (int) deflater.getBytesRead());
+        out.write(trailer);
+    }
+
+    /**
+     * Discard the deflater after an error, since its state is unknown
+     */
+    private void fail() {
+        if (!finished) {
+            finished = true;
+            pool.discard(deflater);
+        }
+    }
+
+    static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >> 8);
+        bytes[offset + 2] = (byte) (value >> 16);
+        bytes[offset + 3] = (byte) (value >> 24);
+    }
+}
@@ -0,0 +1,106 @@
+package gs.mclo.api.internal;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A reader that returns content that was read ahead of time, followed by the rest of the underlying reader.
+ * <p>
+ * This allows reading the start of a log (e.g. decompressing it) while the filters are still being fetched. Since the
+ * rest of the log can still be read afterwards, the result doesn't depend on how much was read ahead.
+ */
+public final class PrefetchReader extends Reader {
+    private static final int CHUNK_SIZE = 8192;
+
+    private @Nullable Reader in;
+    private char[] buffer;
+    private final int length;
+    private int position = 0;
+
+    private PrefetchReader(Reader in, char[] buffer, int length) {
+        this.in = in;
+        this.buffer = buffer;
+        this.length = length;
+    }
+
+    /**
+     * Read ahead from a reader
+     *
+     * @param in       the reader. Closed when the returned reader is closed.
+     * @param maxChars stop reading ahead after this many chars
+     * @param maxLines stop reading ahead after this many lines
+     * @return a reader that returns the prefetched content and then the rest of the reader
+     * @throws IOException if reading fails
+     */
+    public static PrefetchReader prefetch(Reader in, int maxChars, int maxLines) throws IOException {
+        Objects.requireNonNull(in);
+        char[] buffer = new char[Math.min(maxChars, CHUNK_SIZE)];
+        int length = 0;
+        int lines = 0;
+        try {
+            while (length < maxChars && lines < maxLines) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, (int) Math.min(maxChars, buffer.length * 2L));
+                }
+
+                int read = in.read(buffer, length, Math.min(buffer.length - length, CHUNK_SIZE));
+                if (read == -1) {
+                    break;
+                }
+
+                for (int i = length; i < length + read; i++) {
+                    if (buffer[i] == '\n') {
+                        lines++;
+                    }
+                }
+                length += read;
+            }
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+        return new PrefetchReader(in, buffer, length);
+    }
+
+    /**
+     * @return the number of chars that were read ahead
+     */
+    public int getPrefetched() {
+        return length;
+    }
+
+    @Override
+    public int read(char[] chars, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, chars.length);
+        var in = this.in;
+        if (in == null) {
+            throw new IOException("Stream closed");
+        }
+
+        if (position < this.length) {
+            int count = Math.min(length, this.length - position);
+            System.arraycopy(buffer, position, chars, offset, count);
+            position += count;
+            if (position == this.length) {
+                // Release the prefetched content while the rest is read
+                buffer = new char[0];
+            }
+            return count;
+        }
+        return in.read(chars, offset, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        var in = this.in;
+        if (in != null) {
+            this.in = null;
+            buffer = new char[0];
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package gs.mclo.api.internal;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket rate limiter that delays requests instead of rejecting them.
+ * <p>
+ * Permits are reserved in the order they are requested. Requests can use up to {@code burst} permits at once, after
+ * which they are spaced evenly according to the rate.
+ */
+public final class RateLimiter {
+    /**
+     * Nanoseconds between two permits
+     */
+    private final long interval;
+    /**
+     * How far the next free permit may lie in the future without delaying a request
+     */
+    private final long burstTolerance;
+    /**
+     * Time at which the next permit would be available if there was no burst (in {@link System#nanoTime()})
+     */
+    private long nextPermit = System.nanoTime();
+
+    /**
+     * @param permitsPerSecond number of permits per second
+     * @param burst            maximum number of permits that can be used at once
+     */
+    public RateLimiter(double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0) || Double.isInfinite(permitsPerSecond))
+            throw new IllegalArgumentException("Permits per second must be positive");
+        if (burst < 1)
+            throw new IllegalArgumentException("Burst must be at least 1");
+
+        this.interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstTolerance = this.interval * (burst - 1);
+    }
+
+    /**
+     * Reserve a permit
+     *
+     * @return a future that completes once the permit can be used
+     */
+    public CompletableFuture<Void> acquire() {
+        long delay = reserve();
+        if (delay == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> {
+        }, CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Delay all requests that haven't reserved a permit yet, e.g. because the instance asked to retry later.
+     *
+     * @param duration minimum delay of the next request
+     */
+    public synchronized void pause(Duration duration) {
+        nextPermit = Math.max(nextPermit, System.nanoTime() + duration.toNanos() + burstTolerance);
+    }
+
+    /**
+     * Reserve a permit
+     *
+     * @return nanoseconds until the permit can be used
+     */
+    synchronized long reserve() {
+        long now = System.nanoTime();
+        nextPermit = Math.max(nextPermit, now);
+        long delay = Math.max(0, nextPermit - burstTolerance - now);
+        nextPermit += interval;
+        return delay;
+    }
+}
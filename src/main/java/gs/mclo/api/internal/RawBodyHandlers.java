@@ -0,0 +1,164 @@
+package gs.mclo.api.internal;
+
+import gs.mclo.api.APIException;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Body handlers for raw log content that don't buffer the entire log in memory.
+ * <p>
+ * Requests should accept gzip encoded responses, which are decompressed while reading them. Unsuccessful responses
+ * fail with an {@link APIException}. Since decompressing blocks, the bodies are suppliers that should not be called on
+ * the HTTP client's threads.
+ */
+public final class RawBodyHandlers {
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private RawBodyHandlers() {
+    }
+
+    /**
+     * @return a body handler that returns the decoded body as an input stream
+     */
+    public static HttpResponse.BodyHandler<Supplier<InputStream>> ofInputStream() {
+        return responseInfo -> {
+            if (!isSuccessful(responseInfo)) {
+                return error(responseInfo);
+            }
+
+            boolean gzip = isGzip(responseInfo.headers());
+            return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofInputStream(), in -> () -> {
+                if (!gzip) {
+                    return in;
+                }
+
+                try {
+                    return new GZIPInputStream(in, GZIP_BUFFER_SIZE);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        };
+    }
+
+    /**
+     * Create a body handler that writes the decoded body to a channel.
+     * Uncompressed bodies are written to the channel straight from the buffers of the HTTP client.
+     *
+     * @param channel the channel to write to. Not closed by the body handler.
+     * @return the body handler
+     */
+    public static HttpResponse.BodyHandler<Supplier<@Nullable Void>> ofChannel(WritableByteChannel channel) {
+        Objects.requireNonNull(channel);
+        return responseInfo -> {
+            if (!isSuccessful(responseInfo)) {
+                return error(responseInfo);
+            }
+
+            if (!isGzip(responseInfo.headers())) {
+                return HttpResponse.BodySubscribers.mapping(new ChannelSubscriber(channel), x -> () -> null);
+            }
+
+            return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofInputStream(), in -> () -> {
+                try (var gzip = new GZIPInputStream(in, GZIP_BUFFER_SIZE)) {
+                    gzip.transferTo(Channels.newOutputStream(channel));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+        };
+    }
+
+    private static boolean isSuccessful(HttpResponse.ResponseInfo responseInfo) {
+        return responseInfo.statusCode() >= 200 && responseInfo.statusCode() < 300;
+    }
+
+    private static boolean isGzip(HttpHeaders headers) {
+        return headers.firstValue("Content-Encoding")
+                .map(encoding -> encoding.trim().equalsIgnoreCase("gzip"))
+                .orElse(false);
+    }
+
+    /**
+     * Create a body subscriber for an unsuccessful response
+     *
+     * @param responseInfo the response
+     * @param <T>          body type
+     * @return a body subscriber whose body throws an {@link APIException}
+     */
+    private static <T> HttpResponse.BodySubscriber<Supplier<T>> error(HttpResponse.ResponseInfo responseInfo) {
+        int status = responseInfo.statusCode();
+        return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.discarding(), x -> () -> {
+            throw new CompletionException(new APIException("Failed to fetch raw log content (Status code: " + status + ")", status));
+        });
+    }
+
+    /**
+     * A body subscriber that writes the body to a channel as it's received
+     */
+    private static final class ChannelSubscriber implements HttpResponse.BodySubscriber<@Nullable Void> {
+        private final WritableByteChannel channel;
+        private final CompletableFuture<@Nullable Void> result = new CompletableFuture<>();
+        private @Nullable Flow.Subscription subscription;
+
+        private ChannelSubscriber(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public CompletionStage<@Nullable Void> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            var subscription = Objects.requireNonNull(this.subscription);
+            try {
+                for (ByteBuffer item : items) {
+                    while (item.hasRemaining()) {
+                        channel.write(item);
+                    }
+                }
+            } catch (IOException e) {
+                subscription.cancel();
+                result.completeExceptionally(e);
+                return;
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(null);
+        }
+    }
+}
@@ -1,14 +1,25 @@
 package gs.mclo.api.internal;
 
 import com.google.gson.Gson;
+import gs.mclo.api.CompressionPolicy;
 import gs.mclo.api.Log;
-import gs.mclo.api.internal.request.UploadLogRequestBody;
+import gs.mclo.api.internal.request.UploadLogRequestEncoder;
+import gs.mclo.api.internal.request.UploadLogRequestWriter;
 import gs.mclo.api.internal.filter.FilterList;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
 
 public final class RequestBuilder {
 
@@ -21,6 +32,16 @@ public final class RequestBuilder {
 
     private @Nullable String customUserAgent = null;
 
+    private boolean streamUploads = false;
+
+    private @Nullable Executor filterExecutor = null;
+
+    private @Nullable Executor compressionExecutor = null;
+
+    private @Nullable Duration requestTimeout = null;
+
+    private CompressionPolicy compressionPolicy = new CompressionPolicy();
+
     public RequestBuilder(Gson gson) {
         this.gson = gson;
     }
@@ -71,6 +92,67 @@ public final class RequestBuilder {
         this.minecraftVersion = minecraftVersion;
     }
 
+    /**
+     * Set whether log contents should be streamed while uploading instead of being read into memory first.
+     *
+     * @param streamUploads whether to stream uploads
+     */
+    public void setStreamUploads(boolean streamUploads) {
+        this.streamUploads = streamUploads;
+    }
+
+    /**
+     * @return whether log contents are streamed while uploading
+     */
+    public boolean isStreamUploads() {
+        return streamUploads;
+    }
+
+    /**
+     * Set the executor regex filters are applied on in parallel
+     *
+     * @param filterExecutor the executor or null to apply filters sequentially
+     */
+    public void setFilterExecutor(@Nullable Executor filterExecutor) {
+        this.filterExecutor = filterExecutor;
+    }
+
+    /**
+     * Set the executor large uploads are compressed on in parallel
+     *
+     * @param compressionExecutor the executor or null to compress uploads on a single thread
+     */
+    public void setCompressionExecutor(@Nullable Executor compressionExecutor) {
+        this.compressionExecutor = compressionExecutor;
+    }
+
+    /**
+     * Set the timeout for each request
+     *
+     * @param requestTimeout the timeout or null to wait indefinitely
+     */
+    public void setRequestTimeout(@Nullable Duration requestTimeout) {
+        if (requestTimeout != null && (requestTimeout.isNegative() || requestTimeout.isZero()))
+            throw new IllegalArgumentException("Request timeout must be positive");
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * @return the policy for compressing uploaded logs
+     */
+    public CompressionPolicy getCompressionPolicy() {
+        return compressionPolicy;
+    }
+
+    /**
+     * Set the policy for compressing uploaded logs
+     *
+     * @param compressionPolicy the compression policy
+     */
+    public void setCompressionPolicy(CompressionPolicy compressionPolicy) {
+        this.compressionPolicy = Objects.requireNonNull(compressionPolicy);
+    }
+
     /**
      * @return the complete user agent
      */
@@ -90,25 +172,150 @@ public final class RequestBuilder {
 
 
     public HttpRequest.Builder request(String uri) {
-        return HttpRequest.newBuilder()
+        var builder = HttpRequest.newBuilder()
                 .uri(URI.create(uri))
                 .header("User-Agent", this.getUserAgent());
+        if (this.requestTimeout != null) {
+            builder.timeout(this.requestTimeout);
+        }
+        return builder;
     }
 
     public HttpRequest uploadRequest(String url, Log log, FilterList filters) throws IOException {
-        return request(url)
+        return uploadRequest(url, log, filters, readContent(log, filters));
+    }
+
+    /**
+     * Create an upload request
+     *
+     * @param url     the upload URL
+     * @param log     the log to upload
+     * @param filters the filters to apply
+     * @param content the filtered content returned by {@link #readContent(Log, FilterList)}
+     * @return the request
+     * @throws IOException if reading the log fails
+     */
+    public HttpRequest uploadRequest(String url, Log log, FilterList filters, @Nullable String content) throws IOException {
+        HttpRequest.BodyPublisher body;
+        int level;
+        if (content == null) {
+            level = compressionPolicy.getLevel(-1);
+            body = streamingUploadBody(log, filters, level);
+        } else {
+            byte[] bytes = UploadLogRequestEncoder.encode(gson, content, log.getSource(), log.getMetadata());
+            level = compressionPolicy.getLevel(bytes.length);
+            body = CustomBodyPublishers.ofBytes(bytes, level, compressionExecutor);
+        }
+
+        var builder = request(url)
                 .header("Content-Type", "application/json")
-                .header("Content-Encoding", "gzip")
-                .header("Accept", "application/json")
-                .POST(CustomBodyPublishers.ofGzipString(gson.toJson(
-                        new UploadLogRequestBody(log.getContent(filters),
-                                log.getSource(),
-                                log.getMetadata())))
-                )
-                .build();
+                .header("Accept", "application/json");
+        if (level != Deflater.NO_COMPRESSION) {
+            builder.header("Content-Encoding", "gzip");
+        }
+        return builder.POST(body).build();
+    }
+
+    /**
+     * Read the filtered content of a log into memory, unless uploads are streamed
+     *
+     * @param log     the log to read
+     * @param filters the filters to apply
+     * @return the filtered content or null if uploads are streamed
+     * @throws IOException if reading the log fails
+     */
+    public @Nullable String readContent(Log log, FilterList filters) throws IOException {
+        return streamUploads ? null : log.getContent(filters, filterExecutor);
+    }
+
+    /**
+     * Compute the key of an upload for the upload cache. If the content has not been read yet, the log is read and
+     * hashed without holding it in memory.
+     *
+     * @param url     the upload URL
+     * @param log     the log to upload
+     * @param filters the filters to apply
+     * @param content the filtered content returned by {@link #readContent(Log, FilterList)}
+     * @return the key
+     * @throws IOException if reading the log fails
+     */
+    public String uploadKey(String url, Log log, FilterList filters, @Nullable String content) throws IOException {
+        if (content != null) {
+            return UploadKey.of(gson, url, log.getSource(), log.getMetadata(), content);
+        }
+
+        try (var reader = log.openContent(filters, filterExecutor)) {
+            return UploadKey.of(gson, url, log.getSource(), log.getMetadata(), reader);
+        }
+    }
+
+    /**
+     * Release the resources the body of a request holds until it is sent, e.g. the reader of a streamed upload that
+     * was opened before the request. Must be called once the request completed, even if the HTTP client never read the
+     * body, e.g. because the connection failed.
+     *
+     * @param request the request
+     */
+    public static void release(HttpRequest request) {
+        request.bodyPublisher()
+                .filter(StreamingUploadBody.class::isInstance)
+                .ifPresent(body -> ((StreamingUploadBody) body).release());
+    }
+
+    private HttpRequest.BodyPublisher streamingUploadBody(Log log, FilterList filters, int level) throws IOException {
+        // Open the first reader immediately, so errors like missing files are reported before the request is sent.
+        // The HTTP client may subscribe to the body more than once (e.g. for redirects), in which case it is reopened.
+        var firstReader = new AtomicReference<@Nullable Reader>(log.openContent(filters, filterExecutor));
+        var source = log.getSource();
+        var metadata = log.getMetadata();
+        return new StreamingUploadBody(firstReader, CustomBodyPublishers.ofStream(() -> {
+            var reader = firstReader.getAndSet(null);
+            if (reader == null) {
+                try {
+                    reader = log.openContent(filters, filterExecutor);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return new UploadLogRequestWriter(gson, reader, source, metadata);
+        }, level));
     }
 
     public @Nullable String getProjectName() {
         return projectName;
     }
+
+    /**
+     * The body of a streamed upload. Closes the reader that was opened before the request if it was never used.
+     */
+    private static final class StreamingUploadBody implements HttpRequest.BodyPublisher {
+        private final AtomicReference<@Nullable Reader> firstReader;
+        private final HttpRequest.BodyPublisher publisher;
+
+        private StreamingUploadBody(AtomicReference<@Nullable Reader> firstReader, HttpRequest.BodyPublisher publisher) {
+            this.firstReader = firstReader;
+            this.publisher = publisher;
+        }
+
+        @Override
+        public long contentLength() {
+            return publisher.contentLength();
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            publisher.subscribe(subscriber);
+        }
+
+        private void release() {
+            var reader = firstReader.getAndSet(null);
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    // The reader was never read
+                }
+            }
+        }
+    }
 }
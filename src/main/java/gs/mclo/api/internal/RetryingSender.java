@@ -0,0 +1,126 @@
+package gs.mclo.api.internal;
+
+import gs.mclo.api.RetryPolicy;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sends requests with an optional rate limiter and retries them according to a {@link RetryPolicy}.
+ */
+public final class RetryingSender {
+    private final HttpClient httpClient;
+    private final RetryPolicy retryPolicy;
+    private final @Nullable RateLimiter rateLimiter;
+
+    /**
+     * @param httpClient  the HTTP client to send requests with
+     * @param retryPolicy the retry policy
+     * @param rateLimiter the rate limiter of the instance or null
+     */
+    public RetryingSender(HttpClient httpClient, RetryPolicy retryPolicy, @Nullable RateLimiter rateLimiter) {
+        this.httpClient = httpClient;
+        this.retryPolicy = retryPolicy;
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Send a request
+     *
+     * @param request     the request
+     * @param bodyHandler the body handler for the final response
+     * @param idempotent  whether sending the request multiple times has the same effect as sending it once
+     * @param <T>         response body type
+     * @return the response
+     */
+    public <T> CompletableFuture<HttpResponse<T>> send(HttpRequest request,
+                                                       HttpResponse.BodyHandler<T> bodyHandler,
+                                                       boolean idempotent) {
+        return attempt(request, bodyHandler, idempotent, 1);
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> attempt(HttpRequest request,
+                                                           HttpResponse.BodyHandler<T> bodyHandler,
+                                                           boolean idempotent,
+                                                           int retry) {
+        var permit = rateLimiter == null ? CompletableFuture.<Void>completedFuture(null) : rateLimiter.acquire();
+        // The delay before retrying the request or null if the response should be returned
+        var retryDelay = new AtomicReference<@Nullable Duration>();
+        HttpResponse.BodyHandler<T> handler = responseInfo -> {
+            var status = responseInfo.statusCode();
+            if (retryPolicy.shouldRetry(status, idempotent)) {
+                var retryAfter = parseRetryAfter(responseInfo.headers());
+                if (status == 429 && retryAfter != null && rateLimiter != null) {
+                    rateLimiter.pause(retryAfter);
+                }
+
+                var delay = retryPolicy.getDelay(retry, retryAfter);
+                if (delay != null) {
+                    retryDelay.set(delay);
+                    return HttpResponse.BodySubscribers.replacing(null);
+                }
+            }
+            return bodyHandler.apply(responseInfo);
+        };
+
+        return permit
+                .thenCompose(x -> httpClient.sendAsync(request, handler))
+                .handle((response, error) -> {
+                    Duration delay;
+                    if (error == null) {
+                        delay = retryDelay.get();
+                    } else {
+                        var cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                        delay = retryPolicy.shouldRetry(cause, idempotent) ? retryPolicy.getDelay(retry, null) : null;
+                    }
+
+                    if (delay == null) {
+                        return error == null ? CompletableFuture.completedFuture(response) : CompletableFuture.<HttpResponse<T>>failedFuture(error);
+                    }
+
+                    return CompletableFuture
+                            .runAsync(() -> {
+                            }, CompletableFuture.delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS))
+                            .thenCompose(x -> attempt(request, bodyHandler, idempotent, retry + 1));
+                })
+                .thenCompose(x -> x);
+    }
+
+    /**
+     * Parse the Retry-After header of a response
+     *
+     * @param headers response headers
+     * @return the requested delay or null if the header is missing or invalid
+     */
+    static @Nullable Duration parseRetryAfter(HttpHeaders headers) {
+        var value = headers.firstValue("Retry-After").orElse(null);
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException ignored) {
+        }
+
+        try {
+            var date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            var delay = Duration.between(Instant.now(), date);
+            return delay.isNegative() ? Duration.ZERO : delay;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package gs.mclo.api.internal;
+
+import com.google.gson.Gson;
+import gs.mclo.api.data.Metadata;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Computes the keys of the {@link gs.mclo.api.cache.UploadCache upload cache}.
+ * <p>
+ * A key is the SHA-256 hash of the upload URL, the source, the metadata and the filtered content of a log. The content
+ * is hashed while it's read, so it doesn't have to be held in memory. Metadata is hashed in a canonical order, so the
+ * order of the metadata set doesn't matter.
+ */
+public final class UploadKey {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final MessageDigest digest;
+    private final byte[] bytes = new byte[BUFFER_SIZE * 2];
+
+    private UploadKey(Gson gson, String url, @Nullable String source, Set<Metadata<?>> metadata) {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        field(url);
+        field(source == null ? "" : source);
+        var json = metadata.stream().map(gson::toJson).sorted().toArray(String[]::new);
+        length(json.length);
+        for (String value : json) {
+            field(value);
+        }
+    }
+
+    /**
+     * Compute the key of a log whose filtered content has already been read
+     *
+     * @param gson     the gson instance used to serialize the metadata
+     * @param url      the upload URL
+     * @param source   the source of the log
+     * @param metadata the metadata of the log
+     * @param content  the filtered content
+     * @return the key
+     */
+    public static String of(Gson gson, String url, @Nullable String source, Set<Metadata<?>> metadata, String content) {
+        var key = new UploadKey(gson, url, source, metadata);
+        key.update(content);
+        return key.finish();
+    }
+
+    /**
+     * Compute the key of a log by reading its filtered content
+     *
+     * @param gson     the gson instance used to serialize the metadata
+     * @param url      the upload URL
+     * @param source   the source of the log
+     * @param metadata the metadata of the log
+     * @param content  reader for the filtered content. Read to the end, but not closed.
+     * @return the key
+     * @throws IOException if reading the content fails
+     */
+    public static String of(Gson gson, String url, @Nullable String source, Set<Metadata<?>> metadata, Reader content) throws IOException {
+        var key = new UploadKey(gson, url, source, metadata);
+        char[] buffer = new char[BUFFER_SIZE];
+        int read;
+        while ((read = content.read(buffer)) != -1) {
+            key.update(buffer, read);
+        }
+        return key.finish();
+    }
+
+    private void update(String value) {
+        char[] buffer = new char[Math.min(value.length(), BUFFER_SIZE)];
+        for (int start = 0; start < value.length(); start += buffer.length) {
+            int end = Math.min(value.length(), start + buffer.length);
+            value.getChars(start, end, buffer, 0);
+            update(buffer, end - start);
+        }
+    }
+
+    /**
+     * Hash UTF-16 code units directly instead of encoding them, since the key is only compared to other keys
+     */
+    private void update(char[] chars, int length) {
+        for (int offset = 0; offset < length; offset += BUFFER_SIZE) {
+            int count = Math.min(BUFFER_SIZE, length - offset);
+            for (int i = 0; i < count; i++) {
+                char c = chars[offset + i];
+                bytes[2 * i] = (byte) (c >> 8);
+                bytes[2 * i + 1] = (byte) c;
+            }
+            digest.update(bytes, 0, count * 2);
+        }
+    }
+
+    /**
+     * Hash a value prefixed with its length, so the boundaries between values are unambiguous
+     */
+    private void field(String value) {
+        length(value.length());
+        update(value);
+    }
+
+    private void length(int length) {
+        digest.update(new byte[]{(byte) (length >> 24), (byte) (length >> 16), (byte) (length >> 8), (byte) length});
+    }
+
+    private String finish() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+    }
+}
@@ -0,0 +1,173 @@
+package gs.mclo.api.internal;
+
+/**
+ * Counts and limits the UTF-8 encoded length of text without encoding it.
+ * <p>
+ * Surrogate pairs are 4 bytes. Each surrogate is counted as 2 bytes, so a pair that is split across two buffers is
+ * still counted correctly. Unpaired surrogates are replaced with a single byte when they are encoded, so their length
+ * is overestimated. Limits never split a surrogate pair and keep 4 bytes for a high surrogate at the end of a buffer,
+ * because its low surrogate is expected at the start of the next one.
+ * <p>
+ * Runs of ASCII characters are skipped four chars at a time, which is the most common case for logs.
+ */
+public final class Utf8 {
+    private Utf8() {
+    }
+
+    /**
+     * Get the UTF-8 encoded length of a part of a char array
+     *
+     * @param chars the chars
+     * @param start index of the first char
+     * @param end   index after the last char
+     * @return the number of bytes
+     */
+    public static int length(char[] chars, int start, int end) {
+        int length = end - start;
+        int i = start;
+        for (; i <= end - 4; i += 4) {
+            char c0 = chars[i], c1 = chars[i + 1], c2 = chars[i + 2], c3 = chars[i + 3];
+            if ((c0 | c1 | c2 | c3) < 0x80) {
+                continue;
+            }
+            length += extraBytes(c0) + extraBytes(c1) + extraBytes(c2) + extraBytes(c3);
+        }
+        for (; i < end; i++) {
+            length += extraBytes(chars[i]);
+        }
+        return length;
+    }
+
+    /**
+     * Get the UTF-8 encoded length of a string
+     *
+     * @param string the string
+     * @return the number of bytes
+     */
+    public static int length(CharSequence string) {
+        int end = string.length();
+        int length = end;
+        int i = 0;
+        for (; i <= end - 4; i += 4) {
+            char c0 = string.charAt(i), c1 = string.charAt(i + 1), c2 = string.charAt(i + 2), c3 = string.charAt(i + 3);
+            if ((c0 | c1 | c2 | c3) < 0x80) {
+                continue;
+            }
+            length += extraBytes(c0) + extraBytes(c1) + extraBytes(c2) + extraBytes(c3);
+        }
+        for (; i < end; i++) {
+            length += extraBytes(string.charAt(i));
+        }
+        return length;
+    }
+
+    /**
+     * Get the UTF-8 encoded length of a code point
+     *
+     * @param codePoint the code point
+     * @return the number of bytes
+     */
+    public static int length(int codePoint) {
+        if (codePoint < 0x80) {
+            return 1;
+        }
+        if (codePoint < 0x800) {
+            return 2;
+        }
+        return codePoint < 0x10000 ? 3 : 4;
+    }
+
+    /**
+     * Find the end of the longest prefix of a part of a char array that fits into a byte limit
+     *
+     * @param chars    the chars
+     * @param start    index of the first char
+     * @param end      index after the last char
+     * @param maxBytes the maximum number of bytes
+     * @return the index after the last char that fits
+     */
+    public static int prefixEnd(char[] chars, int start, int end, int maxBytes) {
+        int bytes = 0;
+        int i = start;
+        while (i < end) {
+            if (i <= end - 4 && bytes <= maxBytes - 4 && (chars[i] | chars[i + 1] | chars[i + 2] | chars[i + 3]) < 0x80) {
+                bytes += 4;
+                i += 4;
+                continue;
+            }
+
+            char c = chars[i];
+            int size = size(c);
+            int count = 1;
+            if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars[i + 1])) {
+                count = 2;
+            }
+            if (bytes + size > maxBytes) {
+                break;
+            }
+            bytes += size;
+            i += count;
+        }
+        return i;
+    }
+
+    /**
+     * Get the length of the longest prefix of a string that fits into a byte limit
+     *
+     * @param string   the string
+     * @param maxBytes the maximum number of bytes
+     * @return the number of chars that fit
+     */
+    public static int prefixLength(CharSequence string, int maxBytes) {
+        int end = string.length();
+        int bytes = 0;
+        int i = 0;
+        while (i < end) {
+            if (i <= end - 4 && bytes <= maxBytes - 4
+                    && (string.charAt(i) | string.charAt(i + 1) | string.charAt(i + 2) | string.charAt(i + 3)) < 0x80) {
+                bytes += 4;
+                i += 4;
+                continue;
+            }
+
+            char c = string.charAt(i);
+            int size = size(c);
+            int count = 1;
+            if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(string.charAt(i + 1))) {
+                count = 2;
+            }
+            if (bytes + size > maxBytes) {
+                break;
+            }
+            bytes += size;
+            i += count;
+        }
+        return i;
+    }
+
+    /**
+     * @return the number of bytes needed for this char in addition to one byte
+     */
+    private static int extraBytes(char c) {
+        if (c < 0x80) {
+            return 0;
+        }
+        if (c < 0x800 || Character.isSurrogate(c)) {
+            return 1;
+        }
+        return 2;
+    }
+
+    /**
+     * @return the number of bytes needed to keep this char, including the low surrogate of a high surrogate
+     */
+    private static int size(char c) {
+        if (c < 0x80) {
+            return 1;
+        }
+        if (c < 0x800 || Character.isLowSurrogate(c)) {
+            return 2;
+        }
+        return Character.isHighSurrogate(c) ? 4 : 3;
+    }
+}
@@ -2,8 +2,51 @@ package gs.mclo.api.internal.filter;
 
 import org.jetbrains.annotations.ApiStatus;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @ApiStatus.NonExtendable
 public interface Filter {
     String getType();
-    String apply(String input);
+
+    /**
+     * Apply this filter to an entire log.
+     *
+     * @param input the log content
+     * @return the filtered content
+     */
+    default String apply(String input) {
+        List<String> lines = new ArrayList<>();
+        var consumer = stream(new LineConsumer() {
+            @Override
+            public boolean accept(String line) {
+                lines.add(line);
+                return true;
+            }
+
+            @Override
+            public void end() {
+            }
+        });
+
+        int start = 0;
+        while (true) {
+            int end = input.indexOf('\n', start);
+            if (!consumer.accept(input.substring(start, end == -1 ? input.length() : end)) || end == -1) {
+                break;
+            }
+            start = end + 1;
+        }
+        consumer.end();
+        return String.join("\n", lines);
+    }
+
+    /**
+     * Create a stage that applies this filter to a stream of lines and passes the result to the next consumer.
+     * Each call returns a new stage that can be used for a single log.
+     *
+     * @param next the consumer for the filtered lines
+     * @return the consumer for the unfiltered lines
+     */
+    LineConsumer stream(LineConsumer next);
 }
@@ -3,13 +3,26 @@ package gs.mclo.api.internal.filter;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.stream.Stream;
 
 public final class FilterList {
     private final Filter[] filters;
 
+    /**
+     * Filters with consecutive regex filters merged or null if they haven't been merged yet.
+     */
+    private volatile Filter @Nullable [] mergedFilters;
+
+    /**
+     * Optimized plan for logs that are read with the limits of this list or null if it hasn't been created yet.
+     */
+    private volatile @Nullable FilterPlan plan;
+
     @ApiStatus.Internal
     public FilterList(Filter[] filters) {
         this.filters = filters;
@@ -33,6 +46,69 @@ public final class FilterList {
         return filters;
     }
 
+    /**
+     * Get the filters in the order they should be applied, with consecutive regex filters merged into a single
+     * {@link RegexReplacer}, so inputs without matches are only scanned once where possible.
+     *
+     * @return the merged filters
+     */
+    public Filter[] getMergedFilters() {
+        var merged = this.mergedFilters;
+        if (merged == null) {
+            merged = mergeRegexFilters();
+            this.mergedFilters = merged;
+        }
+        return merged;
+    }
+
+    /**
+     * Compose all filters into a single pipeline that processes a log line by line.
+     *
+     * @param sink the consumer for the filtered lines
+     * @return the consumer for the unfiltered lines
+     */
+    public LineConsumer pipeline(LineConsumer sink) {
+        return pipeline(sink, null);
+    }
+
+    /**
+     * Compose all filters into a single pipeline that processes a log line by line.
+     *
+     * @param sink     the consumer for the filtered lines
+     * @param executor if not null, regex filters are applied to chunks of lines in parallel on this executor
+     * @return the consumer for the unfiltered lines
+     */
+    public LineConsumer pipeline(LineConsumer sink, @Nullable Executor executor) {
+        return compose(getMergedFilters(), sink, executor);
+    }
+
+    /**
+     * Get the optimized plan for applying these filters to a log that is read with their limits
+     *
+     * @return the plan
+     * @see FilterPlan
+     */
+    public FilterPlan getPlan() {
+        var plan = this.plan;
+        if (plan == null) {
+            plan = FilterPlan.of(this);
+            this.plan = plan;
+        }
+        return plan;
+    }
+
+    static LineConsumer compose(Filter[] stages, LineConsumer sink, @Nullable Executor executor) {
+        var consumer = sink;
+        for (int i = stages.length - 1; i >= 0; i--) {
+            if (executor != null && stages[i] instanceof RegexReplacer) {
+                consumer = new ParallelFilterStage(stages[i], consumer, executor);
+            } else {
+                consumer = stages[i].stream(consumer);
+            }
+        }
+        return consumer;
+    }
+
     public <T> Stream<T> getFilters(Class<T> filterClass) {
         return Arrays.stream(filters)
                 .filter(filterClass::isInstance)
@@ -42,4 +118,26 @@ public final class FilterList {
     public <T> Optional<T> getFilter(Class<T> filterClass) {
         return getFilters(filterClass).findFirst();
     }
+
+    private Filter[] mergeRegexFilters() {
+        List<Filter> result = new ArrayList<>();
+        List<RegexFilter> regexFilters = new ArrayList<>();
+        for (Filter filter : filters) {
+            if (filter instanceof RegexFilter) {
+                regexFilters.add((RegexFilter) filter);
+                continue;
+            }
+
+            if (!regexFilters.isEmpty()) {
+                result.add(RegexReplacer.of(regexFilters.toArray(RegexFilter[]::new)));
+                regexFilters.clear();
+            }
+            result.add(filter);
+        }
+
+        if (!regexFilters.isEmpty()) {
+            result.add(RegexReplacer.of(regexFilters.toArray(RegexFilter[]::new)));
+        }
+        return result.toArray(Filter[]::new);
+    }
 }
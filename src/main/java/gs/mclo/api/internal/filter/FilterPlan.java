@@ -0,0 +1,150 @@
+package gs.mclo.api.internal.filter;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * An optimized plan for applying the filters of a {@link FilterList} to a log that is read through a
+ * {@link gs.mclo.api.internal.LimitedReader LimitedReader}.
+ * <p>
+ * The smallest byte and line limits and the leading trim are pushed down into the reader. The remaining stages only
+ * contain the filters that can still change the log after that:
+ * <ul>
+ *     <li>Consecutive regex filters are merged into a single pass.</li>
+ *     <li>Line limits are removed unless a regex filter before them may have added lines, because one of its
+ *     replacements contains a line break. Consecutive line limits after such a filter are merged into the smallest
+ *     one.</li>
+ *     <li>Byte limits are removed unless a regex filter before them may have made lines longer. Consecutive byte
+ *     limits after a regex filter are merged into the smallest one.</li>
+ *     <li>Consecutive trim filters are merged. Trimming the end of the log still happens incrementally.</li>
+ * </ul>
+ * Plans are created once per filter list with {@link FilterList#getPlan()} and reused for every log.
+ */
+public final class FilterPlan {
+    private final @Nullable Integer maxBytes;
+    private final @Nullable Integer maxLines;
+    private final boolean trim;
+    private final Filter[] stages;
+    private final boolean lineBased;
+
+    private FilterPlan(@Nullable Integer maxBytes, @Nullable Integer maxLines, boolean trim, Filter[] stages) {
+        this.maxBytes = maxBytes;
+        this.maxLines = maxLines;
+        this.trim = trim;
+        this.stages = stages;
+        this.lineBased = Arrays.stream(stages)
+                .noneMatch(stage -> stage instanceof RegexReplacer && !((RegexReplacer) stage).isLineBased());
+    }
+
+    static FilterPlan of(FilterList filters) {
+        List<Filter> stages = new ArrayList<>();
+        // Whether a previous stage may have made lines longer
+        boolean transformed = false;
+        // Whether a previous stage may have added lines
+        boolean linesAdded = false;
+        for (Filter filter : filters.getMergedFilters()) {
+            var last = stages.isEmpty() ? null : stages.get(stages.size() - 1);
+            if (filter instanceof LimitLinesFilter) {
+                if (!linesAdded) {
+                    continue;
+                }
+                if (last instanceof LimitLinesFilter) {
+                    if (((LimitLinesFilter) filter).getLimit() < ((LimitLinesFilter) last).getLimit()) {
+                        stages.set(stages.size() - 1, filter);
+                    }
+                    continue;
+                }
+            } else if (filter instanceof LimitBytesFilter) {
+                if (!transformed) {
+                    continue;
+                }
+                if (last instanceof LimitBytesFilter) {
+                    if (((LimitBytesFilter) filter).getLimit() < ((LimitBytesFilter) last).getLimit()) {
+                        stages.set(stages.size() - 1, filter);
+                    }
+                    continue;
+                }
+            } else if (filter instanceof TrimFilter) {
+                if (last instanceof TrimFilter) {
+                    continue;
+                }
+            } else {
+                transformed = true;
+                if (!(filter instanceof RegexReplacer) || ((RegexReplacer) filter).addsLines()) {
+                    linesAdded = true;
+                }
+            }
+            stages.add(filter);
+        }
+
+        return new FilterPlan(filters.getMaxBytes(), filters.getMaxLines(),
+                filters.getFilter(TrimFilter.class).isPresent(), stages.toArray(Filter[]::new));
+    }
+
+    /**
+     * @return the byte limit that must be applied by the reader or null if there is none
+     */
+    public @Nullable Integer getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return the line limit that must be applied by the reader or null if there is none
+     */
+    public @Nullable Integer getMaxLines() {
+        return maxLines;
+    }
+
+    /**
+     * @return whether the reader must remove whitespace at the start of the log
+     */
+    public boolean isTrim() {
+        return trim;
+    }
+
+    /**
+     * @return the filters that are applied after the reader
+     */
+    public Filter[] getStages() {
+        return stages.clone();
+    }
+
+    /**
+     * Check whether applying the stages line by line has the same result as applying them to the entire log
+     *
+     * @return whether the stages can be applied line by line
+     * @see RegexReplacer#isLineBased()
+     */
+    public boolean isLineBased() {
+        return lineBased;
+    }
+
+    /**
+     * Apply the stages to the entire content of a log. The content must already be limited by the reader.
+     *
+     * @param content the limited content
+     * @return the filtered content
+     */
+    public String apply(String content) {
+        for (Filter stage : stages) {
+            content = stage.apply(content);
+        }
+        return content;
+    }
+
+    /**
+     * Compose the stages into a pipeline that processes a log line by line. The input must already be limited by the
+     * reader.
+     *
+     * @param sink     the consumer for the filtered lines
+     * @param executor if not null, regex filters are applied to chunks of lines in parallel on this executor
+     * @return the consumer for the limited lines
+     */
+    public LineConsumer pipeline(LineConsumer sink, @Nullable Executor executor) {
+        return FilterList.compose(stages, sink, executor);
+    }
+}
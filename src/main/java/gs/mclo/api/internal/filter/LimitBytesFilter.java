@@ -1,7 +1,11 @@
 package gs.mclo.api.internal.filter;
 
+import gs.mclo.api.internal.Utf8;
 import org.jetbrains.annotations.ApiStatus;
 
+/**
+ * Cuts the log after a number of UTF-8 encoded bytes without splitting a character
+ */
 public final class LimitBytesFilter implements Filter {
     private final int limit;
 
@@ -21,6 +25,41 @@ public final class LimitBytesFilter implements Filter {
 
     @Override
     public String apply(String input) {
-        return input.substring(0, Math.min(input.length(), limit));
+        return input.substring(0, Utf8.prefixLength(input, limit));
+    }
+
+    @Override
+    public LineConsumer stream(LineConsumer next) {
+        return new LineConsumer() {
+            private int remaining = limit;
+            private boolean first = true;
+
+            @Override
+            public boolean accept(String line) {
+                if (!first) {
+                    // The line break before this line
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining--;
+                }
+                first = false;
+
+                int length = Utf8.length(line);
+                if (length > remaining) {
+                    next.accept(line.substring(0, Utf8.prefixLength(line, Math.max(remaining, 0))));
+                    remaining = 0;
+                    return false;
+                }
+
+                remaining -= length;
+                return next.accept(line);
+            }
+
+            @Override
+            public void end() {
+                next.end();
+            }
+        };
     }
 }
@@ -21,14 +21,39 @@ public final class LimitLinesFilter implements Filter {
 
     @Override
     public String apply(String input) {
-        String[] lines = input.split("\n", -1);
-        StringBuilder result = new StringBuilder();
-        for (int i = 0; i < Math.min(lines.length, limit); i++) {
-            result.append(lines[i]);
-            if (i < Math.min(lines.length, limit) - 1) {
-                result.append("\n");
+        if (limit <= 0) {
+            return "";
+        }
+
+        int end = -1;
+        for (int i = 0; i < limit; i++) {
+            end = input.indexOf('\n', end + 1);
+            if (end == -1) {
+                return input;
             }
         }
-        return result.toString();
+        return input.substring(0, end);
+    }
+
+    @Override
+    public LineConsumer stream(LineConsumer next) {
+        return new LineConsumer() {
+            private int remaining = limit;
+
+            @Override
+            public boolean accept(String line) {
+                if (remaining <= 0) {
+                    return false;
+                }
+
+                remaining--;
+                return next.accept(line) && remaining > 0;
+            }
+
+            @Override
+            public void end() {
+                next.end();
+            }
+        };
     }
 }
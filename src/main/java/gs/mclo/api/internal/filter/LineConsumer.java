@@ -0,0 +1,20 @@
+package gs.mclo.api.internal.filter;
+
+/**
+ * Receives the lines of a log one at a time. Lines are passed without the line break, so the content of a log is the
+ * lines joined with {@code \n}.
+ */
+public interface LineConsumer {
+    /**
+     * Accept the next line
+     *
+     * @param line the line without the line break
+     * @return false if no further lines should be passed to this consumer
+     */
+    boolean accept(String line);
+
+    /**
+     * Called once after the last line has been passed to this consumer
+     */
+    void end();
+}
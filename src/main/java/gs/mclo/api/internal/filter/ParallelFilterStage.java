@@ -0,0 +1,153 @@
+package gs.mclo.api.internal.filter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A pipeline stage that applies a stateless line filter to chunks of lines in parallel.
+ * <p>
+ * Lines are collected into chunks which are filtered on an executor. The results are passed to the next consumer in
+ * their original order, so the output is identical to applying the filter sequentially. The number of chunks that are
+ * processed at the same time is limited to keep memory usage bounded.
+ * <p>
+ * The calling thread filters the next chunk itself if no thread of the executor has started it yet, so it never waits
+ * for tasks that are still queued on a busy executor (e.g. the executor the calling thread belongs to). If filtering a
+ * chunk fails, the failure is thrown as an {@link UncheckedIOException}.
+ */
+final class ParallelFilterStage implements LineConsumer {
+    /**
+     * Approximate number of characters per chunk
+     */
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private final Filter filter;
+    private final LineConsumer next;
+    private final Executor executor;
+    private final int maxChunksInFlight;
+    private final ArrayDeque<Chunk> pending = new ArrayDeque<>();
+    private final List<String> chunk = new ArrayList<>();
+    private int chunkSize = 0;
+    /**
+     * Whether the next consumer doesn't accept any more lines
+     */
+    private boolean done = false;
+
+    /**
+     * @param filter   a filter that can be applied to every line independently
+     * @param next     the consumer for the filtered lines
+     * @param executor the executor to filter chunks on
+     */
+    ParallelFilterStage(Filter filter, LineConsumer next, Executor executor) {
+        this.filter = filter;
+        this.next = next;
+        this.executor = executor;
+        this.maxChunksInFlight = Runtime.getRuntime().availableProcessors() + 1;
+    }
+
+    @Override
+    public boolean accept(String line) {
+        chunk.add(line);
+        chunkSize += line.length() + 1;
+        if (chunkSize >= CHUNK_SIZE) {
+            submitChunk();
+        }
+        return !done;
+    }
+
+    @Override
+    public void end() {
+        if (!chunk.isEmpty()) {
+            submitChunk();
+        }
+
+        while (!done && !pending.isEmpty()) {
+            forward(pending.poll());
+        }
+        pending.clear();
+        next.end();
+    }
+
+    private void submitChunk() {
+        var task = new Chunk(chunk.toArray(String[]::new));
+        chunk.clear();
+        chunkSize = 0;
+
+        pending.add(task);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // The chunk is filtered by the calling thread
+        }
+
+        while (!done && pending.size() > maxChunksInFlight) {
+            forward(pending.poll());
+        }
+    }
+
+    private void forward(Chunk chunk) {
+        String[] lines;
+        chunk.run();
+        try {
+            lines = chunk.result.join();
+        } catch (CompletionException e) {
+            cancel();
+            throw new UncheckedIOException(new IOException("Failed to apply filter", e.getCause()));
+        }
+
+        for (String line : lines) {
+            if (!next.accept(line)) {
+                done = true;
+                cancel();
+                return;
+            }
+        }
+    }
+
+    private void cancel() {
+        pending.forEach(Chunk::cancel);
+        pending.clear();
+    }
+
+    /**
+     * A chunk of lines that is filtered by whichever thread starts it first
+     */
+    private final class Chunk implements Runnable {
+        private final String[] lines;
+        private final CompletableFuture<String[]> result = new CompletableFuture<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        private Chunk(String[] lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+
+            try {
+                for (int i = 0; i < lines.length; i++) {
+                    lines[i] = filter.apply(lines[i]);
+                }
+                result.complete(lines);
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }
+
+        private void cancel() {
+            if (started.compareAndSet(false, true)) {
+                result.cancel(false);
+            }
+        }
+    }
+}
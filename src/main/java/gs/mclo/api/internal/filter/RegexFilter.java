@@ -1,13 +1,26 @@
 package gs.mclo.api.internal.filter;
 
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.regex.Matcher;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.regex.Pattern;
 
 public final class RegexFilter implements Filter {
     private final ReplacingRegexPattern[] patterns;
     private final RegexPattern[] exemptions;
 
+    /**
+     * Compiled exemptions without invalid patterns or null if they haven't been compiled yet.
+     */
+    private transient volatile Pattern @Nullable [] compiledExemptions;
+
+    /**
+     * Replacer for all patterns of this filter or null if it hasn't been created yet.
+     */
+    private transient volatile @Nullable RegexReplacer replacer;
+
     @ApiStatus.Internal
     public RegexFilter(ReplacingRegexPattern[] patterns, RegexPattern[] exemptions) {
         this.patterns = patterns;
@@ -19,38 +32,46 @@ public final class RegexFilter implements Filter {
         return "regex";
     }
 
+    /**
+     * Compile all patterns and exemptions, so they don't have to be compiled when the filter is first applied.
+     */
+    public void compile() {
+        getReplacer();
+    }
+
     @Override
     public String apply(String input) {
-        for (var pattern : patterns) {
-            var compiled = pattern.tryParse();
-            if (compiled.isEmpty()) {
-                // Skip patterns that failed to compile.
-                continue;
-            }
-            var matcher = compiled.get().matcher(input);
-            var result = new StringBuilder();
-            while (matcher.find()) {
-                boolean isExempted = false;
-                if (exemptions != null) {
-                    for (var exemption : exemptions) {
-                        var exemptionCompiled = exemption.tryParse();
-                        if (exemptionCompiled.isEmpty()) {
-                            continue;
-                        }
-                        var exemptionMatcher = exemptionCompiled.get().matcher(matcher.group());
-                        if (exemptionMatcher.matches()) {
-                            isExempted = true;
-                            break;
-                        }
-                    }
-                }
-
-                String replacement = isExempted ? matcher.group() : pattern.getReplacement();
-                matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
-            }
-            matcher.appendTail(result);
-            input = result.toString();
+        return getReplacer().apply(input);
+    }
+
+    @Override
+    public LineConsumer stream(LineConsumer next) {
+        return getReplacer().stream(next);
+    }
+
+    ReplacingRegexPattern[] getPatterns() {
+        return patterns;
+    }
+
+    Pattern[] getExemptionPatterns() {
+        var compiled = this.compiledExemptions;
+        if (compiled == null) {
+            //noinspection ConstantValue
+            compiled = exemptions == null ? new Pattern[0] : Arrays.stream(exemptions)
+                    .map(RegexPattern::tryParse)
+                    .flatMap(Optional::stream)
+                    .toArray(Pattern[]::new);
+            this.compiledExemptions = compiled;
+        }
+        return compiled;
+    }
+
+    private RegexReplacer getReplacer() {
+        var replacer = this.replacer;
+        if (replacer == null) {
+            replacer = RegexReplacer.of(this);
+            this.replacer = replacer;
         }
-        return input;
+        return replacer;
     }
 }
@@ -1,5 +1,7 @@
 package gs.mclo.api.internal.filter;
 
+import org.jetbrains.annotations.Nullable;
+
 import java.util.Optional;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -8,16 +10,37 @@ public class RegexPattern {
     private final String pattern;
     private final char[] modifiers;
 
+    /**
+     * The compiled pattern, an empty optional if the pattern is invalid or null if it hasn't been compiled yet.
+     * This field is transient, so it is not touched by Gson and compiled lazily after deserialization.
+     */
+    private transient volatile @Nullable Optional<Pattern> compiled;
+
     public RegexPattern(String pattern, char[] modifiers) {
         this.pattern = pattern;
         this.modifiers = modifiers;
     }
 
     /**
-     * Parses the pattern with the given modifiers.
+     * Get the pattern compiled with the given modifiers. The pattern is only compiled once, invalid patterns are
+     * remembered as such.
      * @return The compiled pattern or an empty optional if the pattern is invalid.
      */
     public Optional<Pattern> tryParse() {
+        var compiled = this.compiled;
+        if (compiled == null) {
+            // Compiling the same pattern concurrently is harmless, all threads get an equivalent result.
+            compiled = compile();
+            this.compiled = compiled;
+        }
+        return compiled;
+    }
+
+    /**
+     * Compiles the pattern with the given modifiers.
+     * @return The compiled pattern or an empty optional if the pattern is invalid.
+     */
+    private Optional<Pattern> compile() {
         int flags = 0;
         if (modifiers != null) {
             for (char modifier : modifiers) {
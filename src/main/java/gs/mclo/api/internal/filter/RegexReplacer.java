@@ -0,0 +1,352 @@
+package gs.mclo.api.internal.filter;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Applies the replacing patterns of one or more regex filters.
+ * <p>
+ * Patterns are applied one after another, so each pattern sees the replacements of the patterns before it. Consecutive
+ * patterns are additionally combined into a single alternation that is used to check whether any of them matches the
+ * input. Most inputs (e.g. log lines) don't contain anything that has to be replaced, so they are only scanned once
+ * for all patterns and returned without applying the patterns one by one. The alternation is never used to replace
+ * matches, because patterns can overlap, match each other's replacements or be exempted, which would change the result.
+ * Patterns that can not be combined (e.g. because they use backreferences) get their own check.
+ */
+public final class RegexReplacer implements Filter {
+    /**
+     * Escapes of character classes, anchors and characters that can match a line break or depend on the start or end
+     * of the input. Octal, hex, unicode, control and tab escapes are included, because they could be the lower bound
+     * of a range that includes {@code \n}.
+     */
+    private static final String MULTI_LINE_ESCAPES = "svhHRWDXpPnrtaxu0cNAzZGQ";
+    /**
+     * Inline flags that change how line breaks are matched
+     */
+    private static final String MULTI_LINE_FLAGS = "msdx";
+
+    private final Stage[] stages;
+    private final boolean lineBased;
+    private final boolean addsLines;
+
+    private RegexReplacer(Stage[] stages, boolean lineBased, boolean addsLines) {
+        this.stages = stages;
+        this.lineBased = lineBased;
+        this.addsLines = addsLines;
+    }
+
+    /**
+     * Create a replacer for the patterns of the given regex filters. Invalid patterns are skipped.
+     *
+     * @param filters the regex filters in the order they should be applied
+     * @return the replacer
+     */
+    @ApiStatus.Internal
+    public static RegexReplacer of(RegexFilter... filters) {
+        List<Entry> entries = new ArrayList<>();
+        for (RegexFilter filter : filters) {
+            Pattern[] exemptions = filter.getExemptionPatterns();
+            for (ReplacingRegexPattern pattern : filter.getPatterns()) {
+                pattern.tryParse().ifPresent(compiled -> entries.add(new Entry(compiled, pattern.getReplacement(), exemptions)));
+            }
+        }
+
+        List<Stage> stages = new ArrayList<>();
+        List<Entry> combinable = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (isCombinable(entry.pattern)) {
+                combinable.add(entry);
+                continue;
+            }
+
+            stages.addAll(createStages(combinable));
+            combinable.clear();
+            stages.add(new Stage(null, new Entry[]{entry}));
+        }
+        stages.addAll(createStages(combinable));
+        return new RegexReplacer(stages.toArray(Stage[]::new),
+                entries.stream().allMatch(entry -> isLineBased(entry.pattern)),
+                entries.stream().anyMatch(entry -> entry.replacement.indexOf('\n') != -1));
+    }
+
+    @Override
+    public String getType() {
+        return "regex";
+    }
+
+    @Override
+    public String apply(String input) {
+        for (Stage stage : stages) {
+            input = stage.apply(input);
+        }
+        return input;
+    }
+
+    @Override
+    public LineConsumer stream(LineConsumer next) {
+        return new LineConsumer() {
+            @Override
+            public boolean accept(String line) {
+                return next.accept(apply(line));
+            }
+
+            @Override
+            public void end() {
+                next.end();
+            }
+        };
+    }
+
+    /**
+     * Get the number of passes over an input that none of the patterns match
+     *
+     * @return number of passes
+     */
+    public int getPassCount() {
+        return stages.length;
+    }
+
+    /**
+     * Check whether applying the patterns to each line of a log separately has the same result as applying them to the
+     * entire log. This is only the case if no pattern can match a line break or depends on the start or end of the
+     * input, e.g. because it uses the {@code m} or {@code s} modifier, {@code \s} or a negated character class.
+     * The check is conservative, so some patterns that never match a line break are still not line based.
+     *
+     * @return whether the patterns can be applied line by line
+     */
+    public boolean isLineBased() {
+        return lineBased;
+    }
+
+    /**
+     * Check whether applying the patterns can add lines to a log, i.e. whether a replacement contains a line break.
+     * Replacements are inserted literally, so matches can't be copied into them.
+     *
+     * @return whether the patterns can add lines
+     */
+    public boolean addsLines() {
+        return addsLines;
+    }
+
+    /**
+     * Check whether a pattern can be part of a combined alternation. Backreferences would refer to the wrong groups
+     * once the pattern is embedded into a larger pattern.
+     *
+     * @param pattern the pattern to check
+     * @return whether the pattern can be combined with other patterns
+     */
+    private static boolean isCombinable(Pattern pattern) {
+        String source = pattern.pattern();
+        for (int i = 0; i < source.length() - 1; i++) {
+            if (source.charAt(i) != '\\') {
+                continue;
+            }
+
+            char next = source.charAt(i + 1);
+            if ((next >= '1' && next <= '9') || next == 'k') {
+                return false;
+            }
+            // Skip the escaped character
+            i++;
+        }
+        return !source.contains("\\Q");
+    }
+
+    /**
+     * Check whether a pattern has the same matches in each line as in the entire input
+     *
+     * @param pattern the pattern to check
+     * @return whether the pattern can be applied line by line
+     * @see #isLineBased()
+     */
+    private static boolean isLineBased(Pattern pattern) {
+        if ((pattern.flags() & (Pattern.MULTILINE | Pattern.DOTALL | Pattern.UNIX_LINES | Pattern.COMMENTS)) != 0) {
+            return false;
+        }
+
+        String source = pattern.pattern();
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (c < ' ' || c == '^' || c == '$') {
+                return false;
+            }
+
+            if (c == '\\' && i + 1 < source.length()) {
+                if (MULTI_LINE_ESCAPES.indexOf(source.charAt(i + 1)) != -1) {
+                    return false;
+                }
+                // Skip the escaped character
+                i++;
+            } else if (c == '(' && i + 1 < source.length() && source.charAt(i + 1) == '?') {
+                for (int j = i + 2; j < source.length() && Character.isLetter(source.charAt(j)); j++) {
+                    if (MULTI_LINE_FLAGS.indexOf(source.charAt(j)) != -1) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Create the stages for a list of combinable patterns. Usually this is a single stage, but if the combined pattern
+     * can not be compiled (e.g. because of duplicate group names), each pattern gets its own stage.
+     *
+     * @param entries the entries to combine
+     * @return the stages
+     */
+    private static List<Stage> createStages(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+
+        if (entries.size() == 1) {
+            return List.of(new Stage(null, new Entry[]{entries.get(0)}));
+        }
+
+        StringBuilder combined = new StringBuilder();
+        for (int i = 0; i < entries.size(); i++) {
+            Pattern pattern = entries.get(i).pattern;
+            if (i > 0) {
+                combined.append('|');
+            }
+            combined.append(inlineFlags(pattern.flags())).append(pattern.pattern()).append(')');
+        }
+
+        try {
+            return List.of(new Stage(Pattern.compile(combined.toString()), entries.toArray(Entry[]::new)));
+        } catch (PatternSyntaxException e) {
+            List<Stage> stages = new ArrayList<>();
+            for (Entry entry : entries) {
+                stages.add(new Stage(null, new Entry[]{entry}));
+            }
+            return stages;
+        }
+    }
+
+    /**
+     * Get the opening of a non-capturing group that applies the given flags
+     *
+     * @param flags pattern flags
+     * @return the group opening, e.g. {@code (?i:}
+     */
+    private static String inlineFlags(int flags) {
+        StringBuilder result = new StringBuilder("(?");
+        if ((flags & Pattern.CASE_INSENSITIVE) != 0) {
+            result.append('i');
+        }
+        if ((flags & Pattern.MULTILINE) != 0) {
+            result.append('m');
+        }
+        if ((flags & Pattern.DOTALL) != 0) {
+            result.append('s');
+        }
+        if ((flags & Pattern.UNICODE_CASE) != 0) {
+            result.append('u');
+        }
+        return result.append(':').toString();
+    }
+
+    /**
+     * A single replacing pattern with the exemptions of its filter
+     */
+    private static final class Entry {
+        private final Pattern pattern;
+        private final String replacement;
+        private final Pattern[] exemptions;
+
+        private Entry(Pattern pattern, String replacement, Pattern[] exemptions) {
+            this.pattern = pattern;
+            this.replacement = replacement;
+            this.exemptions = exemptions;
+        }
+
+        private String apply(String input) {
+            Matcher matcher = pattern.matcher(input);
+            if (!matcher.find()) {
+                return input;
+            }
+
+            // Matchers are not thread safe, so they are created for each call and reused for all matches.
+            Matcher @Nullable [] exemptionMatchers = null;
+            StringBuilder result = new StringBuilder(input.length());
+            int last = 0;
+            do {
+                int start = matcher.start();
+                int end = matcher.end();
+                result.append(input, last, start);
+
+                if (exemptionMatchers == null) {
+                    exemptionMatchers = createMatchers(exemptions, input);
+                }
+
+                if (isExempted(exemptionMatchers, start, end)) {
+                    result.append(input, start, end);
+                } else {
+                    result.append(replacement);
+                }
+                last = end;
+            } while (matcher.find());
+            result.append(input, last, input.length());
+            return result.toString();
+        }
+
+        private static Matcher[] createMatchers(Pattern[] patterns, String input) {
+            Matcher[] matchers = new Matcher[patterns.length];
+            for (int i = 0; i < patterns.length; i++) {
+                matchers[i] = patterns[i].matcher(input);
+            }
+            return matchers;
+        }
+
+        /**
+         * Check if the match in the given region is exempted from replacement
+         *
+         * @param exemptionMatchers matchers for the exemptions on the current input
+         * @param start             start of the match
+         * @param end               end of the match
+         * @return whether the entire match is matched by one of the exemptions
+         */
+        private static boolean isExempted(Matcher[] exemptionMatchers, int start, int end) {
+            for (Matcher exemptionMatcher : exemptionMatchers) {
+                if (exemptionMatcher.region(start, end).matches()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A single pass over the input
+     */
+    private static final class Stage {
+        /**
+         * Alternation of all patterns of this stage or null if there's only a single pattern
+         */
+        private final @Nullable Pattern combined;
+        private final Entry[] entries;
+
+        private Stage(@Nullable Pattern combined, Entry[] entries) {
+            this.combined = combined;
+            this.entries = entries;
+        }
+
+        private String apply(String input) {
+            if (combined != null && !combined.matcher(input).find()) {
+                return input;
+            }
+
+            for (Entry entry : entries) {
+                input = entry.apply(input);
+            }
+            return input;
+        }
+    }
+}
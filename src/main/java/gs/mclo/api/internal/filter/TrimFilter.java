@@ -1,5 +1,8 @@
 package gs.mclo.api.internal.filter;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public final class TrimFilter implements Filter {
     @Override
     public String getType() {
@@ -10,4 +13,82 @@ public final class TrimFilter implements Filter {
     public String apply(String input) {
         return input.trim();
     }
+
+    @Override
+    public LineConsumer stream(LineConsumer next) {
+        return new LineConsumer() {
+            /**
+             * Whether a line with content has been found yet
+             */
+            private boolean started = false;
+            /**
+             * The last line with content, which might still need to be trimmed at the end
+             */
+            private String last = "";
+            /**
+             * Blank lines after the last line with content
+             */
+            private final List<String> blankLines = new ArrayList<>();
+            /**
+             * Whether the next consumer doesn't accept any more lines
+             */
+            private boolean done = false;
+
+            @Override
+            public boolean accept(String line) {
+                if (trimmedLength(line) == 0) {
+                    if (started) {
+                        blankLines.add(line);
+                    }
+                    return true;
+                }
+
+                if (!started) {
+                    started = true;
+                    int start = 0;
+                    while (line.charAt(start) <= ' ') {
+                        start++;
+                    }
+                    last = line.substring(start);
+                    return true;
+                }
+
+                if (!next.accept(last)) {
+                    done = true;
+                    return false;
+                }
+                for (String blankLine : blankLines) {
+                    if (!next.accept(blankLine)) {
+                        done = true;
+                        return false;
+                    }
+                }
+                blankLines.clear();
+                last = line;
+                return true;
+            }
+
+            @Override
+            public void end() {
+                if (!done) {
+                    next.accept(last.substring(0, trimmedLength(last)));
+                }
+                next.end();
+            }
+        };
+    }
+
+    /**
+     * Get the length of a line without trailing whitespace
+     *
+     * @param line the line
+     * @return the length without trailing whitespace
+     */
+    private static int trimmedLength(String line) {
+        int end = line.length();
+        while (end > 0 && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
 }
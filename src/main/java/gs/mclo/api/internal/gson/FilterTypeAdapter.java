@@ -27,9 +27,9 @@ public class FilterTypeAdapter extends TypeAdapter<Filter> {
     @Override
     public void write(JsonWriter out, Filter value) throws IOException {
         out.beginObject();
-        out.value("type");
+        out.name("type");
         out.value(value.getType());
-        out.value("data");
+        out.name("data");
         JsonElement dataElement = gson.toJsonTree(value);
         gson.toJson(dataElement, out);
         out.endObject();
@@ -60,6 +60,11 @@ public class FilterTypeAdapter extends TypeAdapter<Filter> {
             throw new IOException("Unknown filter type: " + type);
         }
 
-        return gson.fromJson(dataElement, filterClass);
+        Filter filter = gson.fromJson(dataElement, filterClass);
+        if (filter instanceof RegexFilter) {
+            // Compile the patterns once here instead of every time the filter is applied
+            ((RegexFilter) filter).compile();
+        }
+        return filter;
     }
 }
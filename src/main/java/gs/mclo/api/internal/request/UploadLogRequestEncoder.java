@@ -0,0 +1,71 @@
+package gs.mclo.api.internal.request;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import gs.mclo.api.data.Metadata;
+import gs.mclo.api.internal.JsonStringEscaper;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * Encodes the same JSON as {@link UploadLogRequestBody} as UTF-8 bytes.
+ * <p>
+ * The log content is escaped and encoded straight into the resulting array, which is allocated with its exact size,
+ * instead of escaping it into a string first and encoding that string afterward. The source and the metadata are
+ * small, so they are serialized with Gson.
+ */
+@ApiStatus.Internal
+public final class UploadLogRequestEncoder {
+    private static final Type METADATA_TYPE = new TypeToken<Set<Metadata<?>>>() {
+    }.getType();
+    private static final byte[] CONTENT_START = "{\"content\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SOURCE_START = "\",\"source\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] METADATA_START = ",\"metadata\":".getBytes(StandardCharsets.US_ASCII);
+
+    private UploadLogRequestEncoder() {
+    }
+
+    /**
+     * Encode an upload request body
+     *
+     * @param gson     the Gson instance to serialize the source and the metadata with
+     * @param content  the log content
+     * @param source   the source of the log or null
+     * @param metadata the metadata of the log
+     * @return the JSON body as UTF-8
+     */
+    public static byte[] encode(Gson gson, String content, @Nullable String source, Set<Metadata<?>> metadata) {
+        var escaper = new JsonStringEscaper(gson.htmlSafe());
+        byte[] sourceJson = source == null ? null : gson.toJson(source).getBytes(StandardCharsets.UTF_8);
+        byte[] metadataJson = gson.toJson(metadata, METADATA_TYPE).getBytes(StandardCharsets.UTF_8);
+
+        long length = CONTENT_START.length + escaper.utf8Length(content)
+                + (sourceJson == null ? 1 : SOURCE_START.length + sourceJson.length)
+                + METADATA_START.length + metadataJson.length + 1;
+        if (length > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Log is too large to be uploaded without streaming");
+
+        byte[] out = new byte[(int) length];
+        int position = put(CONTENT_START, out, 0);
+        position = escaper.escapeUtf8(content, out, position);
+        if (sourceJson != null) {
+            position = put(SOURCE_START, out, position);
+            position = put(sourceJson, out, position);
+        } else {
+            out[position++] = '"';
+        }
+        position = put(METADATA_START, out, position);
+        position = put(metadataJson, out, position);
+        out[position] = '}';
+        return out;
+    }
+
+    private static int put(byte[] bytes, byte[] out, int position) {
+        System.arraycopy(bytes, 0, out, position, bytes.length);
+        return position + bytes.length;
+    }
+}
@@ -0,0 +1,71 @@
+package gs.mclo.api.internal.request;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import gs.mclo.api.data.Metadata;
+import gs.mclo.api.internal.CustomBodyPublishers;
+import gs.mclo.api.internal.JsonStringEscaper;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.util.Set;
+
+/**
+ * Writes the same JSON as {@link UploadLogRequestBody} in chunks, streaming the log content from a reader.
+ */
+@ApiStatus.Internal
+public final class UploadLogRequestWriter implements CustomBodyPublishers.ChunkWriter {
+    private static final Type METADATA_TYPE = new TypeToken<Set<Metadata<?>>>() {
+    }.getType();
+    private static final int CHUNK_SIZE = 8192;
+
+    private final Gson gson;
+    private final Reader content;
+    private final @Nullable String source;
+    private final Set<Metadata<?>> metadata;
+    private final JsonStringEscaper escaper;
+    private final char[] buffer = new char[CHUNK_SIZE];
+    private boolean started = false;
+
+    public UploadLogRequestWriter(Gson gson, Reader content, @Nullable String source, Set<Metadata<?>> metadata) {
+        this.gson = gson;
+        this.content = content;
+        this.source = source;
+        this.metadata = metadata;
+        this.escaper = new JsonStringEscaper(gson.htmlSafe());
+    }
+
+    @Override
+    public boolean writeNext(Writer out) throws IOException {
+        if (!started) {
+            started = true;
+            out.write("{\"content\":\"");
+            return true;
+        }
+
+        int read = content.read(buffer, 0, buffer.length);
+        if (read != -1) {
+            escaper.escape(buffer, 0, read, out);
+            return true;
+        }
+
+        out.write('"');
+        if (source != null) {
+            out.write(",\"source\":");
+            gson.toJson(source, out);
+        }
+        out.write(",\"metadata\":");
+        gson.toJson(metadata, METADATA_TYPE, out);
+        out.write('}');
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        content.close();
+    }
+}
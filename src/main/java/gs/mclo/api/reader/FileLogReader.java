@@ -1,11 +1,19 @@
 package gs.mclo.api.reader;
 
+import gs.mclo.api.internal.GzipFileInputStream;
+import gs.mclo.api.internal.LogExcerpt;
+import gs.mclo.api.internal.MappedFileReader;
+import org.jetbrains.annotations.Nullable;
+
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 import java.util.regex.Pattern;
-import java.util.zip.GZIPInputStream;
 
 public final class FileLogReader extends LogReader {
     /**
@@ -18,15 +26,81 @@ public final class FileLogReader extends LogReader {
     public static final Pattern ALLOWED_FILE_NAME_PATTERN = Pattern.compile(".*\\.(log|txt)(\\.\\d+){0,2}(\\.gz)?");
 
     private final Path path;
+    private final boolean memoryMapped;
+    private @Nullable Executor decompressionExecutor = null;
 
     public FileLogReader(Path path) {
+        this(path, false);
+    }
+
+    /**
+     * Create a new file log reader
+     *
+     * @param path         path to the log file
+     * @param memoryMapped whether to memory map uncompressed log files. Only the part of the file that is kept after
+     *                     applying the limits is read and decoded. On some operating systems (e.g. Windows) the file
+     *                     can't be deleted or renamed until the mapping is garbage collected.
+     */
+    public FileLogReader(Path path, boolean memoryMapped) {
         super();
         this.path = Objects.requireNonNull(path, "Path must not be null");
+        this.memoryMapped = memoryMapped;
+    }
+
+    /**
+     * Set an executor to decompress gzip files that consist of multiple concatenated members in parallel.
+     * Members that follow the one that is currently read are decompressed ahead of time and held in memory.
+     *
+     * @param executor the executor or null to decompress the file on the reading thread (default)
+     * @return this
+     */
+    public FileLogReader setDecompressionExecutor(@Nullable Executor executor) {
+        this.decompressionExecutor = executor;
+        return this;
     }
 
     @Override
     protected Reader getReader() throws IOException {
-        if (!path.getFileName().toString().matches(ALLOWED_FILE_NAME_PATTERN.pattern())) {
+        checkFile();
+
+        InputStream in = isCompressed()
+                ? GzipFileInputStream.open(path, decompressionExecutor)
+                : Files.newInputStream(path);
+        return new InputStreamReader(in, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected Reader getReader(@Nullable Integer byteLimit, @Nullable Integer lineLimit, boolean trim) throws IOException {
+        if (!memoryMapped || isCompressed()) {
+            return getReader();
+        }
+
+        checkFile();
+        var reader = MappedFileReader.open(path, byteLimit, lineLimit, trim);
+        return reader != null ? reader : getReader();
+    }
+
+    @Override
+    protected Reader getReader(LimitStrategy strategy, @Nullable Integer byteLimit, @Nullable Integer lineLimit, boolean trim) throws IOException {
+        if (isCompressed()) {
+            // Compressed files can't be read backwards
+            return super.getReader(strategy, byteLimit, lineLimit, trim);
+        }
+
+        checkFile();
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new StringReader(strategy == LimitStrategy.TAIL
+                    ? LogExcerpt.tail(channel, byteLimit, lineLimit, trim)
+                    : LogExcerpt.headAndTail(channel, byteLimit, lineLimit, trim));
+        }
+    }
+
+    private boolean isCompressed() {
+        return path.getFileName().toString().endsWith(".gz");
+    }
+
+    private void checkFile() throws FileNotFoundException {
+        if (!ALLOWED_FILE_NAME_PATTERN.matcher(path.getFileName().toString()).matches()) {
             throw new IllegalArgumentException("Forbidden log file name: " + path.getFileName());
         }
 
@@ -34,12 +108,5 @@ public final class FileLogReader extends LogReader {
         if (!file.exists() || !file.isFile()) {
             throw new FileNotFoundException("Log '" + path + "' does not exist");
         }
-
-        InputStream in = Files.newInputStream(path);
-        if (path.getFileName().toString().endsWith(".gz")) {
-            in = new GZIPInputStream(in);
-        }
-
-        return new InputStreamReader(in);
     }
 }
@@ -0,0 +1,20 @@
+package gs.mclo.api.reader;
+
+/**
+ * Decides which part of a log is kept if it exceeds the line or byte limits of the instance.
+ */
+public enum LimitStrategy {
+    /**
+     * Keep the start of the log (default)
+     */
+    HEAD,
+    /**
+     * Keep the last lines of the log. This is useful for logs that end with a crash.
+     */
+    TAIL,
+    /**
+     * Keep the first and the last lines of the log with a line containing {@code [...]} in between.
+     * Each part gets about half of the limits.
+     */
+    HEAD_AND_TAIL,
+}
@@ -0,0 +1,446 @@
+package gs.mclo.api.reader;
+
+import gs.mclo.api.Log;
+import gs.mclo.api.internal.GzipFileInputStream;
+import gs.mclo.api.internal.LogExcerpt;
+import gs.mclo.api.response.Limits;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Follows a growing log file (e.g. {@code logs/latest.log}) and returns only the content that was appended since the
+ * last poll, so it can be uploaded without reading the entire file again.
+ * <p>
+ * Only complete lines are returned. A line that is still being written is returned by the next poll once it ends.
+ * A single poll returns at most as many lines as fit into the {@link #setWindowLimits(Limits) window limits}, so a large
+ * backlog (e.g. the existing content on the first poll) is returned by multiple polls and never read into memory at
+ * once. Lines that are longer than the limit are truncated.
+ * <p>
+ * Rotations are detected by the file key (e.g. the inode) of the file, by the file shrinking, and by comparing the start
+ * of the file with the start that was read previously. When the file was rotated, the remaining content of the old
+ * file is read from the most recently modified log in the same directory (e.g. {@code 2024-01-01-1.log.gz}) that
+ * starts with the same content, before following the new file from its start.
+ * <p>
+ * The file is only opened while polling, so it can always be rotated. This class is not thread safe.
+ */
+public final class LogFollower {
+    /**
+     * Number of bytes at the start of the file that are used to recognize it after a rotation
+     */
+    private static final int FINGERPRINT_SIZE = 1024;
+    /**
+     * Number of rotated logs that are checked for the rest of the followed file
+     */
+    private static final int MAX_ARCHIVE_CANDIDATES = 3;
+
+    private final Path path;
+    private boolean startAtEnd = false;
+    private Limits windowLimits = Limits.DEFAULT;
+
+    private boolean started = false;
+    private long offset = 0;
+    private @Nullable Object fileKey = null;
+    private byte[] fingerprint = new byte[0];
+    private String window = "";
+    private @Nullable Path archive = null;
+    private long archiveOffset = 0;
+
+    /**
+     * Create a new log follower
+     *
+     * @param path path to the log file. The file doesn't have to exist yet.
+     */
+    public LogFollower(Path path) {
+        this.path = Objects.requireNonNull(path, "Path must not be null");
+        if (!FileLogReader.ALLOWED_FILE_NAME_PATTERN.matcher(path.getFileName().toString()).matches()) {
+            throw new IllegalArgumentException("Forbidden log file name: " + path.getFileName());
+        }
+    }
+
+    /**
+     * Set whether content that already exists before the first poll is skipped
+     *
+     * @param startAtEnd true to only return content written after the first poll
+     * @return this
+     */
+    public LogFollower setStartAtEnd(boolean startAtEnd) {
+        this.startAtEnd = startAtEnd;
+        return this;
+    }
+
+    /**
+     * Set the limits of the rolling window returned by {@link #getWindow()} and of the content returned by a single poll
+     *
+     * @param windowLimits the limits, e.g. the limits of the instance the window is uploaded to
+     * @return this
+     */
+    public LogFollower setWindowLimits(Limits windowLimits) {
+        this.windowLimits = Objects.requireNonNull(windowLimits, "Window limits must not be null");
+        return this;
+    }
+
+    /**
+     * Get the path of the followed file
+     *
+     * @return the path
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Get the offset in the followed file up to which content has been returned
+     *
+     * @return the offset in bytes
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Read the content that was appended to the file since the last poll
+     *
+     * @return a log containing the new lines within the window limits or null if there are no new complete lines
+     * @throws IOException if an I/O error occurs
+     */
+    public @Nullable Log poll() throws IOException {
+        String content = readNewContent();
+        if (content == null) {
+            return null;
+        }
+
+        window = LogExcerpt.tail(new StringReader(window.isEmpty() ? content : window + '\n' + content),
+                windowLimits.getMaxLength(), windowLimits.getMaxLines(), false);
+        return new Log(content);
+    }
+
+    /**
+     * Get the last lines returned by {@link #poll()} within the {@link #setWindowLimits(Limits) window limits}
+     *
+     * @return a log containing the last lines
+     * @throws IOException if an I/O error occurs
+     */
+    public Log getWindow() throws IOException {
+        return new Log(LogExcerpt.tail(new StringReader(window), windowLimits.getMaxLength(), windowLimits.getMaxLines(), false));
+    }
+
+    private @Nullable String readNewContent() throws IOException {
+        int maxLength = windowLimits.getMaxLength();
+        int maxLines = windowLimits.getMaxLines();
+        Chunk rest = null;
+        if (archive != null) {
+            rest = readArchive(maxLength, maxLines);
+            if (archive != null) {
+                // The rest of the rotated log doesn't fit into a single poll
+                return rest == null ? null : rest.content;
+            }
+        }
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            // Not created yet or between rotations
+            started = true;
+            return rest == null ? null : rest.content;
+        }
+
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (!started) {
+                started = true;
+                offset = startAtEnd ? findLineEnd(channel, 0, size) : 0;
+            } else if (isRotated(channel, attributes.fileKey(), size)) {
+                if (rest != null) {
+                    // The file was rotated again while the previous rotated log was read, continue in the next poll
+                    return rest.content;
+                }
+                archive = findRotated();
+                archiveOffset = offset;
+                offset = 0;
+                fingerprint = new byte[0];
+            }
+            fileKey = attributes.fileKey();
+            updateFingerprint(channel, size);
+
+            if (archive != null) {
+                rest = readArchive(maxLength, maxLines);
+                if (archive != null) {
+                    return rest == null ? null : rest.content;
+                }
+            }
+
+            long end = findLineEnd(channel, offset, size);
+            long remainingLength = rest == null ? maxLength : maxLength - rest.length;
+            int remainingLines = rest == null ? maxLines : maxLines - rest.lines;
+            Chunk content = null;
+            if (end > offset && remainingLength > 0 && remainingLines > 0) {
+                channel.position(offset);
+                content = readChunk(Channels.newInputStream(channel), end - offset, (int) remainingLength,
+                        remainingLines, rest == null);
+                if (content != null) {
+                    offset += content.length;
+                }
+            }
+
+            if (rest == null) {
+                return content == null ? null : content.content;
+            }
+            return content == null ? rest.content : rest.content + '\n' + content.content;
+        }
+    }
+
+    private boolean isRotated(FileChannel channel, @Nullable Object key, long size) throws IOException {
+        if (fileKey != null && key != null && !fileKey.equals(key)) {
+            return true;
+        }
+
+        if (size < offset || size < fingerprint.length) {
+            return true;
+        }
+
+        var start = ByteBuffer.allocate(fingerprint.length);
+        readFully(channel, start, 0);
+        return !Arrays.equals(start.array(), fingerprint);
+    }
+
+    private void updateFingerprint(FileChannel channel, long size) throws IOException {
+        if (fingerprint.length >= FINGERPRINT_SIZE || fingerprint.length == size) {
+            return;
+        }
+
+        var start = ByteBuffer.allocate((int) Math.min(size, FINGERPRINT_SIZE));
+        readFully(channel, start, 0);
+        fingerprint = start.array();
+    }
+
+    /**
+     * Find the end of the last complete line
+     *
+     * @return the position after the last line break in the given range or the start if there is none
+     */
+    private static long findLineEnd(FileChannel channel, long start, long end) throws IOException {
+        var buffer = ByteBuffer.allocate(8192);
+        long blockEnd = end;
+        while (blockEnd > start) {
+            long blockStart = Math.max(start, blockEnd - buffer.capacity());
+            buffer.clear().limit((int) (blockEnd - blockStart));
+            readFully(channel, buffer, blockStart);
+            for (int i = buffer.limit() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return blockStart + i + 1;
+                }
+            }
+            blockEnd = blockStart;
+        }
+        return start;
+    }
+
+    /**
+     * Read complete lines from a stream within the given limits. If the stream ends without a final line break, the
+     * rest of the stream is treated as a complete line.
+     *
+     * @param in        the stream
+     * @param available the maximum number of bytes that may be read from the stream
+     * @param maxLength the maximum number of bytes to return
+     * @param maxLines  the maximum number of lines to return
+     * @param truncate  whether to return the start of a line that is longer than the maximum length instead of nothing
+     * @return the lines or null if no line was read
+     */
+    private static @Nullable Chunk readChunk(InputStream in, long available, int maxLength, int maxLines,
+                                             boolean truncate) throws IOException {
+        int requested = (int) Math.min(maxLength + 1L, available);
+        var buffer = new byte[requested + 1];
+        int length = in.readNBytes(buffer, 0, requested);
+        boolean ended = length < requested;
+        if (ended && length > 0 && buffer[length - 1] != '\n') {
+            buffer[length++] = '\n';
+        }
+
+        int lines = 0;
+        int lineEnd = 0;
+        for (int i = 0; i < length && i <= maxLength && lines < maxLines; i++) {
+            if (buffer[i] == '\n') {
+                lineEnd = i + 1;
+                lines++;
+            }
+        }
+
+        if (lineEnd > 0) {
+            // Without the final line break
+            return new Chunk(new String(buffer, 0, lineEnd - 1, StandardCharsets.UTF_8), lineEnd, lines,
+                    ended && lineEnd == length);
+        }
+        if (!truncate || length == 0) {
+            return null;
+        }
+
+        // Keep the start of the line without splitting a character and skip the rest of it
+        int cut = maxLength;
+        while (cut > 0 && (buffer[cut] & 0xC0) == 0x80) {
+            cut--;
+        }
+        long skipped = skipLine(in, available - length);
+        return new Chunk(new String(buffer, 0, cut, StandardCharsets.UTF_8), length + skipped, 1, false);
+    }
+
+    /**
+     * Skip the rest of the current line
+     *
+     * @return the number of skipped bytes including the line break
+     */
+    private static long skipLine(InputStream in, long available) throws IOException {
+        var buffer = new byte[8192];
+        long skipped = 0;
+        while (skipped < available) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, available - skipped));
+            if (read == -1) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] == '\n') {
+                    return skipped + i + 1;
+                }
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read == -1) {
+                throw new IOException("Unexpected end of file");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Find the log the followed file was rotated to
+     *
+     * @return the rotated log or null if it was not found
+     */
+    private @Nullable Path findRotated() throws IOException {
+        var directory = path.toAbsolutePath().getParent();
+        if (directory == null || offset == 0 || fingerprint.length == 0) {
+            return null;
+        }
+
+        List<Path> candidates;
+        try (Stream<Path> files = Files.list(directory)) {
+            candidates = files
+                    .filter(file -> !file.getFileName().equals(path.getFileName()))
+                    .filter(file -> FileLogReader.ALLOWED_FILE_NAME_PATTERN.matcher(file.getFileName().toString()).matches())
+                    .filter(Files::isRegularFile)
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+
+        candidates.sort(Comparator.comparing(LogFollower::getLastModifiedTime).reversed());
+        for (Path candidate : candidates.subList(0, Math.min(candidates.size(), MAX_ARCHIVE_CANDIDATES))) {
+            try (InputStream in = open(candidate)) {
+                if (Arrays.equals(in.readNBytes(fingerprint.length), fingerprint)) {
+                    return candidate;
+                }
+            } catch (IOException e) {
+                // Not a valid compressed log
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read the next part of the rotated log after the offset up to which it was returned.
+     * The rotated log is forgotten once it was read completely.
+     *
+     * @return the content that was not returned yet or null if there is none
+     */
+    private @Nullable Chunk readArchive(int maxLength, int maxLines) {
+        try (InputStream in = open(Objects.requireNonNull(archive))) {
+            skip(in, archiveOffset);
+            var chunk = readChunk(in, Long.MAX_VALUE, maxLength, maxLines, true);
+            if (chunk == null || chunk.ended) {
+                archive = null;
+            } else {
+                archiveOffset += chunk.length;
+            }
+            return chunk;
+        } catch (IOException e) {
+            // Deleted in the meantime, not a valid compressed log or shorter than the offset
+            archive = null;
+            return null;
+        }
+    }
+
+    private static InputStream open(Path file) throws IOException {
+        return file.getFileName().toString().endsWith(".gz")
+                ? GzipFileInputStream.open(file, null)
+                : Files.newInputStream(file);
+    }
+
+    private static void skip(InputStream in, long bytes) throws IOException {
+        while (bytes > 0) {
+            long skipped = in.skip(bytes);
+            if (skipped <= 0) {
+                if (in.read() == -1) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            bytes -= skipped;
+        }
+    }
+
+    private static FileTime getLastModifiedTime(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     * Lines read from the followed file or a rotated log
+     */
+    private static final class Chunk {
+        private final String content;
+        /**
+         * Number of bytes that were consumed, including the final line break and skipped bytes of a truncated line
+         */
+        private final long length;
+        private final int lines;
+        /**
+         * Whether the end of the stream was reached
+         */
+        private final boolean ended;
+
+        private Chunk(String content, long length, int lines, boolean ended) {
+            this.content = content;
+            this.length = length;
+            this.lines = lines;
+            this.ended = ended;
+        }
+    }
+}
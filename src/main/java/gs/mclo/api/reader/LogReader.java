@@ -1,24 +1,53 @@
 package gs.mclo.api.reader;
 
+import gs.mclo.api.internal.FilteringReader;
 import gs.mclo.api.internal.LimitedReader;
+import gs.mclo.api.internal.LogExcerpt;
+import gs.mclo.api.internal.PrefetchReader;
 import gs.mclo.api.response.Limits;
 import gs.mclo.api.internal.filter.FilterList;
-import gs.mclo.api.internal.filter.TrimFilter;
+import gs.mclo.api.internal.filter.FilterPlan;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.Objects;
+import java.util.concurrent.Executor;
 
 @ApiStatus.NonExtendable
 public abstract class LogReader {
+    private LimitStrategy limitStrategy = LimitStrategy.HEAD;
 
     protected LogReader() {
     }
 
     /**
-     * Reads the contents of the log file
+     * Get the strategy that decides which part of the log is kept if it exceeds the limits of the instance
+     *
+     * @return the limit strategy
+     */
+    public LimitStrategy getLimitStrategy() {
+        return limitStrategy;
+    }
+
+    /**
+     * Set the strategy that decides which part of the log is kept if it exceeds the limits of the instance
+     *
+     * @param limitStrategy the limit strategy
+     * @return this
+     */
+    public LogReader setLimitStrategy(LimitStrategy limitStrategy) {
+        this.limitStrategy = Objects.requireNonNull(limitStrategy, "Limit strategy must not be null");
+        return this;
+    }
+
+    /**
+     * Reads the contents of the log file. If the log exceeds the limits, the part selected by the
+     * {@link #getLimitStrategy() limit strategy} is kept.
      *
      * @return the log
      * @throws FileNotFoundException if the log file does not exist
@@ -26,7 +55,7 @@ public abstract class LogReader {
      */
     @Deprecated
     public String readContents(Limits limits) throws IOException {
-        try (var reader = new LimitedReader(this.getReader(), limits.getMaxLength(), limits.getMaxLines(), true)) {
+        try (var reader = openLimitedReader(limits.getMaxLength(), limits.getMaxLines(), true, null)) {
             return read(reader);
         }
     }
@@ -40,22 +69,159 @@ public abstract class LogReader {
      */
     @ApiStatus.Internal
     public String readContents(FilterList filters) throws IOException {
-        try (var reader = new LimitedReader(
-                this.getReader(),
-                filters.getMaxBytes(),
-                filters.getMaxLines(),
-                filters.getFilter(TrimFilter.class).isPresent()
-        )) {
+        try (var reader = openLimitedReader(filters.getPlan(), null)) {
             return read(reader);
         }
     }
 
+    /**
+     * Read the filtered contents of the log file, continuing from content that was read ahead with
+     * {@link #prefetch(int, int)}. Filters are applied to the entire content, so regex filters can match multiple
+     * lines. Only if an executor is given and none of the regex filters can match across lines, they are applied to
+     * chunks of lines in parallel instead.
+     *
+     * @param executor   if not null, regex filters that are line based are applied to chunks of lines in parallel on
+     *                   this executor
+     * @param prefetched the prefetched content or null to open the log again
+     * @return the filtered log
+     * @throws FileNotFoundException if the log file does not exist
+     * @throws IOException           if an I/O error occurs
+     */
+    @ApiStatus.Internal
+    public String readContents(FilterList filters, @Nullable Executor executor, @Nullable PrefetchReader prefetched) throws IOException {
+        var plan = filters.getPlan();
+        if (executor != null && plan.isLineBased()) {
+            try (var reader = new FilteringReader(openLimitedReader(plan, prefetched), plan, executor)) {
+                return read(reader);
+            }
+        }
+
+        String content;
+        try (var reader = openLimitedReader(plan, prefetched)) {
+            content = read(reader);
+        }
+        return plan.apply(content);
+    }
+
+    /**
+     * Open a reader that returns the filtered contents of the log file without reading the entire log into memory.
+     * Filters are applied line by line.
+     *
+     * @return a reader for the filtered log
+     * @throws FileNotFoundException if the log file does not exist
+     * @throws IOException           if an I/O error occurs
+     */
+    @ApiStatus.Internal
+    public Reader openContents(FilterList filters) throws IOException {
+        return openContents(filters, null);
+    }
+
+    /**
+     * Open a reader that returns the filtered contents of the log file without reading the entire log into memory.
+     * Filters are applied line by line.
+     *
+     * @param executor if not null, regex filters are applied to chunks of lines in parallel on this executor
+     * @return a reader for the filtered log
+     * @throws FileNotFoundException if the log file does not exist
+     * @throws IOException           if an I/O error occurs
+     */
+    @ApiStatus.Internal
+    public Reader openContents(FilterList filters, @Nullable Executor executor) throws IOException {
+        return openContents(filters, executor, null);
+    }
+
+    /**
+     * Open a reader that returns the filtered contents of the log file, continuing from content that was read ahead
+     * with {@link #prefetch(int, int)}.
+     *
+     * @param executor   if not null, regex filters are applied to chunks of lines in parallel on this executor
+     * @param prefetched the prefetched content or null to open the log again
+     * @return a reader for the filtered log
+     * @throws FileNotFoundException if the log file does not exist
+     * @throws IOException           if an I/O error occurs
+     */
+    @ApiStatus.Internal
+    public Reader openContents(FilterList filters, @Nullable Executor executor, @Nullable PrefetchReader prefetched) throws IOException {
+        var plan = filters.getPlan();
+        return new FilteringReader(openLimitedReader(plan, prefetched), plan, executor);
+    }
+
+    /**
+     * Start reading the log before the filters are known, e.g. while they are fetched. The returned reader can be
+     * passed to {@link #openContents(FilterList, Executor, PrefetchReader)} once the filters are known.
+     *
+     * @param maxChars the maximum number of chars to read ahead
+     * @param maxLines the maximum number of lines to read ahead
+     * @return the prefetched content or null if this log can't be read ahead
+     * @throws FileNotFoundException if the log file does not exist
+     * @throws IOException           if an I/O error occurs
+     */
+    @ApiStatus.Internal
+    public @Nullable PrefetchReader prefetch(int maxChars, int maxLines) throws IOException {
+        // The other strategies don't read the log from the start
+        if (limitStrategy != LimitStrategy.HEAD) {
+            return null;
+        }
+        // The limits aren't known yet, so the rest of the log must remain readable
+        return PrefetchReader.prefetch(getReader(null, null, false), maxChars, maxLines);
+    }
+
     /**
      * Get the upstream reader
      * @return a reader
      */
     protected abstract Reader getReader() throws IOException;
 
+    /**
+     * Get the upstream reader for content that will be cut off at the given limits.
+     * Implementations may use the limits to avoid reading content that is cut off anyway.
+     * @param byteLimit the maximum number of bytes that will be kept, or null for no limit
+     * @param lineLimit the maximum number of lines that will be kept, or null for no limit
+     * @param trim whether whitespace at the start of the log will be removed
+     * @return a reader
+     */
+    protected Reader getReader(@Nullable Integer byteLimit, @Nullable Integer lineLimit, boolean trim) throws IOException {
+        return getReader();
+    }
+
+    /**
+     * Get the part of the log that is kept by a {@link LimitStrategy#TAIL} or {@link LimitStrategy#HEAD_AND_TAIL}
+     * strategy. The default implementation reads the entire log, but only holds the kept lines in memory.
+     * @param strategy the limit strategy
+     * @param byteLimit the maximum number of bytes that will be kept, or null for no limit
+     * @param lineLimit the maximum number of lines that will be kept, or null for no limit
+     * @param trim whether whitespace at the start and the end of the log will be removed
+     * @return a reader for the kept part of the log
+     */
+    protected Reader getReader(LimitStrategy strategy, @Nullable Integer byteLimit, @Nullable Integer lineLimit, boolean trim) throws IOException {
+        try (var reader = getReader()) {
+            return new StringReader(strategy == LimitStrategy.TAIL
+                    ? LogExcerpt.tail(reader, byteLimit, lineLimit, trim)
+                    : LogExcerpt.headAndTail(reader, byteLimit, lineLimit, trim));
+        }
+    }
+
+    private LimitedReader openLimitedReader(FilterPlan plan, @Nullable PrefetchReader prefetched) throws IOException {
+        return openLimitedReader(plan.getMaxBytes(), plan.getMaxLines(), plan.isTrim(), prefetched);
+    }
+
+    private LimitedReader openLimitedReader(@Nullable Integer byteLimit, @Nullable Integer lineLimit, boolean trim,
+                                            @Nullable PrefetchReader prefetched) throws IOException {
+        var strategy = this.limitStrategy;
+        if (prefetched != null) {
+            if (strategy == LimitStrategy.HEAD) {
+                return new LimitedReader(prefetched, byteLimit, lineLimit, trim);
+            }
+            // The strategy was changed after prefetching
+            prefetched.close();
+        }
+
+        var reader = strategy == LimitStrategy.HEAD || (byteLimit == null && lineLimit == null)
+                ? this.getReader(byteLimit, lineLimit, trim)
+                : this.getReader(strategy, byteLimit, lineLimit, trim);
+        return new LimitedReader(reader, byteLimit, lineLimit, trim);
+    }
+
     /**
      * Read the outputs of an entire reader into a string
      *
@@ -1,5 +1,9 @@
 package gs.mclo.api.reader;
 
+import gs.mclo.api.internal.PrefetchReader;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
 import java.io.Reader;
 import java.io.StringReader;
 import java.util.Objects;
@@ -16,4 +20,11 @@ public final class StringLogReader extends LogReader {
     protected Reader getReader() {
         return new StringReader(input);
     }
+
+    @Override
+    @ApiStatus.Internal
+    public @Nullable PrefetchReader prefetch(int maxChars, int maxLines) {
+        // The content is already in memory
+        return null;
+    }
 }
@@ -7,11 +7,16 @@ import gs.mclo.api.internal.Initializable;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 @SuppressWarnings({"unused", "NotNullFieldNotInitialized", "FieldMayBeFinal", "MismatchedQueryAndUpdateOfCollection"})
 @ApiStatus.NonExtendable
@@ -29,6 +34,23 @@ public class CommonLogResponse implements Initializable {
     private String raw;
     private Set<Metadata<?>> metadata = new HashSet<>();
 
+    public CommonLogResponse() {
+
+    }
+
+    CommonLogResponse(CommonLogResponse other) {
+        this.id = other.id;
+        this.source = other.source;
+        this.created = other.created;
+        this.expires = other.expires;
+        this.size = other.size;
+        this.lines = other.lines;
+        this.errors = other.errors;
+        this.url = other.url;
+        this.raw = other.raw;
+        this.metadata = new HashSet<>(other.metadata);
+    }
+
     /**
      * Get the log id
      *
@@ -128,6 +150,53 @@ public class CommonLogResponse implements Initializable {
         return client().getRawLogContent(id);
     }
 
+    /**
+     * Fetch the raw content of this log as a stream
+     *
+     * @return an input stream of the raw content of this log. Must be closed by the caller.
+     */
+    public CompletableFuture<InputStream> getRawContentStream() {
+        return client().getRawLogContentStream(id);
+    }
+
+    /**
+     * Fetch the raw content of this log as a reader
+     *
+     * @return a reader for the raw content of this log. Must be closed by the caller.
+     */
+    public CompletableFuture<Reader> getRawContentReader() {
+        return client().getRawLogContentReader(id);
+    }
+
+    /**
+     * Fetch the raw content of this log as a lazily read stream of lines
+     *
+     * @return a stream of the lines of this log. Must be closed by the caller.
+     */
+    public CompletableFuture<Stream<String>> getRawContentLines() {
+        return client().getRawLogContentLines(id);
+    }
+
+    /**
+     * Download the raw content of this log to a file
+     *
+     * @param file the file to write the log to
+     * @return the path of the file
+     */
+    public CompletableFuture<Path> downloadRawContent(Path file) {
+        return client().downloadRawLogContent(id, file);
+    }
+
+    /**
+     * Download the raw content of this log to a channel
+     *
+     * @param channel the channel to write the log to. Not closed by this method.
+     * @return a future that completes when the log has been written to the channel
+     */
+    public CompletableFuture<Void> downloadRawContent(WritableByteChannel channel) {
+        return client().downloadRawLogContent(id, channel);
+    }
+
     /**
      * Fetch the log with optional fields
      *
@@ -1,5 +1,8 @@
 package gs.mclo.api.response;
 
+import gs.mclo.api.MclogsClient;
+import org.jetbrains.annotations.ApiStatus;
+
 import java.util.concurrent.CompletableFuture;
 
 @SuppressWarnings({"unused", "NotNullFieldNotInitialized"})
@@ -10,6 +13,11 @@ public final class UploadLogResponse extends CommonLogResponse {
 
     }
 
+    private UploadLogResponse(UploadLogResponse other) {
+        super(other);
+        this.token = other.token;
+    }
+
     /**
      * Get the token for deleting the log
      *
@@ -27,4 +35,18 @@ public final class UploadLogResponse extends CommonLogResponse {
     public CompletableFuture<Void> delete() {
         return client().deleteLog(getId(), token);
     }
+
+    /**
+     * Copy this response for another client, e.g. because it was returned from an upload cache that is shared with
+     * other clients
+     *
+     * @param client the client of the copy
+     * @return a copy of this response
+     */
+    @ApiStatus.Internal
+    public UploadLogResponse copy(MclogsClient client) {
+        var copy = new UploadLogResponse(this);
+        copy.setClient(client);
+        return copy;
+    }
 }
@@ -0,0 +1,161 @@
+package gs.mclo.api;
+
+import com.google.gson.JsonParser;
+import gs.mclo.api.util.TestServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static gs.mclo.api.util.TestServer.requestBody;
+import static gs.mclo.api.util.TestServer.respond;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchUploadTest {
+    private TestServer server;
+    private MclogsClient client;
+    private final AtomicInteger started = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() {
+        server = new TestServer().handle("/1/filters", exchange -> respond(exchange, 200, "[]"));
+        server.handle("/1/log", exchange -> {
+            started.incrementAndGet();
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                String content;
+                try (var reader = requestBody(exchange)) {
+                    content = JsonParser.parseReader(reader).getAsJsonObject().get("content").getAsString();
+                }
+
+                // Later logs finish first
+                Thread.sleep(Math.max(0, 300 - Integer.parseInt(content.replaceAll("[^0-9]", "")) * 100L));
+
+                if (content.startsWith("fail")) {
+                    respond(exchange, 400, "{\"success\":false,\"error\":\"rejected\"}");
+                } else {
+                    respond(exchange, 200, "{\"success\":true,\"id\":\"" + content + "\"}");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+
+        client = new MclogsClient("aternos/mclogs-java-tests")
+                .setInstance(server.instance())
+                .setMaxConcurrentUploads(3);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void uploadLogs() throws ExecutionException, InterruptedException {
+        List<Log> logs = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            logs.add(new Log((i == 4 ? "fail " : "log ") + i));
+        }
+
+        var results = client.uploadLogs(logs).get();
+
+        assertEquals(12, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            var result = results.get(i);
+            assertSame(logs.get(i), result.getLog());
+            if (i == 4) {
+                assertFalse(result.isSuccess());
+                assertNull(result.getResponse());
+                var error = assertInstanceOf(APIException.class, result.getError());
+                assertEquals(400, error.getHttpStatusCode());
+            } else {
+                assertTrue(result.isSuccess());
+                assertNull(result.getError());
+                assertEquals("log " + i, result.getResponse().getId());
+            }
+        }
+        assertEquals(12, started.get());
+        assertTrue(maxRunning.get() <= 3, "At most 3 uploads should run at the same time, got " + maxRunning.get());
+    }
+
+    @Test
+    void completionOrder() throws InterruptedException {
+        var results = new LinkedBlockingQueue<String>();
+        var done = new CountDownLatch(1);
+        client.publishUploads(List.of(new Log("log 0"), new Log("log 1"), new Log("log 2")), false).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(UploadLogResult item) {
+                results.add(item.getResponse().getId());
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                results.add(throwable.toString());
+                done.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(List.of("log 2", "log 1", "log 0"), new ArrayList<>(results));
+    }
+
+    @Test
+    void backPressure() throws InterruptedException, ExecutionException, TimeoutException {
+        var subscription = new CompletableFuture<Flow.Subscription>();
+        var results = new LinkedBlockingQueue<UploadLogResult>();
+        var error = new CompletableFuture<Throwable>();
+        var logs = List.of(new Log("log 0"), new Log("log 1"), new Log("log 2"), new Log("log 3"));
+        client.publishUploads(logs, true).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription.complete(s);
+            }
+
+            @Override
+            public void onNext(UploadLogResult item) {
+                results.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                error.complete(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        Thread.sleep(200);
+        assertEquals(0, started.get(), "Uploads should not start before they are requested");
+
+        subscription.get().request(1);
+        assertNotNull(results.poll(10, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertEquals(1, started.get());
+        assertTrue(results.isEmpty());
+        assertFalse(error.isDone());
+
+        subscription.get().cancel();
+    }
+
+}
@@ -0,0 +1,116 @@
+package gs.mclo.api;
+
+import com.google.gson.JsonParser;
+import gs.mclo.api.cache.MemoryUploadCache;
+import gs.mclo.api.data.Metadata;
+import gs.mclo.api.util.TestServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static gs.mclo.api.util.TestServer.requestBody;
+import static gs.mclo.api.util.TestServer.respond;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachedUploadTest {
+    private TestServer server;
+    private MclogsClient client;
+    private final List<String> uploaded = new CopyOnWriteArrayList<>();
+    private final List<String> deleted = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void startServer() {
+        server = new TestServer().handle("/1/filters", exchange -> respond(exchange, 200, "[]"));
+        server.handle("/1/log", exchange -> {
+            if (exchange.getRequestMethod().equals("DELETE")) {
+                deleted.add(exchange.getRequestURI().getPath());
+                respond(exchange, 200, "{\"success\":true}");
+                return;
+            }
+
+            try (var reader = requestBody(exchange)) {
+                uploaded.add(JsonParser.parseReader(reader).getAsJsonObject().get("content").getAsString());
+            }
+            long expires = System.currentTimeMillis() / 1000 + 3600;
+            respond(exchange, 200, "{\"success\":true,\"id\":\"" + uploaded.size() + "\",\"token\":\"token\",\"expires\":" + expires + "}");
+        });
+        client = new MclogsClient("aternos/mclogs-java-tests")
+                .setInstance(server.instance())
+                .setUploadCache(new MemoryUploadCache(10, Duration.ofHours(1)));
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void reusesPreviousUpload() throws Exception {
+        var first = client.uploadLog("content").get();
+        var second = client.uploadLog("content").get();
+
+        assertEquals(first.getId(), second.getId());
+        assertEquals(List.of("content"), uploaded);
+    }
+
+    @Test
+    void returnsCopyOfCachedUpload() throws Exception {
+        var cache = new MemoryUploadCache(10, Duration.ofHours(1));
+        client.setUploadCache(cache);
+        var other = new MclogsClient("aternos/mclogs-java-tests")
+                .setInstance(server.instance())
+                .setUploadCache(cache);
+
+        var first = client.uploadLog("content").get();
+        var second = other.uploadLog("content").get();
+        var third = client.uploadLog("content").get();
+
+        assertNotSame(first, second);
+        assertNotSame(first, third);
+        assertNotSame(second, third);
+        assertEquals(first.getId(), second.getId());
+        assertEquals(first.getToken(), second.getToken());
+        assertEquals(first.getExpires(), third.getExpires());
+        assertEquals(List.of("content"), uploaded);
+
+        second.delete().get();
+        assertEquals(1, deleted.size());
+        client.uploadLog("content").get();
+        assertEquals(List.of("content", "content"), uploaded);
+    }
+
+    @Test
+    void reusesPreviousStreamedUpload() throws Exception {
+        client.setStreamUploads(true);
+        var first = client.uploadLog("content").get();
+        var second = client.uploadLog("content").get();
+
+        assertEquals(first.getId(), second.getId());
+        assertEquals(List.of("content"), uploaded);
+    }
+
+    @Test
+    void uploadsDifferentLogs() throws Exception {
+        client.uploadLog("content").get();
+        client.uploadLog("other content").get();
+        client.uploadLog(new Log("content").setSource("other source")).get();
+        client.uploadLog(new Log("content").addMetadata(new Metadata<>("key", "value"))).get();
+
+        assertEquals(4, uploaded.size());
+    }
+
+    @Test
+    void uploadsAgainAfterDeletion() throws Exception {
+        var first = client.uploadLog("content").get();
+        first.delete().get();
+        var second = client.uploadLog("content").get();
+
+        assertEquals(1, deleted.size());
+        assertNotEquals(first.getId(), second.getId());
+        assertEquals(List.of("content", "content"), uploaded);
+    }
+}
@@ -0,0 +1,103 @@
+package gs.mclo.api;
+
+import gs.mclo.api.util.TestServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static gs.mclo.api.util.TestServer.respond;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpClientTest {
+    private static final String LIMITS = "{\"storageTime\":7776000,\"maxLength\":10485760,\"maxLines\":25000}";
+
+    private TestServer server;
+    private Instance instance;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final List<String> userAgents = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void startServer() {
+        server = new TestServer().handle("/1/limits", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            userAgents.add(exchange.getRequestHeaders().getFirst("User-Agent"));
+            respond(exchange, 200, LIMITS);
+        }).handle("/1/insights/", exchange -> {
+            respond(exchange, 200, "{}");
+        }).handle("/1/raw/", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, "{}");
+        });
+        instance = server.instance();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void clientsShareDefaultHttpClient() {
+        var a = new MclogsClient("tenant-a", "1.0.0");
+        var b = new MclogsClient("tenant-b", "1.0.0");
+        assertSame(a.getHttpClient(), b.getHttpClient());
+    }
+
+    @Test
+    void clientsReuseConnections() throws ExecutionException, InterruptedException {
+        var httpClient = MclogsClient.newHttpClientBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        for (int i = 0; i < 5; i++) {
+            var client = new MclogsClient("tenant-" + i, "1.0.0")
+                    .setHttpClient(httpClient)
+                    .setInstance(instance);
+            assertEquals(25000, client.getLimits().get().getMaxLines());
+        }
+
+        assertEquals(5, userAgents.size());
+        assertEquals("tenant-0/1.0.0", userAgents.get(0));
+        assertEquals("tenant-4/1.0.0", userAgents.get(4));
+        assertEquals(1, clientPorts.size(), "All requests should be sent over the same connection");
+    }
+
+    @Test
+    void requestTimeout() {
+        var client = new MclogsClient("tenant", "1.0.0")
+                .setInstance(instance)
+                .setRequestTimeout(Duration.ofMillis(100));
+        assertThrows(IllegalArgumentException.class, () -> client.setRequestTimeout(Duration.ZERO));
+
+        var exception = assertThrows(ExecutionException.class, () -> client.getRawLogContent("slow").get());
+        assertInstanceOf(HttpTimeoutException.class, exception.getCause());
+    }
+
+    @Test
+    void parsesResponsesOnIoExecutor() throws ExecutionException, InterruptedException {
+        var tasks = new AtomicInteger();
+        var client = new MclogsClient("tenant", "1.0.0")
+                .setInstance(instance)
+                .setIoExecutor(command -> {
+                    tasks.incrementAndGet();
+                    new Thread(command).start();
+                });
+
+        assertNotNull(client.getInsights("abc").get());
+        assertEquals(1, tasks.get());
+    }
+
+}
@@ -0,0 +1,304 @@
+package gs.mclo.api;
+
+import com.google.gson.JsonParser;
+import gs.mclo.api.response.UploadLogResponse;
+import gs.mclo.api.util.TestServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static gs.mclo.api.util.TestServer.requestBody;
+import static gs.mclo.api.util.TestServer.respond;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InstanceCacheTest {
+    private TestServer server;
+    private MclogsClient client;
+    private final AtomicInteger filterRequests = new AtomicInteger();
+    private final AtomicInteger uploads = new AtomicInteger();
+    private final List<String> etags = new CopyOnWriteArrayList<>();
+    private volatile int maxLines = 100;
+    private volatile boolean failing = false;
+    private volatile String filters = "[]";
+    private final List<String> uploaded = new CopyOnWriteArrayList<>();
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    @BeforeEach
+    void startServer() {
+        server = new TestServer().handle("/1/filters", exchange -> {
+            filterRequests.incrementAndGet();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, filters);
+        });
+        server.handle("/1/limits", exchange -> {
+            if (failing) {
+                respond(exchange, 400, "{\"success\":false,\"error\":\"unavailable\"}");
+                return;
+            }
+
+            etags.add(String.valueOf(exchange.getRequestHeaders().getFirst("If-None-Match")));
+            String etag = "\"" + maxLines + "\"";
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().add("ETag", etag);
+            respond(exchange, 200, "{\"storageTime\":100,\"maxLength\":1000,\"maxLines\":" + maxLines + "}");
+        });
+        server.handle("/1/log", exchange -> {
+            try (var reader = requestBody(exchange)) {
+                uploaded.add(JsonParser.parseReader(reader).getAsJsonObject().get("content").getAsString());
+            }
+            respond(exchange, 200, "{\"success\":true,\"id\":\"" + uploads.incrementAndGet() + "\"}");
+        });
+        client = new MclogsClient("aternos/mclogs-java-tests").setInstance(server.instance());
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void coalescesConcurrentRequests() throws Exception {
+        release = new CountDownLatch(1);
+        List<CompletableFuture<UploadLogResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            futures.add(client.uploadLog("log " + i));
+        }
+        release.countDown();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        assertEquals(1, filterRequests.get());
+        assertEquals(500, uploads.get());
+        var stats = client.getCacheStats();
+        assertEquals(1, stats.getRequests());
+        assertEquals(500, stats.getHits() + stats.getMisses());
+    }
+
+    @Test
+    void revalidatesWithEtag() throws Exception {
+        client.setCacheTtl(Duration.ZERO).setStaleWhileRevalidate(Duration.ZERO);
+        var first = client.getLimits().get();
+        var second = client.getLimits().get();
+
+        assertSame(first, second);
+        assertEquals(List.of("null", "\"100\""), etags);
+        assertEquals(1, client.getCacheStats().getNotModified());
+
+        maxLines = 200;
+        assertEquals(200, client.getLimits().get().getMaxLines());
+    }
+
+    @Test
+    void parsesResponsesOnIoExecutor() throws Exception {
+        var tasks = new AtomicInteger();
+        client.setCacheTtl(Duration.ZERO).setStaleWhileRevalidate(Duration.ZERO).setIoExecutor(command -> {
+            tasks.incrementAndGet();
+            new Thread(command).start();
+        });
+        client.getLimits().get();
+        client.getLimits().get();
+
+        assertEquals(2, tasks.get());
+        assertEquals(1, client.getCacheStats().getNotModified());
+    }
+
+    @Test
+    void returnsStaleValueWhileRefreshing() throws Exception {
+        client.setCacheTtl(Duration.ZERO).setStaleWhileRevalidate(Duration.ofHours(1));
+        assertEquals(100, client.getLimits().get().getMaxLines());
+
+        maxLines = 200;
+        assertEquals(100, client.getLimits().get().getMaxLines());
+        await(() -> client.getLimits().get().getMaxLines() == 200);
+
+        var stats = client.getCacheStats();
+        assertEquals(1, stats.getMisses());
+        assertTrue(stats.getStaleHits() >= 2);
+    }
+
+    @Test
+    void keepsStaleValueIfRefreshFails() throws Exception {
+        client.setCacheTtl(Duration.ZERO).setStaleWhileRevalidate(Duration.ofHours(1));
+        client.getLimits().get();
+
+        failing = true;
+        assertEquals(100, client.getLimits().get().getMaxLines());
+        await(() -> client.getCacheStats().getFailures() > 0);
+        assertEquals(100, client.getLimits().get().getMaxLines());
+        assertEquals(1, client.getCacheStats().getMisses());
+    }
+
+    @Test
+    void usesCachedValueWithinTtl() throws Exception {
+        client.getLimits().get();
+        client.getLimits().get();
+
+        assertEquals(1, etags.size());
+        assertEquals(1, client.getCacheStats().getHits());
+    }
+
+    @Test
+    void invalidatesWhenInstanceChanges() throws Exception {
+        client.getLimits().get();
+        client.setInstance(server.instance());
+        client.getLimits().get();
+
+        assertEquals(List.of("null", "null"), etags);
+    }
+
+    @Test
+    void startsWithValuesFromFile() throws Exception {
+        var file = Files.createTempFile("mclogs-test", ".json");
+        try {
+            filters = "[{\"type\":\"regex\",\"data\":{\"patterns\":[{\"pattern\":\"secret\",\"modifiers\":[],\"replacement\":\"***\"}],\"exemptions\":[]}}]";
+            client.setInstanceCacheFile(file);
+            client.getFilters().get();
+            client.getLimits().get();
+
+            // A new process uploads without waiting for the filters
+            release = new CountDownLatch(1);
+            var next = new MclogsClient("aternos/mclogs-java-tests")
+                    .setInstance(server.instance())
+                    .setInstanceCacheFile(file);
+            var limits = next.getLimits();
+            assertTrue(limits.isDone());
+            assertEquals(100, limits.get().getMaxLines());
+            next.uploadLog("a secret log").get(10, TimeUnit.SECONDS);
+            assertEquals(List.of("a *** log"), uploaded);
+
+            // The values are refreshed in the background
+            release.countDown();
+            await(() -> filterRequests.get() == 2 && next.getCacheStats().getNotModified() == 1);
+            assertEquals("\"100\"", etags.get(etags.size() - 1));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void ignoresOutdatedValuesFromFile() throws Exception {
+        var file = Files.createTempFile("mclogs-test", ".json");
+        try {
+            client.setInstanceCacheFile(file);
+            client.getLimits().get();
+            var json = Files.readString(file);
+            var updated = limitsUpdated(json);
+            Files.writeString(file, json.replace(String.valueOf(updated), String.valueOf(updated - 7200)));
+
+            // Loading the file doesn't write it, so both clients see the outdated value
+            var lenient = new MclogsClient("aternos/mclogs-java-tests")
+                    .setInstance(server.instance())
+                    .setStaleWhileRevalidate(Duration.ofHours(3))
+                    .setInstanceCacheFile(file);
+            var next = new MclogsClient("aternos/mclogs-java-tests")
+                    .setInstance(server.instance())
+                    .setCacheTtl(Duration.ofMinutes(30))
+                    .setStaleWhileRevalidate(Duration.ofMinutes(30))
+                    .setInstanceCacheFile(file);
+
+            assertTrue(lenient.getLimits().isDone());
+            assertEquals(1, lenient.getCacheStats().getStaleHits());
+            next.getLimits().get();
+            assertEquals(1, next.getCacheStats().getMisses());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void refreshesFileWhenNotModified() throws Exception {
+        var file = Files.createTempFile("mclogs-test", ".json");
+        try {
+            client.setInstanceCacheFile(file);
+            client.getLimits().get();
+            var json = Files.readString(file);
+            long updated = limitsUpdated(json);
+            Files.writeString(file, json.replace(String.valueOf(updated), String.valueOf(updated - 7200)));
+
+            // The instance confirms the outdated value, which stores it as new
+            var lenient = new MclogsClient("aternos/mclogs-java-tests")
+                    .setInstance(server.instance())
+                    .setStaleWhileRevalidate(Duration.ofHours(3))
+                    .setInstanceCacheFile(file);
+            assertTrue(lenient.getLimits().isDone());
+            await(() -> lenient.getCacheStats().getNotModified() == 1 && limitsUpdated(Files.readString(file)) >= updated);
+
+            var next = new MclogsClient("aternos/mclogs-java-tests")
+                    .setInstance(server.instance())
+                    .setCacheTtl(Duration.ofMinutes(30))
+                    .setStaleWhileRevalidate(Duration.ofMinutes(30))
+                    .setInstanceCacheFile(file);
+            assertTrue(next.getLimits().isDone());
+            assertEquals(0, next.getCacheStats().getMisses());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void storesValuesPerInstance() throws Exception {
+        var file = Files.createTempFile("mclogs-test", ".json");
+        try {
+            client.setInstanceCacheFile(file);
+            client.getLimits().get();
+
+            var other = new MclogsClient("aternos/mclogs-java-tests")
+                    .setInstance(new Instance("http://127.0.0.1:1"))
+                    .setRetryPolicy(RetryPolicy.none())
+                    .setInstanceCacheFile(file);
+            assertThrows(ExecutionException.class, () -> other.getLimits().get());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void ignoresCorruptedFile() throws Exception {
+        var file = Files.createTempFile("mclogs-test", ".json");
+        try {
+            Files.writeString(file, "{\"version\":1,\"instances\":{\"" + server.instance().getApiBaseUrl() + "\":{\"limits\":{\"value\":[]}}}}");
+            client.setInstanceCacheFile(file);
+            assertEquals(100, client.getLimits().get().getMaxLines());
+            assertEquals(1, client.getCacheStats().getMisses());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private long limitsUpdated(String json) {
+        return JsonParser.parseString(json).getAsJsonObject()
+                .getAsJsonObject("instances").getAsJsonObject(server.instance().getApiBaseUrl())
+                .getAsJsonObject("limits").get("updated").getAsLong();
+    }
+
+    private static void await(Condition condition) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.test()) {
+            assertTrue(System.nanoTime() < deadline, "Condition was not met within 10 seconds");
+            Thread.sleep(10);
+        }
+    }
+
+    private interface Condition {
+        boolean test() throws Exception;
+    }
+}
@@ -157,4 +157,47 @@ public class LimitedReaderTest {
             }
         });
     }
+
+    @Test
+    void testTrimLeadingWhitespace() {
+        assertDoesNotThrow(() -> {
+            String input = "  \n\t\n  Hello,\n world!";
+            try (LimitedReader reader = new LimitedReader(new StringReader(input), 100, 100, true)) {
+                char[] buffer = new char[100];
+
+                int offset = 0;
+                int lastRead;
+                int totalRead = 0;
+
+                do {
+                    lastRead = reader.read(buffer, offset, 3);
+
+                    if (lastRead > 0) {
+                        totalRead += lastRead;
+                        offset += lastRead;
+                    }
+
+                    assertNotEquals(0, lastRead, "Read returned no characters before the end of the stream");
+                    assertTrue(lastRead <= 3, "Read more characters than requested");
+
+                } while (lastRead != -1);
+
+                assertEquals("Hello,\n world!", new String(buffer, 0, totalRead));
+            }
+        });
+    }
+
+    @Test
+    void testReadLineLimitAfterLimitReached() {
+        assertDoesNotThrow(() -> {
+            String input = "a\nb\nc\nd";
+            try (LimitedReader reader = new LimitedReader(new StringReader(input), null, 2, false)) {
+                char[] buffer = new char[100];
+                assertEquals(3, reader.read(buffer, 0, 100));
+                assertEquals("a\nb", new String(buffer, 0, 3));
+                assertEquals(-1, reader.read(buffer, 0, 100));
+                assertEquals(-1, reader.read(buffer, 0, 100));
+            }
+        });
+    }
 }
@@ -6,6 +6,9 @@ import gs.mclo.api.reader.StringLogReader;
 import gs.mclo.api.response.Limits;
 import gs.mclo.api.internal.filter.Filter;
 import gs.mclo.api.internal.filter.FilterList;
+import gs.mclo.api.internal.filter.RegexFilter;
+import gs.mclo.api.internal.filter.RegexPattern;
+import gs.mclo.api.internal.filter.ReplacingRegexPattern;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
 
@@ -95,6 +98,21 @@ public class LogTest extends ApiTest {
         }
     }
 
+    @Test
+    void appliesMultiLinePatternsToEntireContent() throws IOException {
+        var filters = new FilterList(new Filter[]{
+                new RegexFilter(new ReplacingRegexPattern[]{
+                        new ReplacingRegexPattern("BEGIN KEY.*?END KEY", new char[]{'s'}, "<key>"),
+                        new ReplacingRegexPattern("^token=\\w+$", new char[]{'m'}, "token=****"),
+                }, new RegexPattern[]{}),
+        });
+        String content = "a\nBEGIN KEY\nabc\nEND KEY\ntoken=abc\nb";
+        String expected = "a\n<key>\ntoken=****\nb";
+
+        assertEquals(expected, new Log(content).getContent(filters));
+        assertEquals(expected, new Log(content).getContent(filters, Runnable::run));
+    }
+
     @Test
     void getSetAddMetadata() {
         var log = new Log(new StringLogReader(""));
@@ -0,0 +1,174 @@
+package gs.mclo.api;
+
+import com.google.gson.JsonParser;
+import gs.mclo.api.util.TestServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static gs.mclo.api.util.TestServer.requestBody;
+import static gs.mclo.api.util.TestServer.respond;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogWatcherTest {
+    private TestServer server;
+    private MclogsClient client;
+    private Path directory;
+    private final List<String> uploaded = new CopyOnWriteArrayList<>();
+    private final LinkedBlockingQueue<UploadLogResult> results = new LinkedBlockingQueue<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile boolean failing = false;
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new TestServer().handle("/1/filters", exchange -> respond(exchange, 200, "[]"));
+        server.handle("/1/log", exchange -> {
+            requests.incrementAndGet();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failing) {
+                respond(exchange, 500, "{\"success\":false,\"error\":\"unavailable\"}");
+                return;
+            }
+            try (var reader = requestBody(exchange)) {
+                uploaded.add(JsonParser.parseReader(reader).getAsJsonObject().get("content").getAsString());
+            }
+            respond(exchange, 200, "{\"success\":true,\"id\":\"" + uploaded.size() + "\"}");
+        });
+        client = new MclogsClient("aternos/mclogs-java-tests").setInstance(server.instance());
+
+        directory = Files.createTempDirectory("mclogs-test");
+        Files.createDirectory(directory.resolve("logs"));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void uploadsNewFiles() throws Exception {
+        try (var watcher = client.watchDirectory(directory, results::add).setDebounce(Duration.ofMillis(50))) {
+            Files.writeString(directory.resolve("logs/debug.log"), "debug content");
+            Files.writeString(directory.resolve("logs/ignored.json"), "{}");
+
+            var result = results.poll(10, TimeUnit.SECONDS);
+            assertNotNull(result);
+            assertTrue(result.isSuccess());
+            assertEquals(List.of("debug content"), uploaded);
+        }
+    }
+
+    @Test
+    void watchesCreatedDirectories() throws Exception {
+        try (var watcher = client.watchDirectory(directory, results::add).setDebounce(Duration.ofMillis(50))) {
+            Files.createDirectory(directory.resolve("crash-reports"));
+            Files.writeString(directory.resolve("crash-reports/crash-2024-01-01_00.00.00-server.txt"), "crash");
+
+            assertNotNull(results.poll(10, TimeUnit.SECONDS));
+            assertEquals(List.of("crash"), uploaded);
+        }
+    }
+
+    @Test
+    void waitsUntilFileIsWritten() throws Exception {
+        try (var watcher = client.watchDirectory(directory, results::add).setDebounce(Duration.ofSeconds(1))) {
+            var file = directory.resolve("logs/debug.log");
+            Files.writeString(file, "first part");
+            await(() -> watcher.getPendingFileCount() == 1);
+            Files.writeString(file, "first part, second part");
+
+            assertNotNull(results.poll(10, TimeUnit.SECONDS));
+            assertEquals(List.of("first part, second part"), uploaded);
+        }
+    }
+
+    @Test
+    void skipsDuplicateContent() throws Exception {
+        try (var watcher = client.watchDirectory(directory, results::add).setDebounce(Duration.ofMillis(50))) {
+            Files.writeString(directory.resolve("logs/a.log"), "same content");
+            assertNotNull(results.poll(10, TimeUnit.SECONDS));
+
+            Files.writeString(directory.resolve("logs/b.log"), "same content");
+            Files.writeString(directory.resolve("logs/c.log"), "other content");
+            assertNotNull(results.poll(10, TimeUnit.SECONDS));
+            // Both files were checked once none are pending after the upload of the second one
+            await(() -> watcher.getPendingFileCount() == 0 && watcher.getRunningUploads() == 0);
+            assertEquals(List.of("same content", "other content"), uploaded);
+            assertTrue(results.isEmpty());
+        }
+    }
+
+    @Test
+    void uploadsContentAgainIfUploadFailed() throws Exception {
+        failing = true;
+        try (var watcher = client.watchDirectory(directory, results::add).setDebounce(Duration.ofMillis(50))) {
+            Files.writeString(directory.resolve("logs/a.log"), "same content");
+            var result = results.poll(10, TimeUnit.SECONDS);
+            assertNotNull(result);
+            assertFalse(result.isSuccess());
+
+            failing = false;
+            Files.writeString(directory.resolve("logs/b.log"), "same content");
+            result = results.poll(10, TimeUnit.SECONDS);
+            assertNotNull(result);
+            assertTrue(result.isSuccess());
+            assertEquals(List.of("same content"), uploaded);
+        }
+    }
+
+    @Test
+    void doesNotStartQueuedUploadsAfterClose() throws Exception {
+        client.setMaxConcurrentUploads(1);
+        release = new CountDownLatch(1);
+        var watcher = client.watchDirectory(directory, results::add).setDebounce(Duration.ofMillis(50));
+        try {
+            Files.writeString(directory.resolve("logs/a.log"), "first");
+            Files.writeString(directory.resolve("logs/b.log"), "second");
+            // One file is uploading and the other one is queued
+            await(() -> requests.get() == 1 && watcher.getPendingFileCount() == 0);
+        } finally {
+            watcher.close();
+            release.countDown();
+        }
+
+        assertNotNull(results.poll(10, TimeUnit.SECONDS));
+        await(() -> watcher.getRunningUploads() == 0);
+        assertEquals(1, requests.get());
+        assertEquals(1, uploaded.size());
+    }
+
+    private static void await(Condition condition) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.test()) {
+            assertTrue(System.nanoTime() < deadline, "Condition was not met within 10 seconds");
+            Thread.sleep(10);
+        }
+    }
+
+    private interface Condition {
+        boolean test() throws Exception;
+    }
+}
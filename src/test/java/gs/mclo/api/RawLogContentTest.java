@@ -0,0 +1,127 @@
+package gs.mclo.api;
+
+import gs.mclo.api.util.TestServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RawLogContentTest {
+    private static final String CONTENT = "[12:34:56] [Server thread/INFO]: Starting minecraft server äöü\n".repeat(10_000)
+            + "[12:34:57] [Server thread/INFO]: Done";
+
+    private TestServer server;
+    private MclogsClient client;
+
+    @BeforeEach
+    void startServer() {
+        server = new TestServer().handle("/1/raw/", exchange -> {
+            var id = exchange.getRequestURI().getPath().substring("/1/raw/".length());
+            if (id.equals("missing")) {
+                TestServer.respond(exchange, 404, "{\"success\":false,\"error\":\"Log not found.\"}");
+                return;
+            }
+
+            var gzip = id.equals("gzip") && "gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            byte[] body = CONTENT.getBytes(StandardCharsets.UTF_8);
+            if (gzip) {
+                var compressed = new ByteArrayOutputStream();
+                try (var out = new GZIPOutputStream(compressed)) {
+                    out.write(body);
+                }
+                body = compressed.toByteArray();
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+
+            exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (var out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        client = new MclogsClient("aternos/mclogs-java-tests").setInstance(server.instance());
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void stream() throws ExecutionException, InterruptedException, IOException {
+        for (String id : List.of("plain", "gzip")) {
+            try (InputStream in = client.getRawLogContentStream(id).get()) {
+                assertEquals(CONTENT, new String(in.readAllBytes(), StandardCharsets.UTF_8), id);
+            }
+        }
+    }
+
+    @Test
+    void lines() throws ExecutionException, InterruptedException {
+        for (String id : List.of("plain", "gzip")) {
+            try (var lines = client.getRawLogContentLines(id).get()) {
+                assertEquals(CONTENT, lines.collect(Collectors.joining("\n")), id);
+            }
+        }
+    }
+
+    @Test
+    void downloadToFile() throws ExecutionException, InterruptedException, IOException {
+        for (String id : List.of("plain", "gzip")) {
+            var file = Files.createTempFile("mclogs-raw", ".log");
+            try {
+                Files.writeString(file, "previous content that is longer than the log".repeat(20_000));
+                assertEquals(file, client.downloadRawLogContent(id, file).get());
+                assertEquals(CONTENT, Files.readString(file), id);
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void keepsFileIfDownloadFails() throws IOException {
+        var directory = Files.createTempDirectory("mclogs-raw");
+        var file = directory.resolve("latest.log");
+        try {
+            Files.writeString(file, "previous content");
+            var exception = assertThrows(ExecutionException.class, () -> client.downloadRawLogContent("missing", file).get());
+            assertInstanceOf(APIException.class, exception.getCause());
+            assertEquals("previous content", Files.readString(file));
+            try (var files = Files.list(directory)) {
+                assertEquals(List.of(file), files.collect(Collectors.toList()));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    void downloadToChannel() throws ExecutionException, InterruptedException {
+        for (String id : List.of("plain", "gzip")) {
+            var out = new ByteArrayOutputStream();
+            client.downloadRawLogContent(id, Channels.newChannel(out)).get();
+            assertEquals(CONTENT, out.toString(StandardCharsets.UTF_8), id);
+        }
+    }
+
+    @Test
+    void missingLog() {
+        var exception = assertThrows(ExecutionException.class, () -> client.getRawLogContentReader("missing").get());
+        var cause = assertInstanceOf(APIException.class, exception.getCause());
+        assertEquals(404, cause.getHttpStatusCode());
+    }
+}
@@ -0,0 +1,144 @@
+package gs.mclo.api;
+
+import gs.mclo.api.util.TestServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static gs.mclo.api.util.TestServer.respond;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetryTest {
+    private static final String LIMITS = "{\"storageTime\":7776000,\"maxLength\":10485760,\"maxLines\":25000}";
+    private static final String UPLOAD = "{\"success\":true,\"id\":\"HpAwPry\"}";
+
+    private TestServer server;
+    private MclogsClient client;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() {
+        server = new TestServer().handle("/1/filters", exchange -> respond(exchange, 200, "[]"));
+        client = new MclogsClient("aternos/mclogs-java-tests")
+                .setInstance(server.instance())
+                .setRetryPolicy(new RetryPolicy().setBaseDelay(Duration.ofMillis(10)));
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    /**
+     * Respond with the given status codes to the first requests and successfully afterwards
+     */
+    private void failFirst(String path, String success, int... statusCodes) {
+        server.handle(path, exchange -> {
+            int request = requests.getAndIncrement();
+            if (request < statusCodes.length) {
+                exchange.getResponseHeaders().add("Retry-After", "0");
+                respond(exchange, statusCodes[request], "{\"success\":false,\"error\":\"Error " + statusCodes[request] + "\"}");
+            } else {
+                respond(exchange, 200, success);
+            }
+        });
+    }
+
+    @Test
+    void retriesRateLimitedRequests() throws ExecutionException, InterruptedException {
+        failFirst("/1/limits", LIMITS, 429, 503, 500);
+
+        assertEquals(25000, client.getLimits().get().getMaxLines());
+        assertEquals(4, requests.get());
+    }
+
+    @Test
+    void givesUpAfterMaxRetries() {
+        failFirst("/1/limits", LIMITS, 503, 503, 503);
+        client.setRetryPolicy(new RetryPolicy().setMaxRetries(2).setBaseDelay(Duration.ZERO));
+
+        var exception = assertThrows(ExecutionException.class, () -> client.getLimits().get());
+        var cause = assertInstanceOf(APIException.class, exception.getCause());
+        assertEquals(503, cause.getHttpStatusCode());
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    void doesNotRetryWithoutPolicy() {
+        failFirst("/1/limits", LIMITS, 429);
+        client.setRetryPolicy(RetryPolicy.none());
+
+        var exception = assertThrows(ExecutionException.class, () -> client.getLimits().get());
+        assertEquals(429, assertInstanceOf(APIException.class, exception.getCause()).getHttpStatusCode());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        failFirst("/1/limits", LIMITS, 400);
+
+        assertThrows(ExecutionException.class, () -> client.getLimits().get());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void retriesRejectedUploads() throws ExecutionException, InterruptedException {
+        failFirst("/1/log", UPLOAD, 429, 503);
+
+        assertEquals("HpAwPry", client.uploadLog("example").get().getId());
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    void doesNotRetryUploadsThatMayHaveBeenProcessed() {
+        failFirst("/1/log", UPLOAD, 500);
+
+        var exception = assertThrows(ExecutionException.class, () -> client.uploadLog("example").get());
+        assertEquals(500, assertInstanceOf(APIException.class, exception.getCause()).getHttpStatusCode());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void retriesStreamedUploads() throws ExecutionException, InterruptedException {
+        failFirst("/1/log", UPLOAD, 503);
+        client.setStreamUploads(true);
+
+        assertEquals("HpAwPry", client.uploadLog("example").get().getId());
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void honorsRetryAfter() {
+        server.handle("/1/limits", exchange -> {
+            requests.incrementAndGet();
+            exchange.getResponseHeaders().add("Retry-After", "3600");
+            respond(exchange, 429, "{\"success\":false,\"error\":\"Too many requests\"}");
+        });
+
+        // The requested delay is longer than the maximum delay, so the request fails immediately
+        assertThrows(ExecutionException.class, () -> client.getLimits().get());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void rateLimit() throws ExecutionException, InterruptedException {
+        failFirst("/1/limits", LIMITS);
+        var instance = client.getInstance().setRateLimit(20, 2);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 6; i++) {
+            // Setting the instance clears the cached limits
+            client.setInstance(instance);
+            client.getLimits().get();
+        }
+        long elapsed = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertEquals(6, requests.get());
+        // 2 requests can be sent immediately, the other 4 are spaced 50ms apart
+        assertTrue(elapsed >= 190, "Requests should be rate limited, took " + elapsed + "ms");
+    }
+}
@@ -0,0 +1,140 @@
+package gs.mclo.api;
+
+import com.google.gson.JsonParser;
+import gs.mclo.api.reader.LogReader;
+import gs.mclo.api.util.TestServer;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.FileNotFoundException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static gs.mclo.api.util.TestServer.requestBody;
+import static gs.mclo.api.util.TestServer.respond;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UploadPipelineTest {
+    private static final String FILTERS = "[{\"type\":\"trim\",\"data\":{}},{\"type\":\"limit-lines\",\"data\":{\"limit\":2}},"
+            + "{\"type\":\"regex\",\"data\":{\"patterns\":[{\"pattern\":\"secret\",\"modifiers\":[],\"replacement\":\"***\"}],\"exemptions\":[]}}]";
+
+    private TestServer server;
+    private MclogsClient client;
+    private Path file;
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> uploaded = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new TestServer().handle("/1/filters", exchange -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, FILTERS);
+        });
+        server.handle("/1/log", exchange -> {
+            try (var reader = requestBody(exchange)) {
+                uploaded.add(JsonParser.parseReader(reader).getAsJsonObject().get("content").getAsString());
+            }
+            respond(exchange, 200, "{\"success\":true,\"id\":\"" + uploaded.size() + "\"}");
+        });
+        client = new MclogsClient("aternos/mclogs-java-tests").setInstance(server.instance());
+        file = Files.createTempFile("mclogs-test", ".log");
+        Files.writeString(file, "\n\na secret line\nsecond line\nthird line\n");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.close();
+        Files.delete(file);
+    }
+
+    @Test
+    void readsLogWhileFetchingFilters() throws Exception {
+        var opened = new CountDownLatch(1);
+        var log = new Log(file);
+        client.setIoExecutor(command -> new Thread(() -> {
+            command.run();
+            opened.countDown();
+        }).start());
+
+        var upload = client.uploadLog(log);
+        assertTrue(opened.await(10, TimeUnit.SECONDS));
+        assertFalse(upload.isDone());
+        release.countDown();
+
+        upload.get(10, TimeUnit.SECONDS);
+        assertEquals(List.of("a *** line\nsecond line"), uploaded);
+    }
+
+    @Test
+    void prefetchesThroughLimitHook() throws Exception {
+        var hookCalls = new AtomicInteger();
+        var reader = new LogReader() {
+            @Override
+            protected Reader getReader() {
+                return new StringReader("a secret line\nsecond line\nthird line");
+            }
+
+            @Override
+            protected Reader getReader(@Nullable Integer byteLimit, @Nullable Integer lineLimit, boolean trim) {
+                hookCalls.incrementAndGet();
+                assertNull(byteLimit);
+                assertNull(lineLimit);
+                return getReader();
+            }
+        };
+
+        var upload = client.uploadLog(new Log(reader));
+        release.countDown();
+
+        upload.get(10, TimeUnit.SECONDS);
+        assertEquals(1, hookCalls.get());
+        assertEquals(List.of("a *** line\nsecond line"), uploaded);
+    }
+
+    @Test
+    void streamsPrefetchedLog() throws Exception {
+        client.setStreamUploads(true);
+        var upload = client.uploadLog(file);
+        release.countDown();
+
+        upload.get(10, TimeUnit.SECONDS);
+        assertEquals(List.of("a *** line\nsecond line"), uploaded);
+    }
+
+    @Test
+    void reportsMissingFile() {
+        release.countDown();
+        var upload = client.uploadLog(file.resolveSibling("missing.log"));
+        var exception = assertThrows(Exception.class, () -> upload.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(FileNotFoundException.class, exception.getCause());
+    }
+
+    @Test
+    void filtersOnComputeExecutor() throws Exception {
+        var tasks = new AtomicInteger();
+        Executor executor = command -> {
+            tasks.incrementAndGet();
+            new Thread(command).start();
+        };
+        client.setComputeExecutor(executor);
+        release.countDown();
+
+        client.uploadLog(file).get(10, TimeUnit.SECONDS);
+        assertEquals(1, tasks.get());
+        assertEquals(List.of("a *** line\nsecond line"), uploaded);
+    }
+}
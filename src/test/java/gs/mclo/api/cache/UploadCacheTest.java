@@ -0,0 +1,185 @@
+package gs.mclo.api.cache;
+
+import com.google.gson.GsonBuilder;
+import gs.mclo.api.internal.gson.InstantTypeAdapter;
+import gs.mclo.api.response.UploadLogResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UploadCacheTest {
+    private static final Instant NOW = Instant.ofEpochSecond(1_700_000_000);
+
+    @Test
+    void returnsCachedUpload() {
+        var cache = new MemoryUploadCache(10, Duration.ofHours(1), clock(NOW));
+        var response = response("a", NOW.plusSeconds(7200));
+        cache.put("key", response);
+
+        assertSame(response, cache.get("key"));
+        assertNull(cache.get("other"));
+    }
+
+    @Test
+    void removesLeastRecentlyUsedUpload() {
+        var cache = new MemoryUploadCache(2, Duration.ofHours(1), clock(NOW));
+        cache.put("a", response("a", null));
+        cache.put("b", response("b", null));
+        assertNotNull(cache.get("a"));
+        cache.put("c", response("c", null));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void expiresWithLog() {
+        var cache = new MemoryUploadCache(10, Duration.ofHours(1), clock(NOW.plusSeconds(120)));
+        cache.put("key", response("a", NOW.plusSeconds(60)));
+        assertNull(cache.get("key"));
+    }
+
+    @Test
+    void expiresAfterMaxAge() {
+        var cache = new MemoryUploadCache(10, Duration.ofMinutes(1), clock(NOW));
+        cache.put("key", response("a", null), NOW.minusSeconds(1));
+        assertNull(cache.get("key"));
+    }
+
+    @Test
+    void invalidatesLog() {
+        var cache = new MemoryUploadCache(10, Duration.ofHours(1), clock(NOW));
+        cache.put("a", response("a", null));
+        cache.put("b", response("b", null));
+        cache.invalidate("a");
+
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+    }
+
+    @Test
+    void persistsUploads() throws IOException {
+        var directory = Files.createTempDirectory("mclogs-test");
+        var file = directory.resolve("uploads.json");
+        try {
+            var cache = new FileUploadCache(file, new MemoryUploadCache(10, Duration.ofHours(1), clock(NOW)));
+            cache.put("a", response("a", NOW.plusSeconds(7200)));
+            cache.put("b", response("b", null));
+            cache.invalidate("b");
+            cache.flush();
+
+            var loaded = new FileUploadCache(file, new MemoryUploadCache(10, Duration.ofHours(1), clock(NOW)));
+            var response = loaded.get("a");
+            assertNotNull(response);
+            assertEquals("a", response.getId());
+            assertEquals("token-a", response.getToken());
+            assertEquals(NOW.plusSeconds(7200), response.getExpires());
+            assertNull(loaded.get("b"));
+
+            var later = new FileUploadCache(file, new MemoryUploadCache(10, Duration.ofHours(1), clock(NOW.plusSeconds(3600))));
+            assertNull(later.get("a"));
+
+            try (var files = Files.list(directory)) {
+                assertEquals(List.of(file), files.collect(Collectors.toList()), "Temporary files should be removed");
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    void batchesWrites() throws IOException {
+        var directory = Files.createTempDirectory("mclogs-test");
+        var file = directory.resolve("uploads.json");
+        var saves = new ArrayDeque<Runnable>();
+        try {
+            var cache = new FileUploadCache(file, new MemoryUploadCache(10, Duration.ofHours(1), clock(NOW)), saves::add);
+            cache.put("a", response("a", null));
+            cache.put("b", response("b", null));
+            cache.invalidate("a");
+            assertEquals(1, saves.size());
+            assertFalse(Files.exists(file));
+
+            saves.remove().run();
+            var loaded = new FileUploadCache(file, new MemoryUploadCache(10, Duration.ofHours(1), clock(NOW)));
+            assertNull(loaded.get("a"));
+            assertNotNull(loaded.get("b"));
+
+            cache.put("c", response("c", null));
+            assertEquals(1, saves.size());
+            cache.flush();
+            assertNotNull(new FileUploadCache(file, new MemoryUploadCache(10, Duration.ofHours(1), clock(NOW))).get("c"));
+
+            Files.delete(file);
+            saves.remove().run();
+            assertFalse(Files.exists(file), "Flushed changes should not be written again");
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    void ignoresCorruptedFile() throws IOException {
+        var file = Files.createTempFile("mclogs-test", ".json");
+        try {
+            Files.writeString(file, "{not json");
+            var cache = new FileUploadCache(file, new MemoryUploadCache(10, Duration.ofHours(1), clock(NOW)));
+            assertNull(cache.get("a"));
+
+            cache.put("a", response("a", null));
+            cache.flush();
+            assertNotNull(new FileUploadCache(file, new MemoryUploadCache(10, Duration.ofHours(1), clock(NOW))).get("a"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void ignoresMalformedFiles() throws IOException {
+        var file = Files.createTempFile("mclogs-test", ".json");
+        try {
+            for (String content : new String[]{
+                    "[]",
+                    "{\"version\":1}",
+                    "{\"version\":1,\"entries\":{}}",
+                    "{\"version\":\"one\",\"entries\":[]}",
+                    "{\"version\":[1],\"entries\":[]}",
+                    "{\"version\":1,\"entries\":[1,null,{\"key\":\"a\"}]}",
+            }) {
+                Files.writeString(file, content);
+                var cache = new FileUploadCache(file, new MemoryUploadCache(10, Duration.ofHours(1), clock(NOW)));
+                assertNull(cache.get("a"), content);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static Clock clock(Instant instant) {
+        return Clock.fixed(instant, ZoneOffset.UTC);
+    }
+
+    private static UploadLogResponse response(String id, Instant expires) {
+        String json = "{\"id\":\"" + id + "\",\"token\":\"token-" + id + "\""
+                + (expires == null ? "" : ",\"expires\":" + expires.getEpochSecond()) + "}";
+        return new GsonBuilder()
+                .registerTypeAdapter(Instant.class, new InstantTypeAdapter())
+                .create()
+                .fromJson(json, UploadLogResponse.class);
+    }
+}
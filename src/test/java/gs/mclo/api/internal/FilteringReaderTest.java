@@ -0,0 +1,65 @@
+package gs.mclo.api.internal;
+
+import gs.mclo.api.internal.filter.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FilteringReaderTest {
+    private static final RegexFilter IP_FILTER = new RegexFilter(new ReplacingRegexPattern[]{
+            new ReplacingRegexPattern("(?<!([0-9]|-|\\w))(?:[1-2]?[0-9]{1,2}\\.){3}[1-2]?[0-9]{1,2}(?!([0-9]|-|\\w))", new char[]{}, "**.**.**.**")
+    }, new RegexPattern[]{
+            new RegexPattern("127\\.[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}", new char[]{})
+    });
+
+    @Test
+    void appliesRegexFiltersToEveryLine() throws IOException {
+        var filters = new FilterList(new Filter[]{IP_FILTER});
+        assertEquals(
+                "a **.**.**.**\n127.0.0.1 b\n\nc **.**.**.**",
+                read("a 123.45.67.89\n127.0.0.1 b\n\nc 189.123.42.34", filters)
+        );
+    }
+
+    @Test
+    void trimsEnd() throws IOException {
+        var filters = new FilterList(new Filter[]{new TrimFilter(), IP_FILTER});
+        assertEquals("a\n  b", read("a\n  b  \n\n \t\n  ", filters));
+    }
+
+    @Test
+    void keepsEndWithoutTrimFilter() throws IOException {
+        var filters = new FilterList(new Filter[]{IP_FILTER});
+        assertEquals("a\n  b  \n\n", read("a\n  b  \n\n", filters));
+    }
+
+    @Test
+    void matchesStringFilters() throws IOException {
+        var filters = new FilterList(new Filter[]{new TrimFilter(), IP_FILTER});
+        var input = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            input.append("[12:00:00] [Server thread/INFO]: Player").append(i).append(" joined from 10.0.")
+                    .append(i % 256).append(".1 \n");
+        }
+        input.append("\n\n");
+
+        String expected = input.toString();
+        for (var filter : filters.getFilters()) {
+            expected = filter.apply(expected);
+        }
+        assertEquals(expected, read(input.toString(), filters));
+    }
+
+    private String read(String input, FilterList filters) throws IOException {
+        try (Reader reader = new FilteringReader(new StringReader(input), filters)) {
+            var writer = new StringWriter();
+            reader.transferTo(writer);
+            return writer.toString();
+        }
+    }
+}
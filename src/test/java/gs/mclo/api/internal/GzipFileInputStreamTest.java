@@ -0,0 +1,155 @@
+package gs.mclo.api.internal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GzipFileInputStreamTest {
+    private Path file;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("mclogs-test", ".log.gz");
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        executor.shutdownNow();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void readsSingleMember() throws IOException {
+        String content = createContent(0, 100000);
+        Files.write(file, gzip(content));
+
+        assertEquals(content, readAll(null));
+        assertEquals(content, readAll(executor));
+    }
+
+    @Test
+    void readsConcatenatedMembers() throws IOException {
+        var content = new StringBuilder();
+        var compressed = new ByteArrayOutputStream();
+        for (int i = 0; i < 20; i++) {
+            String part = createContent(i, 1000 + i * 500);
+            content.append(part);
+            compressed.write(gzip(part));
+        }
+        // Empty members are valid as well
+        compressed.write(gzip(""));
+        Files.write(file, compressed.toByteArray());
+
+        assertEquals(content.toString(), readAll(null));
+        assertEquals(content.toString(), readAll(executor));
+    }
+
+    @Test
+    void searchesMembersOnExecutor() throws IOException {
+        var content = new StringBuilder();
+        var compressed = new ByteArrayOutputStream();
+        for (int i = 0; i < 5; i++) {
+            String part = createContent(i, 1000);
+            content.append(part);
+            compressed.write(gzip(part));
+        }
+        Files.write(file, compressed.toByteArray());
+
+        var tasks = new ArrayDeque<Runnable>();
+        try (InputStream in = GzipFileInputStream.open(file, tasks::add)) {
+            // Only the search was submitted, the first member is read without waiting for it
+            assertEquals(1, tasks.size());
+            var first = new byte[100];
+            assertEquals(100, in.readNBytes(first, 0, first.length));
+            assertEquals(content.substring(0, 100), new String(first, StandardCharsets.UTF_8));
+
+            // Run the search and the inflation of the members it found
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+            assertEquals(content.substring(100), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void ignoresTrailingGarbage() throws IOException {
+        var compressed = new ByteArrayOutputStream();
+        compressed.write(gzip("first\n"));
+        compressed.write(gzip("second\n"));
+        compressed.write(new byte[]{0, 0, 0, 0});
+        Files.write(file, compressed.toByteArray());
+
+        assertEquals("first\nsecond\n", readAll(null));
+        assertEquals("first\nsecond\n", readAll(executor));
+    }
+
+    @Test
+    void rejectsCorruptTrailer() throws IOException {
+        byte[] compressed = gzip(createContent(0, 1000));
+        compressed[compressed.length - 8] ^= 1;
+        Files.write(file, compressed);
+
+        assertThrows(ZipException.class, () -> readAll(null));
+    }
+
+    @Test
+    void rejectsUncompressedFiles() throws IOException {
+        Files.writeString(file, "not compressed");
+
+        assertThrows(ZipException.class, () -> GzipFileInputStream.open(file, null));
+    }
+
+    @Test
+    void stopsReadingEarly() throws IOException {
+        var compressed = new ByteArrayOutputStream();
+        for (int i = 0; i < 10; i++) {
+            compressed.write(gzip(createContent(i, 100000)));
+        }
+        Files.write(file, compressed.toByteArray());
+
+        try (InputStream in = GzipFileInputStream.open(file, executor)) {
+            byte[] start = in.readNBytes(10);
+            assertEquals("line 0 0 ", new String(start, 0, 9, StandardCharsets.UTF_8));
+        }
+    }
+
+    private String readAll(ExecutorService executor) throws IOException {
+        try (InputStream in = GzipFileInputStream.open(file, executor)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String createContent(int seed, int lines) {
+        var random = new Random(seed);
+        var content = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            content.append("line ").append(seed).append(' ').append(i).append(' ').append(random.nextInt()).append('\n');
+        }
+        return content.toString();
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(out)) {
+            gzip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+}
@@ -2,6 +2,7 @@ package gs.mclo.api.internal;
 
 import gs.mclo.api.APIException;
 import gs.mclo.api.ApiTest;
+import gs.mclo.api.response.GetLogResponse;
 import gs.mclo.api.response.UploadLogResponse;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -86,6 +87,42 @@ public class JsonBodyHandlerTest extends ApiTest {
         handler.map(body, responseInfo);
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"id\": \"HpAwPry\", \"error\": \"test\"}",
+            "{\"success\": false, \"error\": \"test\", \"created\": {}}",
+    })
+    public void testErrorWhileStreaming(String body) {
+        var handler = new JsonBodyHandler<>(client, GetLogResponse.class);
+
+        var exception = Assertions.assertThrows(CompletionException.class, () -> handler.map(body, responseInfo));
+        var cause = Assertions.assertInstanceOf(APIException.class, exception.getCause());
+        Assertions.assertEquals("test", cause.getMessage());
+    }
+
+    @Test
+    public void testStreamsLargeResponse() {
+        var handler = new JsonBodyHandler<>(client, GetLogResponse.class);
+        var raw = "[12:34:56] [Server thread/INFO]: Done\n".repeat(100_000);
+        var body = "{\"success\": true, \"id\": \"HpAwPry\", \"content\": {\"raw\": "
+                + client.gson().toJson(raw) + "}, \"error\": null}";
+
+        var response = handler.map(body, responseInfo);
+        Assertions.assertNotNull(response);
+        Assertions.assertEquals("HpAwPry", response.getId());
+        Assertions.assertNotNull(response.getContent());
+        Assertions.assertEquals(raw, response.getContent().getRaw());
+    }
+
+    @Test
+    public void testArrayResponse() {
+        var handler = new JsonBodyHandler<>(client, String[].class);
+        Assertions.assertArrayEquals(new String[]{"a", "b"}, handler.map("[\"a\", \"b\"]", responseInfo));
+
+        var exception = Assertions.assertThrows(CompletionException.class, () -> handler.map("{\"error\": \"test\"}", responseInfo));
+        Assertions.assertEquals("test", exception.getCause().getMessage());
+    }
+
     @Test
     public void testNotJsonObject() {
         var handler = new JsonBodyHandler<>(client, UploadLogResponse.class);
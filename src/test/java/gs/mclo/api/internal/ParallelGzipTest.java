@@ -0,0 +1,114 @@
+package gs.mclo.api.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelGzipTest {
+    @Test
+    void decompressesToInput() throws IOException {
+        var random = new Random(0);
+        int[] sizes = {0, 1, 1000, ParallelGzip.BLOCK_SIZE, ParallelGzip.BLOCK_SIZE + 1, 5 * ParallelGzip.BLOCK_SIZE + 12345};
+        for (int size : sizes) {
+            for (int level : new int[]{Deflater.BEST_SPEED, Deflater.DEFAULT_COMPRESSION}) {
+                byte[] body = log(random, size);
+                byte[] compressed = compress(body, level, ForkJoinPool.commonPool(), 4);
+                assertArrayEquals(body, decompress(compressed));
+            }
+        }
+    }
+
+    @Test
+    void reusesDeflatersWithDifferentLevel() throws IOException {
+        var pool = new DeflaterPool(1);
+        byte[] body = log(new Random(4), 3 * ParallelGzip.BLOCK_SIZE);
+        for (int level : new int[]{Deflater.DEFAULT_COMPRESSION, Deflater.BEST_SPEED, Deflater.BEST_COMPRESSION, Deflater.BEST_SPEED}) {
+            var out = new ByteArrayOutputStream();
+            ParallelGzip.compress(body, level, Runnable::run, 1, pool, out);
+            assertArrayEquals(body, decompress(out.toByteArray()));
+        }
+    }
+
+    @Test
+    void compressesAsWellAsSingleStream() throws IOException {
+        byte[] body = log(new Random(1), 20 * ParallelGzip.BLOCK_SIZE);
+        var single = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(single)) {
+            gzip.write(body);
+        }
+
+        int parallel = compress(body, Deflater.DEFAULT_COMPRESSION, ForkJoinPool.commonPool(), 4).length;
+        // Priming each block with the previous block keeps the overhead small
+        assertTrue(parallel < single.size() * 1.02, parallel + " bytes instead of " + single.size());
+    }
+
+    @Test
+    void combinesCrc() {
+        var random = new Random(2);
+        for (int i = 0; i < 100; i++) {
+            byte[] first = new byte[random.nextInt(1000)];
+            byte[] second = new byte[random.nextInt(1000)];
+            random.nextBytes(first);
+            random.nextBytes(second);
+
+            var crc = new CRC32();
+            crc.update(first);
+            int crc1 = (int) crc.getValue();
+            crc.update(second);
+            int expected = (int) crc.getValue();
+            crc.reset();
+            crc.update(second);
+
+            assertEquals(expected, ParallelGzip.crc32Combine(crc1, (int) crc.getValue(), second.length));
+        }
+    }
+
+    @Test
+    void doesNotWaitForBusyExecutor() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            byte[] body = log(new Random(3), 10 * ParallelGzip.BLOCK_SIZE);
+            // The only thread of the executor compresses the body, so no block can be compressed by another task
+            byte[] compressed = executor.submit(() -> compress(body, Deflater.BEST_SPEED, executor, 4)).get(30, TimeUnit.SECONDS);
+            assertArrayEquals(body, decompress(compressed));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] compress(byte[] body, int level, Executor executor, int parallelism) throws IOException {
+        var out = new ByteArrayOutputStream();
+        ParallelGzip.compress(body, level, executor, parallelism, new DeflaterPool(parallelism), out);
+        return out.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] compressed) throws IOException {
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] log(Random random, int size) {
+        var builder = new StringBuilder();
+        while (builder.length() < size) {
+            builder.append("[12:34:56] [Server thread/INFO]: Player").append(random.nextInt(100))
+                    .append(" moved ").append(random.nextInt(10000)).append(" blocks ü\n");
+        }
+        return builder.substring(0, size).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,100 @@
+package gs.mclo.api.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PooledGzipOutputStreamTest {
+    private static final byte[] CONTENT = "[12:34:56] [Server thread/INFO]: Привет, this is a test log line 🌍\n"
+            .repeat(5000).getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void matchesGzipOutputStream() throws IOException {
+        var pool = new DeflaterPool(1);
+        for (int level : new int[]{Deflater.BEST_SPEED, Deflater.DEFAULT_COMPRESSION, Deflater.BEST_COMPRESSION}) {
+            var expected = new ByteArrayOutputStream();
+            try (var gzip = new GZIPOutputStream(expected) {
+                {
+                    def.setLevel(level);
+                }
+            }) {
+                gzip.write(CONTENT);
+            }
+
+            // The deflater of the previous level stays in the pool
+            var actual = new ByteArrayOutputStream();
+            try (var gzip = new PooledGzipOutputStream(actual, level, pool)) {
+                gzip.write(CONTENT, 0, 1000);
+                gzip.write(CONTENT, 1000, CONTENT.length - 1000);
+            }
+
+            // The operating system in the header differs between Java versions
+            assertArrayEquals(withoutHeader(expected.toByteArray()), withoutHeader(actual.toByteArray()));
+            assertEquals(1, pool.size());
+        }
+    }
+
+    @Test
+    void poolsDeflatersPerLevel() {
+        var pool = new DeflaterPool(2);
+        var deflater = pool.acquire(Deflater.BEST_COMPRESSION);
+        pool.release(deflater, Deflater.BEST_COMPRESSION);
+        var other = pool.acquire(Deflater.BEST_SPEED);
+        assertNotSame(deflater, other);
+        assertSame(deflater, pool.acquire(Deflater.BEST_COMPRESSION));
+        pool.release(other, Deflater.BEST_SPEED);
+        pool.release(deflater, Deflater.BEST_COMPRESSION);
+        assertEquals(2, pool.size());
+    }
+
+    @Test
+    void limitsPoolSize() throws IOException {
+        var pool = new DeflaterPool(1);
+        var first = new PooledGzipOutputStream(OutputStream.nullOutputStream(), 1, pool);
+        var second = new PooledGzipOutputStream(OutputStream.nullOutputStream(), 1, pool);
+        first.close();
+        second.close();
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    void discardsDeflaterAfterError() throws IOException {
+        var pool = new DeflaterPool(1);
+        var failing = new OutputStream() {
+            private int written = 0;
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                written += len;
+                if (written > 10) {
+                    throw new IOException("Connection closed");
+                }
+            }
+        };
+
+        var gzip = new PooledGzipOutputStream(failing, 1, pool);
+        assertThrows(IOException.class, () -> {
+            gzip.write(CONTENT);
+            gzip.close();
+        });
+        gzip.close();
+        assertEquals(0, pool.size());
+    }
+
+    private static byte[] withoutHeader(byte[] gzip) {
+        return Arrays.copyOfRange(gzip, 10, gzip.length);
+    }
+}
@@ -0,0 +1,79 @@
+package gs.mclo.api.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrefetchReaderTest {
+    private static final String CONTENT = "line 1\nline 2\nline 3\n".repeat(2000);
+
+    @Test
+    void returnsPrefetchedAndRemainingContent() throws IOException {
+        for (int maxChars : new int[]{0, 1, 10, 8192, 20000, CONTENT.length(), Integer.MAX_VALUE}) {
+            try (var reader = PrefetchReader.prefetch(new StringReader(CONTENT), maxChars, Integer.MAX_VALUE)) {
+                assertEquals(Math.min(maxChars, CONTENT.length()), reader.getPrefetched(), "maxChars " + maxChars);
+                assertEquals(CONTENT, read(reader));
+            }
+        }
+    }
+
+    @Test
+    void stopsAfterLines() throws IOException {
+        try (var reader = PrefetchReader.prefetch(new SlowReader(CONTENT), Integer.MAX_VALUE, 3)) {
+            assertEquals(21, reader.getPrefetched());
+            assertEquals(CONTENT, read(reader));
+        }
+    }
+
+    @Test
+    void closesUnderlyingReader() throws IOException {
+        var in = new SlowReader(CONTENT);
+        PrefetchReader.prefetch(in, 10, 10).close();
+        assertTrue(in.closed);
+    }
+
+    private static String read(Reader reader) throws IOException {
+        var writer = new StringWriter();
+        char[] buffer = new char[100];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            writer.write(buffer, 0, read);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * A reader that returns one line per read
+     */
+    private static final class SlowReader extends Reader {
+        private final String content;
+        private int position = 0;
+        private boolean closed = false;
+
+        private SlowReader(String content) {
+            this.content = content;
+        }
+
+        @Override
+        public int read(char[] chars, int offset, int length) {
+            if (position == content.length()) {
+                return -1;
+            }
+            int end = Math.min(content.indexOf('\n', position) + 1, Math.min(content.length(), position + length));
+            content.getChars(position, end, chars, offset);
+            int count = end - position;
+            position = end;
+            return count;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
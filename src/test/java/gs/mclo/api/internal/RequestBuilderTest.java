@@ -1,10 +1,34 @@
 package gs.mclo.api.internal;
 
 import com.google.gson.Gson;
+import gs.mclo.api.CompressionPolicy;
+import gs.mclo.api.Log;
+import gs.mclo.api.data.Metadata;
+import gs.mclo.api.internal.filter.Filter;
+import gs.mclo.api.internal.filter.FilterList;
+import gs.mclo.api.internal.filter.LimitBytesFilter;
+import gs.mclo.api.internal.filter.LimitLinesFilter;
+import gs.mclo.api.internal.filter.TrimFilter;
+import gs.mclo.api.reader.LogReader;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class RequestBuilderTest {
     private RequestBuilder builder;
@@ -37,4 +61,123 @@ public class RequestBuilderTest {
         var request = builder.request("https://example.com").build();
         assertEquals("asd", request.headers().firstValue("User-Agent").orElse(""));
     }
+
+    @Test
+    void streamedUploadBodyMatchesBufferedBody() throws IOException {
+        var filters = new FilterList(new Filter[]{
+                new TrimFilter(),
+                new LimitBytesFilter(100_000),
+                new LimitLinesFilter(1000)
+        });
+        var content = new StringBuilder("\n  ");
+        for (int i = 0; i < 2000; i++) {
+            content.append("[12:00:00] <Player").append(i).append("> \"quoted\" \\ <html> & ünïcödé 🌍\n");
+        }
+
+        builder.setProjectName("asd");
+        builder.setProjectVersion("1.0.0");
+        var buffered = readBody(builder.uploadRequest("https://example.com", log(content.toString()), filters));
+        builder.setStreamUploads(true);
+        var streamed = readBody(builder.uploadRequest("https://example.com", log(content.toString()), filters));
+
+        assertEquals(buffered, streamed);
+    }
+
+    @Test
+    void smallUploadsAreNotCompressed() throws IOException {
+        var filters = new FilterList(new Filter[]{new TrimFilter()});
+        var request = builder.uploadRequest("https://example.com", log("short log"), filters);
+
+        assertTrue(request.headers().firstValue("Content-Encoding").isEmpty());
+        assertEquals("{\"content\":\"short log\",\"source\":\"source\",\"metadata\":[{\"key\":\"key\",\"value\":\"value\",\"label\":\"Label\",\"visible\":true}]}",
+                new String(readBytes(request), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void compressionLevelDependsOnSize() {
+        var policy = new CompressionPolicy();
+        assertEquals(Deflater.NO_COMPRESSION, policy.getLevel(200));
+        assertEquals(Deflater.DEFAULT_COMPRESSION, policy.getLevel(100_000));
+        assertEquals(Deflater.BEST_SPEED, policy.getLevel(10_000_000));
+        assertEquals(Deflater.BEST_SPEED, policy.getLevel(-1));
+        assertEquals(Deflater.NO_COMPRESSION, CompressionPolicy.none().getLevel(-1));
+    }
+
+    @Test
+    void streamedUploadsWithoutCompression() throws IOException {
+        var filters = new FilterList(new Filter[]{new TrimFilter()});
+        builder.setStreamUploads(true);
+        builder.setCompressionPolicy(CompressionPolicy.none());
+        var request = builder.uploadRequest("https://example.com", log("x".repeat(100_000)), filters);
+
+        assertTrue(request.headers().firstValue("Content-Encoding").isEmpty());
+        assertTrue(new String(readBytes(request), StandardCharsets.UTF_8).startsWith("{\"content\":\"xxx"));
+    }
+
+    @Test
+    void releasesUnsentStreamedUploads() throws IOException {
+        var closed = new AtomicInteger();
+        var log = new Log(new LogReader() {
+            @Override
+            protected Reader getReader() {
+                return new StringReader("a log") {
+                    @Override
+                    public void close() {
+                        closed.incrementAndGet();
+                        super.close();
+                    }
+                };
+            }
+        });
+        builder.setStreamUploads(true);
+        var request = builder.uploadRequest("https://example.com", log, new FilterList(new Filter[]{new TrimFilter()}));
+
+        // The HTTP client never subscribed to the body, e.g. because the connection failed
+        RequestBuilder.release(request);
+        assertEquals(1, closed.get());
+        RequestBuilder.release(request);
+        assertEquals(1, closed.get());
+    }
+
+    private Log log(String content) {
+        return new Log(content)
+                .setSource("source")
+                .addMetadata(new Metadata<>("key", "value", "Label", true));
+    }
+
+    private String readBody(HttpRequest request) throws IOException {
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(readBytes(request)))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private byte[] readBytes(HttpRequest request) {
+        var out = new ByteArrayOutputStream();
+        var done = new CompletableFuture<Void>();
+        request.bodyPublisher().orElseThrow().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                var bytes = new byte[item.remaining()];
+                item.get(bytes);
+                out.writeBytes(bytes);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        done.join();
+        return out.toByteArray();
+    }
 }
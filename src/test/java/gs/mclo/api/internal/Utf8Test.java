@@ -0,0 +1,76 @@
+package gs.mclo.api.internal;
+
+import gs.mclo.api.internal.filter.LimitBytesFilter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Utf8Test {
+    private static final String[] PARTS = {"a", "log line ", "\n", "ä", "é", "Привет", "日本語", "😀", "🌍"};
+
+    @Test
+    void countsEncodedLength() {
+        var random = new Random(0);
+        for (int i = 0; i < 1000; i++) {
+            String input = randomString(random);
+            int expected = input.getBytes(StandardCharsets.UTF_8).length;
+            assertEquals(expected, Utf8.length(input), input);
+            assertEquals(expected, Utf8.length(input.toCharArray(), 0, input.length()), input);
+        }
+    }
+
+    @Test
+    void countsSurrogatePairsSplitAcrossBuffers() {
+        char[] chars = "a😀b".toCharArray();
+        assertEquals(6, Utf8.length(chars, 0, 2) + Utf8.length(chars, 2, 4));
+    }
+
+    @Test
+    void findsLongestPrefix() {
+        var random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            String input = randomString(random);
+            int maxBytes = random.nextInt(input.length() * 4 + 1);
+            int length = Utf8.prefixLength(input, maxBytes);
+
+            assertEquals(length, Utf8.prefixEnd(input.toCharArray(), 0, input.length(), maxBytes));
+            assertTrue(input.substring(0, length).getBytes(StandardCharsets.UTF_8).length <= maxBytes);
+            assertFalse(length > 0 && Character.isHighSurrogate(input.charAt(length - 1)), "Split a surrogate pair");
+            if (length < input.length()) {
+                int next = length + Character.charCount(input.codePointAt(length));
+                assertTrue(input.substring(0, next).getBytes(StandardCharsets.UTF_8).length > maxBytes, "Prefix is too short");
+            }
+        }
+    }
+
+    @Test
+    void limitsReaderAndFilterEqually() throws IOException {
+        String input = "Привет, мир! 日本語のログ 😀\n".repeat(20);
+        for (int limit = 0; limit < 200; limit += 7) {
+            String filtered = new LimitBytesFilter(limit).apply(input);
+            var writer = new StringWriter();
+            try (var reader = new LimitedReader(new StringReader(input), limit, null, false)) {
+                reader.transferTo(writer);
+            }
+
+            assertEquals(filtered, writer.toString());
+            assertTrue(filtered.getBytes(StandardCharsets.UTF_8).length <= limit);
+            int next = filtered.length() + Character.charCount(input.codePointAt(filtered.length()));
+            assertTrue(input.substring(0, next).getBytes(StandardCharsets.UTF_8).length > limit);
+        }
+    }
+
+    private static String randomString(Random random) {
+        var builder = new StringBuilder();
+        for (int j = random.nextInt(40); j > 0; j--) {
+            builder.append(PARTS[random.nextInt(PARTS.length)]);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,72 @@
+package gs.mclo.api.internal.filter;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FilterListTest {
+    private static final Filter[] FILTERS = new Filter[]{
+            new TrimFilter(),
+            new LimitBytesFilter(40),
+            new LimitLinesFilter(4),
+            new RegexFilter(new ReplacingRegexPattern[]{
+                    new ReplacingRegexPattern("[0-9]+", new char[]{}, "#"),
+            }, new RegexPattern[]{}),
+    };
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "\n",
+            "  \n\t\n  ",
+            "a",
+            "a\n",
+            "\n\n  a 1  \n  b 22\n\n",
+            "a\nb\nc\nd\ne\nf",
+            "  line 1\n\n\n\nline 5\nline 6",
+            "a very long first line that is longer than the byte limit 12345",
+            "first\nsecond line that is cut off by the byte limit",
+    })
+    void streamMatchesApply(String input) {
+        for (Filter filter : FILTERS) {
+            assertEquals(filter.apply(input), stream(filter::stream, input), filter.getType());
+        }
+
+        String expected = input;
+        for (Filter filter : FILTERS) {
+            expected = filter.apply(expected);
+        }
+        assertEquals(expected, stream(new FilterList(FILTERS)::pipeline, input));
+    }
+
+    private String stream(Pipeline pipeline, String input) {
+        List<String> lines = new ArrayList<>();
+        var consumer = pipeline.create(new LineConsumer() {
+            @Override
+            public boolean accept(String line) {
+                lines.add(line);
+                return true;
+            }
+
+            @Override
+            public void end() {
+            }
+        });
+
+        for (String line : input.split("\n", -1)) {
+            if (!consumer.accept(line)) {
+                break;
+            }
+        }
+        consumer.end();
+        return String.join("\n", lines);
+    }
+
+    private interface Pipeline {
+        LineConsumer create(LineConsumer sink);
+    }
+}
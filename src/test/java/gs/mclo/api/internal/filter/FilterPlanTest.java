@@ -0,0 +1,141 @@
+package gs.mclo.api.internal.filter;
+
+import gs.mclo.api.internal.FilteringReader;
+import gs.mclo.api.internal.LimitedReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FilterPlanTest {
+    private static final RegexFilter SHORTEN = new RegexFilter(new ReplacingRegexPattern[]{
+            new ReplacingRegexPattern("[0-9]+", new char[]{}, "#"),
+    }, new RegexPattern[]{});
+
+    private static final RegexFilter LENGTHEN = new RegexFilter(new ReplacingRegexPattern[]{
+            new ReplacingRegexPattern("x", new char[]{}, "xxxx"),
+    }, new RegexPattern[]{});
+
+    private static final RegexFilter SPLIT = new RegexFilter(new ReplacingRegexPattern[]{
+            new ReplacingRegexPattern(" ", new char[]{}, "\n"),
+    }, new RegexPattern[]{});
+
+    @Test
+    void pushesLimitsIntoReader() {
+        var plan = new FilterList(new Filter[]{
+                new TrimFilter(),
+                new LimitBytesFilter(100),
+                new LimitLinesFilter(10),
+                SHORTEN,
+                LENGTHEN,
+                new LimitLinesFilter(5),
+        }).getPlan();
+
+        assertEquals(Integer.valueOf(100), plan.getMaxBytes());
+        assertEquals(Integer.valueOf(5), plan.getMaxLines());
+        assertTrue(plan.isTrim());
+        assertEquals(List.of(TrimFilter.class, RegexReplacer.class), types(plan));
+    }
+
+    @Test
+    void keepsByteLimitsAfterRegexFilters() {
+        var plan = new FilterList(new Filter[]{
+                new TrimFilter(),
+                LENGTHEN,
+                new LimitBytesFilter(100),
+                new LimitBytesFilter(50),
+                new TrimFilter(),
+                new LimitLinesFilter(10),
+                new TrimFilter(),
+        }).getPlan();
+
+        assertEquals(List.of(TrimFilter.class, RegexReplacer.class, LimitBytesFilter.class, TrimFilter.class), types(plan));
+        assertEquals(50, ((LimitBytesFilter) plan.getStages()[2]).getLimit());
+    }
+
+    @Test
+    void keepsLineLimitsAfterRegexFiltersThatAddLines() {
+        var plan = new FilterList(new Filter[]{
+                new LimitLinesFilter(10),
+                SHORTEN,
+                new LimitLinesFilter(8),
+                SPLIT,
+                new LimitLinesFilter(5),
+                new LimitLinesFilter(3),
+        }).getPlan();
+
+        assertEquals(Integer.valueOf(3), plan.getMaxLines());
+        assertEquals(List.of(RegexReplacer.class, RegexReplacer.class, LimitLinesFilter.class), types(plan));
+        assertEquals(3, ((LimitLinesFilter) plan.getStages()[2]).getLimit());
+        assertEquals("a\nb\nc", plan.apply("a b c d"));
+    }
+
+    @Test
+    void reusesPlan() {
+        var filters = new FilterList(new Filter[]{new TrimFilter()});
+        assertSame(filters.getPlan(), filters.getPlan());
+    }
+
+    @Test
+    void matchesAllFilters() throws IOException {
+        var random = new Random(0);
+        Filter[] choices = {
+                new TrimFilter(), SHORTEN, LENGTHEN, SPLIT,
+                new LimitBytesFilter(0), new LimitBytesFilter(20), new LimitBytesFilter(200),
+                new LimitLinesFilter(1), new LimitLinesFilter(3), new LimitLinesFilter(50),
+        };
+        String[] parts = {"x", "12", " ", "\n", "\n\n", "\t", "ä", "日本", "😀", "line"};
+
+        for (int i = 0; i < 2000; i++) {
+            var filters = new Filter[random.nextInt(6)];
+            for (int j = 0; j < filters.length; j++) {
+                filters[j] = choices[random.nextInt(choices.length)];
+            }
+
+            var input = new StringBuilder();
+            for (int j = random.nextInt(80); j > 0; j--) {
+                input.append(parts[random.nextInt(parts.length)]);
+            }
+
+            var list = new FilterList(filters);
+            assertEquals(readAll(list, input.toString()), readPlan(list, input.toString()),
+                    "Filters " + Arrays.toString(Arrays.stream(filters).map(Filter::getType).toArray()) + " on " + input);
+        }
+    }
+
+    /**
+     * Read a log through the reader limits and then all filters, like logs were read before plans existed
+     */
+    private static String readAll(FilterList filters, String input) throws IOException {
+        return read(new FilteringReader(limit(filters, input), filters, null));
+    }
+
+    private static String readPlan(FilterList filters, String input) throws IOException {
+        return read(new FilteringReader(limit(filters, input), filters.getPlan(), null));
+    }
+
+    private static Reader limit(FilterList filters, String input) {
+        return new LimitedReader(new StringReader(input), filters.getMaxBytes(), filters.getMaxLines(),
+                filters.getFilter(TrimFilter.class).isPresent());
+    }
+
+    private static String read(Reader reader) throws IOException {
+        try (reader) {
+            var writer = new StringWriter();
+            reader.transferTo(writer);
+            return writer.toString();
+        }
+    }
+
+    private static List<Class<?>> types(FilterPlan plan) {
+        return Arrays.stream(plan.getStages()).<Class<?>>map(Object::getClass).collect(Collectors.toList());
+    }
+}
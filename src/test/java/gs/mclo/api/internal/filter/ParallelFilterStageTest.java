@@ -0,0 +1,148 @@
+package gs.mclo.api.internal.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelFilterStageTest {
+    private static final String IPV4 = "(?<!([0-9]|-|\\w))(?:[1-2]?[0-9]{1,2}\\.){3}[1-2]?[0-9]{1,2}(?!([0-9]|-|\\w))";
+
+    private static final RegexFilter REGEX_FILTER = new RegexFilter(new ReplacingRegexPattern[]{
+            new ReplacingRegexPattern(IPV4, new char[]{}, "**.**.**.**"),
+            new ReplacingRegexPattern("(?<=accessToken )[a-zA-Z0-9_]+", new char[]{}, "********"),
+    }, new RegexPattern[]{
+            new RegexPattern("127\\.[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}", new char[]{}),
+    });
+
+    @Test
+    void matchesSequentialPipeline() {
+        String log = generateLog(ParallelFilterStage.CHUNK_SIZE * 10);
+        var filters = new FilterList(new Filter[]{new TrimFilter(), REGEX_FILTER});
+
+        assertEquals(stream(filters, log, null), stream(filters, log, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    void stopsAtLimit() {
+        String log = generateLog(ParallelFilterStage.CHUNK_SIZE * 10);
+        var filters = new FilterList(new Filter[]{REGEX_FILTER, new LimitLinesFilter(5000), REGEX_FILTER});
+
+        String expected = stream(filters, log, null);
+        assertEquals(5000, expected.split("\n", -1).length);
+        assertEquals(expected, stream(filters, log, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    void doesNotWaitForBusyExecutor() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            String log = generateLog(ParallelFilterStage.CHUNK_SIZE * 10);
+            var filters = new FilterList(new Filter[]{REGEX_FILTER});
+            // The only thread of the executor runs the pipeline, so no chunk can be filtered by another task
+            String parallel = executor.submit(() -> stream(filters, log, executor)).get(30, TimeUnit.SECONDS);
+            assertEquals(stream(filters, log, null), parallel);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void throwsFailuresAsIOException() {
+        var failing = new Filter() {
+            @Override
+            public String getType() {
+                return "failing";
+            }
+
+            @Override
+            public String apply(String input) {
+                throw new IllegalStateException("Filter failed");
+            }
+
+            @Override
+            public LineConsumer stream(LineConsumer next) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        var stage = new ParallelFilterStage(failing, new LineConsumer() {
+            @Override
+            public boolean accept(String line) {
+                return true;
+            }
+
+            @Override
+            public void end() {
+            }
+        }, ForkJoinPool.commonPool());
+
+        stage.accept("a line");
+        var exception = assertThrows(UncheckedIOException.class, stage::end);
+        assertInstanceOf(IllegalStateException.class, exception.getCause().getCause());
+    }
+
+    @Test
+    void handlesSmallLogs() {
+        var filters = new FilterList(new Filter[]{REGEX_FILTER});
+
+        assertEquals("", stream(filters, "", ForkJoinPool.commonPool()));
+        assertEquals("a **.**.**.**\n", stream(filters, "a 1.2.3.4\n", ForkJoinPool.commonPool()));
+    }
+
+    private static String generateLog(int length) {
+        var random = new Random(42);
+        var log = new StringBuilder();
+        int line = 0;
+        while (log.length() < length) {
+            log.append("[12:00:00] [Server thread/INFO]: line ").append(line++);
+            switch (random.nextInt(4)) {
+                case 0:
+                    log.append(" from ").append(random.nextInt(256)).append('.').append(random.nextInt(256))
+                            .append(".0.").append(random.nextInt(256));
+                    break;
+                case 1:
+                    log.append(" from 127.0.0.1");
+                    break;
+                case 2:
+                    log.append(" accessToken abc_").append(random.nextInt());
+                    break;
+                default:
+                    break;
+            }
+            log.append('\n');
+        }
+        return log.toString();
+    }
+
+    private static String stream(FilterList filters, String input, Executor executor) {
+        List<String> lines = new ArrayList<>();
+        var consumer = filters.pipeline(new LineConsumer() {
+            @Override
+            public boolean accept(String line) {
+                lines.add(line);
+                return true;
+            }
+
+            @Override
+            public void end() {
+            }
+        }, executor);
+
+        for (String line : input.split("\n", -1)) {
+            if (!consumer.accept(line)) {
+                break;
+            }
+        }
+        consumer.end();
+        return String.join("\n", lines);
+    }
+}
@@ -0,0 +1,256 @@
+package gs.mclo.api.internal.filter;
+
+import gs.mclo.api.MclogsClient;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegexFilterTest {
+    private static final String[] PATTERN_PARTS = {
+            "a", "b", "c", "ab", "bc", "[ab]", "[^a]", "\\w", ".", "\\s", "a+", "b*", "c?", "(?:ab|c)", "(?<=a)",
+            "(?=b)", "(?<!c)", "(?!a)", "^", "$", "x", "\\*",
+    };
+    private static final String[] REPLACEMENTS = {"", "a", "b", "x", "*", "ab", "ba", "c c", "\n"};
+    private static final String INPUT_CHARS = "aabbcc x*\nAB";
+
+    private static final String IPV4 = "(?<!([0-9]|-|\\w))(?:[1-2]?[0-9]{1,2}\\.){3}[1-2]?[0-9]{1,2}(?!([0-9]|-|\\w))";
+
+    @Test
+    void replacesMatches() {
+        var filter = new RegexFilter(new ReplacingRegexPattern[]{
+                new ReplacingRegexPattern(IPV4, new char[]{}, "**.**.**.**"),
+        }, new RegexPattern[]{
+                new RegexPattern("127\\.[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}", new char[]{}),
+        });
+
+        assertEquals("a **.**.**.** b 127.0.0.1 c **.**.**.**", filter.apply("a 123.45.67.89 b 127.0.0.1 c 1.2.3.4"));
+        assertEquals("no match", filter.apply("no match"));
+    }
+
+    @Test
+    void exemptionsMustMatchEntireMatch() {
+        var filter = new RegexFilter(new ReplacingRegexPattern[]{
+                new ReplacingRegexPattern("[a-z]+", new char[]{}, "*"),
+        }, new RegexPattern[]{
+                new RegexPattern("ab", new char[]{}),
+        });
+
+        assertEquals("ab * *", filter.apply("ab abc xab"));
+    }
+
+    @Test
+    void compilesPatternsOnce() {
+        var pattern = new RegexPattern("a+", new char[]{'i'});
+        var compiled = pattern.tryParse();
+        assertTrue(compiled.isPresent());
+        assertSame(compiled.get(), pattern.tryParse().orElseThrow());
+    }
+
+    @Test
+    void skipsInvalidPatterns() {
+        var invalid = new ReplacingRegexPattern("(", new char[]{}, "*");
+        var invalidModifier = new ReplacingRegexPattern("a", new char[]{'x'}, "*");
+        var filter = new RegexFilter(new ReplacingRegexPattern[]{
+                invalid,
+                invalidModifier,
+                new ReplacingRegexPattern("b", new char[]{}, "*"),
+        }, new RegexPattern[]{
+                new RegexPattern("[", new char[]{}),
+        });
+
+        assertTrue(invalid.tryParse().isEmpty());
+        assertTrue(invalidModifier.tryParse().isEmpty());
+        assertEquals("a*(", filter.apply("ab("));
+    }
+
+    @Test
+    void deserializedFiltersAreCompiled() {
+        var gson = new MclogsClient("aternos/mclogs-java-tests").gson();
+        var filters = gson.fromJson("[{\"type\": \"regex\", \"data\": {" +
+                "\"patterns\": [{\"pattern\": \"a+\", \"modifiers\": [\"i\"], \"replacement\": \"*\"}]," +
+                "\"exemptions\": [{\"pattern\": \"aa\", \"modifiers\": []}]" +
+                "}}]", Filter[].class);
+
+        assertEquals(1, filters.length);
+        assertInstanceOf(RegexFilter.class, filters[0]);
+        assertEquals("b*b*baab", filters[0].apply("bAbaaabaab"));
+    }
+
+    @Test
+    void combinesPatternsIntoSinglePass() {
+        var filter = new RegexFilter(new ReplacingRegexPattern[]{
+                new ReplacingRegexPattern(IPV4, new char[]{}, "**.**.**.**"),
+                new ReplacingRegexPattern("(?<=--accessToken )\\S+", new char[]{}, "****"),
+                new ReplacingRegexPattern("secret", new char[]{'i'}, "******"),
+        }, new RegexPattern[]{
+                new RegexPattern("127\\.[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}", new char[]{}),
+        });
+
+        assertEquals(1, RegexReplacer.of(filter).getPassCount());
+        assertEquals(
+                "**.**.**.** --accessToken **** 127.0.0.1 ****** ******",
+                filter.apply("1.2.3.4 --accessToken abc.def 127.0.0.1 SECRET secret")
+        );
+    }
+
+    @Test
+    void appliesBackreferencesSequentially() {
+        var filter = new RegexFilter(new ReplacingRegexPattern[]{
+                new ReplacingRegexPattern("a", new char[]{}, "b"),
+                new ReplacingRegexPattern("(b)\\1", new char[]{}, "c"),
+                new ReplacingRegexPattern("c", new char[]{}, "d"),
+        }, new RegexPattern[]{});
+
+        assertEquals(3, RegexReplacer.of(filter).getPassCount());
+        assertEquals("d", filter.apply("ab"));
+    }
+
+    @Test
+    void mergesConsecutiveRegexFilters() {
+        var first = new RegexFilter(new ReplacingRegexPattern[]{
+                new ReplacingRegexPattern("[0-9]+", new char[]{}, "#"),
+        }, new RegexPattern[]{
+                new RegexPattern("42", new char[]{}),
+        });
+        var second = new RegexFilter(new ReplacingRegexPattern[]{
+                new ReplacingRegexPattern("[a-z]+", new char[]{}, "*"),
+        }, new RegexPattern[]{
+                new RegexPattern("ok", new char[]{}),
+        });
+        var filters = new FilterList(new Filter[]{new TrimFilter(), first, second});
+
+        var merged = filters.getMergedFilters();
+        assertEquals(2, merged.length);
+        assertInstanceOf(TrimFilter.class, merged[0]);
+        assertInstanceOf(RegexReplacer.class, merged[1]);
+        assertEquals(1, ((RegexReplacer) merged[1]).getPassCount());
+        assertEquals("# 42 * ok", merged[1].apply("17 42 abc ok"));
+        assertEquals(second.apply(first.apply("17 42 abc ok")), merged[1].apply("17 42 abc ok"));
+    }
+
+    @Test
+    void laterPatternsSeeEarlierReplacements() {
+        var first = new RegexFilter(new ReplacingRegexPattern[]{
+                new ReplacingRegexPattern("secret", new char[]{}, "***"),
+        }, new RegexPattern[]{});
+        var second = new RegexFilter(new ReplacingRegexPattern[]{
+                new ReplacingRegexPattern("user=\\w+", new char[]{}, "user=?"),
+        }, new RegexPattern[]{
+                new RegexPattern("user=secret", new char[]{}),
+        });
+
+        assertEquals("user=*** user=?", RegexReplacer.of(first, second).apply("user=secret user=other"));
+    }
+
+    @Test
+    void overlappingPatternsAreAppliedInOrder() {
+        var filter = new RegexFilter(new ReplacingRegexPattern[]{
+                new ReplacingRegexPattern("bc", new char[]{}, "x"),
+                new ReplacingRegexPattern("ab", new char[]{}, "y"),
+        }, new RegexPattern[]{});
+
+        assertEquals("ax", filter.apply("abc"));
+    }
+
+    @Test
+    void detectsLineBasedPatterns() {
+        assertTrue(replacer(IPV4, new char[]{}).isLineBased());
+        assertTrue(replacer("(?i)[a-z]+\\S*\\\\", new char[]{'i'}).isLineBased());
+        assertFalse(replacer("a.b", new char[]{'s'}).isLineBased());
+        assertFalse(replacer("^a", new char[]{'m'}).isLineBased());
+        assertFalse(replacer("(?s)a.b", new char[]{}).isLineBased());
+        assertFalse(replacer("a\\sb", new char[]{}).isLineBased());
+        assertFalse(replacer("a[^b]c", new char[]{}).isLineBased());
+        assertFalse(replacer("a$", new char[]{}).isLineBased());
+        assertFalse(replacer("a\\nb", new char[]{}).isLineBased());
+        assertFalse(replacer("[\\t-z]", new char[]{}).isLineBased());
+    }
+
+    @Test
+    void matchesSequentialApplication() {
+        var random = new Random(4);
+        for (int run = 0; run < 2000; run++) {
+            var filters = new RegexFilter[1 + random.nextInt(3)];
+            for (int i = 0; i < filters.length; i++) {
+                var patterns = new ReplacingRegexPattern[1 + random.nextInt(3)];
+                for (int j = 0; j < patterns.length; j++) {
+                    patterns[j] = new ReplacingRegexPattern(randomPattern(random), randomModifiers(random),
+                            REPLACEMENTS[random.nextInt(REPLACEMENTS.length)]);
+                }
+                var exemptions = new RegexPattern[random.nextInt(3)];
+                for (int j = 0; j < exemptions.length; j++) {
+                    exemptions[j] = new RegexPattern(randomPattern(random), randomModifiers(random));
+                }
+                filters[i] = new RegexFilter(patterns, exemptions);
+            }
+
+            var input = new StringBuilder();
+            int length = random.nextInt(30);
+            for (int i = 0; i < length; i++) {
+                input.append(INPUT_CHARS.charAt(random.nextInt(INPUT_CHARS.length())));
+            }
+
+            assertEquals(
+                    applySequentially(filters, input.toString()),
+                    RegexReplacer.of(filters).apply(input.toString()),
+                    "Filters differ for input " + input
+            );
+        }
+    }
+
+    private static RegexReplacer replacer(String pattern, char[] modifiers) {
+        return RegexReplacer.of(new RegexFilter(new ReplacingRegexPattern[]{
+                new ReplacingRegexPattern(pattern, modifiers, "*"),
+        }, new RegexPattern[]{}));
+    }
+
+    private static String randomPattern(Random random) {
+        var pattern = new StringBuilder();
+        int parts = 1 + random.nextInt(3);
+        for (int i = 0; i < parts; i++) {
+            pattern.append(PATTERN_PARTS[random.nextInt(PATTERN_PARTS.length)]);
+        }
+        return pattern.toString();
+    }
+
+    private static char[] randomModifiers(Random random) {
+        return random.nextInt(4) == 0 ? new char[]{'i'} : new char[]{};
+    }
+
+    /**
+     * Apply the filters like the original implementation: one pattern after another, exempting a match if an
+     * exemption matches the matched text.
+     */
+    private static String applySequentially(RegexFilter[] filters, String input) {
+        for (var filter : filters) {
+            for (var pattern : filter.getPatterns()) {
+                var compiled = pattern.tryParse();
+                if (compiled.isEmpty()) {
+                    continue;
+                }
+                var matcher = compiled.get().matcher(input);
+                var result = new StringBuilder();
+                while (matcher.find()) {
+                    boolean exempted = false;
+                    for (var exemption : filter.getExemptionPatterns()) {
+                        if (exemption.matcher(matcher.group()).matches()) {
+                            exempted = true;
+                            break;
+                        }
+                    }
+                    String replacement = exempted ? matcher.group() : pattern.getReplacement();
+                    matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
+                }
+                matcher.appendTail(result);
+                input = result.toString();
+            }
+        }
+        return input;
+    }
+}
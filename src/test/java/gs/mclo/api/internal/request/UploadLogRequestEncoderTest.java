@@ -0,0 +1,44 @@
+package gs.mclo.api.internal.request;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import gs.mclo.api.data.Metadata;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class UploadLogRequestEncoderTest {
+    private static final String[] PARTS = {
+            "[12:34:56] [Server thread/INFO]: ", "line", "\n", "\r\n", "\t", "\"", "\\", "<html>", "&", "=", "'",
+            "\u0000", "\u001f", "\u007f", "ä", "Привет", "日本語", "\u2028", "\u2029", "😀", "\ud83d", "\ude00", "\uffff",
+    };
+
+    @Test
+    void matchesGson() {
+        var random = new Random(0);
+        for (Gson gson : new Gson[]{new Gson(), new GsonBuilder().disableHtmlEscaping().create()}) {
+            for (int i = 0; i < 1000; i++) {
+                String content = randomString(random, 200);
+                String source = random.nextBoolean() ? null : randomString(random, 3);
+                Set<Metadata<?>> metadata = random.nextBoolean()
+                        ? Set.of()
+                        : Set.of(new Metadata<>("key", randomString(random, 3), "Label <" + i + ">", true));
+
+                byte[] expected = gson.toJson(new UploadLogRequestBody(content, source, metadata)).getBytes(StandardCharsets.UTF_8);
+                assertArrayEquals(expected, UploadLogRequestEncoder.encode(gson, content, source, metadata));
+            }
+        }
+    }
+
+    private static String randomString(Random random, int parts) {
+        var builder = new StringBuilder();
+        for (int j = random.nextInt(parts); j > 0; j--) {
+            builder.append(PARTS[random.nextInt(PARTS.length)]);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package gs.mclo.api.reader;
+
+import gs.mclo.api.internal.filter.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FileLogReaderTest {
+    private Path file;
+
+    @BeforeEach
+    void createFile() throws IOException {
+        file = Files.createTempFile("mclogs-test", ".log");
+    }
+
+    @AfterEach
+    void deleteFile() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Mapped files can't be deleted on Windows until the mapping is garbage collected
+            file.toFile().deleteOnExit();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "  \n\t\n  ",
+            "line 1\nline 2\nline 3\nline 4\nline 5\nline 6\n",
+            "\n\n   line 1\nline 2",
+            "äöü ß\nline 2 ä\nline 3 é\nline 4\nline 5",
+            "a very long first line that is longer than the byte limit 12345 ä",
+    })
+    void mappedMatchesStreamed(String content) throws IOException {
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+
+        for (var filters : new FilterList[]{
+                new FilterList(new Filter[]{}),
+                new FilterList(new Filter[]{new TrimFilter(), new LimitBytesFilter(40), new LimitLinesFilter(4)}),
+                new FilterList(new Filter[]{new LimitBytesFilter(13)}),
+                new FilterList(new Filter[]{new LimitLinesFilter(1)}),
+        }) {
+            assertEquals(
+                    new FileLogReader(file).readContents(filters),
+                    new FileLogReader(file, true).readContents(filters)
+            );
+        }
+    }
+
+    @Test
+    void byteLimitIsExact() throws IOException {
+        // 3 bytes per character in UTF-8
+        Files.writeString(file, "€€€€€€€€€€", StandardCharsets.UTF_8);
+
+        var filters = new FilterList(new Filter[]{new LimitBytesFilter(10)});
+        assertEquals("€€€", new FileLogReader(file, true).readContents(filters));
+    }
+
+    @Test
+    void readsUtf8() throws IOException {
+        Files.writeString(file, "äöü ß €", StandardCharsets.UTF_8);
+
+        var filters = new FilterList(new Filter[]{});
+        assertEquals("äöü ß €", new FileLogReader(file).readContents(filters));
+    }
+}
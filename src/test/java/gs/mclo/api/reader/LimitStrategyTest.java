@@ -0,0 +1,167 @@
+package gs.mclo.api.reader;
+
+import gs.mclo.api.internal.filter.*;
+import gs.mclo.api.response.Limits;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LimitStrategyTest {
+    private Path file;
+
+    @BeforeEach
+    void createFile() throws IOException {
+        file = Files.createTempFile("mclogs-test", ".log");
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void tailKeepsLastLines() throws IOException {
+        assertEquals("4\n5", read("1\n2\n3\n4\n5", LimitStrategy.TAIL, limits(null, 2)));
+    }
+
+    @Test
+    void tailKeepsCompleteLinesWithinByteLimit() throws IOException {
+        assertEquals("bbbb\ncccc", read("aaaa\nbbbb\ncccc", LimitStrategy.TAIL, limits(10, null)));
+    }
+
+    @Test
+    void tailCutsLastLineIfItIsTooLong() throws IOException {
+        assertEquals("€€€", read("first line\n€€€€€€€€€€", LimitStrategy.TAIL, limits(10, null)));
+    }
+
+    @Test
+    void tailIgnoresTrailingWhitespace() throws IOException {
+        assertEquals("b", read("\n\n  a\nb  \n\n  \n", LimitStrategy.TAIL, limits(null, 1)));
+    }
+
+    @Test
+    void headAndTailElidesMiddle() throws IOException {
+        assertEquals("1\n2\n[...]\n9\n10", read("1\n2\n3\n4\n5\n6\n7\n8\n9\n10", LimitStrategy.HEAD_AND_TAIL, limits(null, 5)));
+    }
+
+    @Test
+    void headAndTailKeepsLogThatFits() throws IOException {
+        assertEquals("1\n2\n3\n4\n5", read("1\n2\n3\n4\n5\n", LimitStrategy.HEAD_AND_TAIL, limits(null, 5)));
+    }
+
+    @Test
+    void headIsDefault() throws IOException {
+        assertEquals(LimitStrategy.HEAD, new StringLogReader("").getLimitStrategy());
+        assertEquals("1\n2", read("1\n2\n3\n4\n5", LimitStrategy.HEAD, limits(null, 2)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "  \n\t\n  ",
+            "line 1\nline 2\nline 3\nline 4\nline 5\nline 6\n",
+            "\n\n   line 1\nline 2   \n\n",
+            "äöü ß\nline 2 ä\nline 3 é\nline 4\nline 5",
+            "a very long first line that is longer than the byte limit 12345 ä\nshort\nand a long last line with 😀😀😀😀",
+    })
+    void seekableMatchesStreamed(String content) throws IOException {
+        for (var strategy : new LimitStrategy[]{LimitStrategy.TAIL, LimitStrategy.HEAD_AND_TAIL}) {
+            for (var filters : new FilterList[]{
+                    new FilterList(new Filter[]{}),
+                    limits(40, 4),
+                    limits(13, null),
+                    limits(null, 1),
+                    limits(null, 3),
+                    limits(15, 20),
+            }) {
+                assertEquals(read(content, strategy, filters), readFile(content, strategy, filters));
+            }
+        }
+    }
+
+    @Test
+    void readsLargeFilesFromBothEnds() throws IOException {
+        var random = new Random(42);
+        var content = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            content.append("line ").append(i).append(' ');
+            for (int j = random.nextInt(40); j > 0; j--) {
+                content.append(random.nextBoolean() ? 'x' : 'ä');
+            }
+            content.append('\n');
+        }
+
+        for (var strategy : new LimitStrategy[]{LimitStrategy.TAIL, LimitStrategy.HEAD_AND_TAIL}) {
+            for (int i = 0; i < 20; i++) {
+                var filters = limits(100 + random.nextInt(200000), 1 + random.nextInt(15000));
+                var expected = read(content.toString(), strategy, filters);
+                assertEquals(expected, readFile(content.toString(), strategy, filters));
+
+                assertTrue(expected.getBytes(StandardCharsets.UTF_8).length <= filters.getMaxBytes());
+                assertTrue(expected.split("\n", -1).length <= filters.getMaxLines());
+                assertTrue(expected.endsWith("line 19999 " + content.substring(content.lastIndexOf("line 19999 ") + 11).trim()));
+            }
+        }
+    }
+
+    @Test
+    void readsCompressedFiles() throws IOException {
+        file = Files.move(file, file.resolveSibling(file.getFileName() + ".gz"));
+        String content = "1\n2\n3\n4\n5\n6\n7\n8\n9\n10";
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+
+        var filters = limits(null, 5);
+        assertEquals("6\n7\n8\n9\n10", new FileLogReader(file).setLimitStrategy(LimitStrategy.TAIL).readContents(filters));
+        assertEquals("1\n2\n[...]\n9\n10", new FileLogReader(file).setLimitStrategy(LimitStrategy.HEAD_AND_TAIL).readContents(filters));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void appliesStrategyToDeprecatedLimits() throws IOException {
+        var limits = new Limits(0, 1000, 5);
+        String content = "1\n2\n3\n4\n5\n6\n7\n8\n9\n10";
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+
+        assertEquals("1\n2\n3\n4\n5", new StringLogReader(content).readContents(limits));
+        assertEquals("6\n7\n8\n9\n10", new StringLogReader(content).setLimitStrategy(LimitStrategy.TAIL).readContents(limits));
+        assertEquals("1\n2\n[...]\n9\n10", new FileLogReader(file).setLimitStrategy(LimitStrategy.HEAD_AND_TAIL).readContents(limits));
+    }
+
+    private static FilterList limits(Integer bytes, Integer lines) {
+        var filters = new ArrayList<Filter>();
+        filters.add(new TrimFilter());
+        if (bytes != null) {
+            filters.add(new LimitBytesFilter(bytes));
+        }
+        if (lines != null) {
+            filters.add(new LimitLinesFilter(lines));
+        }
+        return new FilterList(filters.toArray(Filter[]::new));
+    }
+
+    private static String read(String content, LimitStrategy strategy, FilterList filters) throws IOException {
+        return new StringLogReader(content).setLimitStrategy(strategy).readContents(filters);
+    }
+
+    private String readFile(String content, LimitStrategy strategy, FilterList filters) throws IOException {
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return new FileLogReader(file).setLimitStrategy(strategy).readContents(filters);
+    }
+}
@@ -0,0 +1,168 @@
+package gs.mclo.api.reader;
+
+import gs.mclo.api.Log;
+import gs.mclo.api.internal.filter.Filter;
+import gs.mclo.api.internal.filter.FilterList;
+import gs.mclo.api.response.Limits;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogFollowerTest {
+    private Path directory;
+    private Path file;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("mclogs-test");
+        file = directory.resolve("latest.log");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void returnsAppendedLines() throws IOException {
+        var follower = new LogFollower(file);
+        append("a\nb\n");
+        assertEquals("a\nb", content(follower.poll()));
+        assertNull(follower.poll());
+
+        append("c\npart");
+        assertEquals("c", content(follower.poll()));
+        append("ial\n");
+        assertEquals("partial", content(follower.poll()));
+        assertEquals(Files.size(file), follower.getOffset());
+    }
+
+    @Test
+    void skipsExistingContent() throws IOException {
+        append("old\n");
+        var follower = new LogFollower(file).setStartAtEnd(true);
+        assertNull(follower.poll());
+
+        append("new\n");
+        assertEquals("new", content(follower.poll()));
+    }
+
+    @Test
+    void waitsForFileToBeCreated() throws IOException {
+        var follower = new LogFollower(file).setStartAtEnd(true);
+        assertNull(follower.poll());
+
+        append("first\n");
+        assertEquals("first", content(follower.poll()));
+    }
+
+    @Test
+    void readsRestOfRotatedFile() throws IOException {
+        var follower = new LogFollower(file);
+        append("[00:00:00] line 1\n[00:00:01] line 2\n");
+        assertEquals("[00:00:00] line 1\n[00:00:01] line 2", content(follower.poll()));
+
+        append("[00:00:02] line 3\n");
+        rotate("2024-01-01-1.log.gz");
+        append("[00:00:03] new line 1\n");
+
+        assertEquals("[00:00:02] line 3\n[00:00:03] new line 1", content(follower.poll()));
+        assertEquals("[00:00:03] new line 1".length() + 1, follower.getOffset());
+    }
+
+    @Test
+    void followsTruncatedFile() throws IOException {
+        var follower = new LogFollower(file);
+        append("a long line that is truncated later\n");
+        assertNotNull(follower.poll());
+
+        Files.writeString(file, "short\n", StandardCharsets.UTF_8, StandardOpenOption.TRUNCATE_EXISTING);
+        assertEquals("short", content(follower.poll()));
+    }
+
+    @Test
+    void keepsRollingWindow() throws IOException {
+        var follower = new LogFollower(file).setWindowLimits(new Limits(0, 1000, 2));
+        append("a\nb\n");
+        follower.poll();
+        append("c\n");
+        follower.poll();
+
+        assertEquals("b\nc", content(follower.getWindow()));
+    }
+
+    @Test
+    void returnsBacklogWithinWindowLimits() throws IOException {
+        append("a\nb\nc\nd\ne\n");
+        var follower = new LogFollower(file).setWindowLimits(new Limits(0, 1000, 2));
+        assertEquals("a\nb", content(follower.poll()));
+        assertEquals("c\nd", content(follower.poll()));
+        assertEquals("e", content(follower.poll()));
+        assertNull(follower.poll());
+    }
+
+    @Test
+    void truncatesLinesLongerThanWindowLimits() throws IOException {
+        append("short\n" + "x".repeat(20) + "\nnext\n");
+        var follower = new LogFollower(file).setWindowLimits(new Limits(0, 10, 100));
+        assertEquals("short", content(follower.poll()));
+        assertEquals("x".repeat(10), content(follower.poll()));
+        assertEquals("next", content(follower.poll()));
+        assertEquals(Files.size(file), follower.getOffset());
+    }
+
+    @Test
+    void readsRestOfRotatedFileWithinWindowLimits() throws IOException {
+        var follower = new LogFollower(file).setWindowLimits(new Limits(0, 1000, 2));
+        append("[00:00:00] line 1\n");
+        assertEquals("[00:00:00] line 1", content(follower.poll()));
+
+        append("[00:00:01] line 2\n[00:00:02] line 3\n[00:00:03] line 4\n");
+        rotate("2024-01-01-1.log.gz");
+        append("[00:00:04] new line 1\n");
+
+        assertEquals("[00:00:01] line 2\n[00:00:02] line 3", content(follower.poll()));
+        assertEquals("[00:00:03] line 4\n[00:00:04] new line 1", content(follower.poll()));
+        assertNull(follower.poll());
+    }
+
+    @Test
+    void rejectsForbiddenFileNames() {
+        assertThrows(IllegalArgumentException.class, () -> new LogFollower(directory.resolve("server.properties")));
+    }
+
+    private void append(String content) throws IOException {
+        Files.writeString(file, content, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Rotate the log like log4j does: compress it to an archive and delete the original file
+     */
+    private void rotate(String archive) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(directory.resolve(archive)))) {
+            Files.copy(file, out);
+        }
+        Files.delete(file);
+    }
+
+    private static String content(Log log) throws IOException {
+        assertNotNull(log);
+        return log.getContent(new FilterList(new Filter[]{}));
+    }
+}